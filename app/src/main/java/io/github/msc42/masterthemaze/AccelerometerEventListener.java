@@ -20,10 +20,13 @@ package io.github.msc42.masterthemaze;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
-
-import java.util.concurrent.ArrayBlockingQueue;
+import android.os.Build;
+import android.os.SystemClock;
 
 import io.github.msc42.maze.Game;
+import io.github.msc42.maze.input.MoveRingBuffer;
+import io.github.msc42.maze.input.TiltClassifier;
+import io.github.msc42.maze.metrics.InputLatencyMetrics;
 
 class AccelerometerEventListener implements SensorEventListener {
 
@@ -35,17 +38,23 @@ class AccelerometerEventListener implements SensorEventListener {
     };
 
     private int mRotation;
-    private float mSensitivity;
+    private TiltClassifier mTiltClassifier;
     private CurrentMoveDirection mCurrentMoveDirection;
-    private ArrayBlockingQueue<Integer> mMotionQueue;
+    private MoveRingBuffer mMotionQueue;
+    private MoveRepeatScheduler mMoveRepeatScheduler;
+    private InputLatencyMetrics mInputLatencyMetrics;
 
 
     protected AccelerometerEventListener(int rotation, float sensitivity, CurrentMoveDirection currentMoveDirection,
-                                         ArrayBlockingQueue<Integer> motionQueue) {
+                                         MoveRingBuffer motionQueue, MoveRepeatScheduler moveRepeatScheduler,
+                                         InputLatencyMetrics inputLatencyMetrics) {
         this.mRotation = rotation;
-        this.mSensitivity = sensitivity;
+        mTiltClassifier = new TiltClassifier(sensitivity, sensitivity * Constants.TILT_EXIT_THRESHOLD_FACTOR,
+                Constants.TILT_DEAD_ZONE, Constants.TILT_FILTER_SMOOTHING);
         this.mCurrentMoveDirection = currentMoveDirection;
         this.mMotionQueue = motionQueue;
+        this.mMoveRepeatScheduler = moveRepeatScheduler;
+        this.mInputLatencyMetrics = inputLatencyMetrics;
     }
 
     @Override
@@ -55,34 +64,33 @@ class AccelerometerEventListener implements SensorEventListener {
     @Override
     public void onSensorChanged(SensorEvent event) {
         if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
-            float x = event.values[0];
-            float y = event.values[1];
-
-            if (x > mSensitivity && x > Math.abs(y)) {
-                setCurrentMoveDirection(DIRECTIONS[mRotation][0]);
-            } else if (y < -mSensitivity && -y > Math.abs(x)) {
-                setCurrentMoveDirection(DIRECTIONS[mRotation][1]);
-            } else if (x < -mSensitivity && -x > Math.abs(y)) {
-                setCurrentMoveDirection(DIRECTIONS[mRotation][2]);
-            } else if (y > mSensitivity && y > Math.abs(x)) {
-                setCurrentMoveDirection(DIRECTIONS[mRotation][3]);
+            // the indices of the directions of the classifier are the indices of DIRECTIONS
+            int direction = mTiltClassifier.classify(event.values[0], event.values[1]);
+            if (direction == TiltClassifier.NONE) {
+                setCurrentMoveDirection(Game.NO_MOVE, 0, event.timestamp);
             } else {
-                setCurrentMoveDirection(Game.NO_MOVE);
+                setCurrentMoveDirection(DIRECTIONS[mRotation][direction], mTiltClassifier.getTilt(), event.timestamp);
             }
         }
     }
 
-    private void setCurrentMoveDirection(int newMoveDirection) {
+    private void setCurrentMoveDirection(int newMoveDirection, float tilt, long sensorTimestamp) {
         if (mCurrentMoveDirection.getCurrentMoveDirection() != newMoveDirection) {
-            // without synchronization it could be possible that the AddCurrentDirectionToQueueThread
-            // adds the old direction after the new direction in the queue
-            synchronized (mCurrentMoveDirection) {
-                mCurrentMoveDirection.setCurrentMoveDirection(newMoveDirection);
-                try {
-                    mMotionQueue.add(mCurrentMoveDirection.getCurrentMoveDirection());
-                } catch (IllegalStateException e) {
-                    // if queue is full, move is discarded
-                }
+            recordSensorToEnqueueLatency(sensorTimestamp);
+            mCurrentMoveDirection.setCurrentMoveDirection(newMoveDirection);
+            mMotionQueue.offer(newMoveDirection, mCurrentMoveDirection.getTimestamp());
+        }
+        // the scheduler runs on the same thread, so it can not add the old direction after the new direction
+        mMoveRepeatScheduler.update(newMoveDirection, tilt);
+    }
+
+    private void recordSensorToEnqueueLatency(long sensorTimestamp) {
+        // the timestamp of a sensor event is based on SystemClock.elapsedRealtimeNanos (added in API 17)
+        // on most devices, on other devices the latency is implausible and is not recorded
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            long latency = SystemClock.elapsedRealtimeNanos() - sensorTimestamp;
+            if (latency >= 0 && latency < Constants.MAX_PLAUSIBLE_SENSOR_LATENCY_NANOS) {
+                mInputLatencyMetrics.record(InputLatencyMetrics.STAGE_SENSOR_TO_ENQUEUE, latency);
             }
         }
     }
@@ -0,0 +1,180 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.masterthemaze;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.os.Environment;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import io.github.msc42.maze.CacheableLevelSource;
+import io.github.msc42.maze.CompiledLevelSource;
+import io.github.msc42.maze.GameConstants;
+import io.github.msc42.maze.InvalidLevelException;
+import io.github.msc42.maze.LevelPack;
+
+/**
+ * Represents the source of the levels on an Android device.
+ * A level in the directory "MasterTheMaze" of the external storage replaces the level with the same
+ * number in the assets of the app.
+ * The build compiles the levels of the assets into a level pack (see LevelCompiler), which is memory-mapped.
+ * A level pack in the directory "MasterTheMaze" replaces it, a replaced JSON file has no compiled form.
+ * The directory is listed once, so a level, which is not replaced, is loaded without probing files.
+ * In a LevelCache, a replaced level and a replaced level pack are identified by the path and the modification time
+ * of their file, the assets by their name (they change only with an update, which restarts the process).
+ *
+ * @author Stefan Constantin
+ */
+final class AndroidLevelSource implements CompiledLevelSource, CacheableLevelSource {
+
+    protected static final String EXTERNAL_STORAGE_LEVEL_DIRECTORY = "MasterTheMaze";
+    private static final String ASSET_ORIGIN = "assets:level";
+
+    private AssetManager mAssetManager;
+
+    private File mExternalStorageDirectory;
+    private Set<String> mExternalStorageFiles;
+    private LevelPack mLevelPack;
+    private boolean mLevelPackOpened = false;
+
+
+    /**
+     * Creates a new Android level source.
+     *
+     * @param assetManager Provides access to this application's raw asset files.
+     */
+    protected AndroidLevelSource(AssetManager assetManager) {
+        this.mAssetManager = assetManager;
+    }
+
+    private boolean isOnExternalStorage(String fileName) {
+        if (mExternalStorageFiles == null) {
+            mExternalStorageFiles = new HashSet<>();
+            String state = Environment.getExternalStorageState();
+            if (Environment.MEDIA_MOUNTED.equals(state) || Environment.MEDIA_MOUNTED_READ_ONLY.equals(state)) {
+                mExternalStorageDirectory = new File(Environment.getExternalStorageDirectory(),
+                        EXTERNAL_STORAGE_LEVEL_DIRECTORY);
+                String[] fileNames = mExternalStorageDirectory.list();
+                if (fileNames != null) {
+                    mExternalStorageFiles.addAll(Arrays.asList(fileNames));
+                }
+            }
+        }
+        return mExternalStorageFiles.contains(fileName);
+    }
+
+    private LevelPack getLevelPack() throws InvalidLevelException, IOException {
+        if (!mLevelPackOpened) {
+            mLevelPackOpened = true;
+            if (isOnExternalStorage(GameConstants.LEVEL_PACK_FILE_NAME)) {
+                mLevelPack = LevelPack.open(new File(mExternalStorageDirectory, GameConstants.LEVEL_PACK_FILE_NAME));
+            } else {
+                try {
+                    AssetFileDescriptor assetFileDescriptor = mAssetManager.openFd(GameConstants.LEVEL_PACK_FILE_NAME);
+                    // the stream closes the asset file descriptor
+                    mLevelPack = LevelPack.open(assetFileDescriptor.createInputStream(),
+                            assetFileDescriptor.getStartOffset(), assetFileDescriptor.getLength());
+                } catch (FileNotFoundException e) {
+                    // there is no level pack (or it is compressed), the JSON files are read
+                }
+            }
+        }
+        return mLevelPack;
+    }
+
+    @Override
+    public InputStream openLevel(int levelNumber) throws IOException {
+        String fileName = GameConstants.LEVEL_FILE_NAME_PREFIX + levelNumber + GameConstants.LEVEL_FILE_EXTENSION;
+
+        if (isOnExternalStorage(fileName)) {
+            try {
+                return new FileInputStream(new File(mExternalStorageDirectory, fileName));
+            } catch (FileNotFoundException e) {
+                // level was removed in the meantime, the level in the assets is used
+            }
+        }
+
+        try {
+            return mAssetManager.open(fileName);
+        } catch (IOException e) {
+            throw new FileNotFoundException(fileName);
+        }
+    }
+
+    @Override
+    public InputStream openEnd() throws IOException {
+        return mAssetManager.open(GameConstants.END_LEVEL_FILE_NAME);
+    }
+
+    @Override
+    public ByteBuffer getCompiledLevel(int levelNumber) throws InvalidLevelException, IOException {
+        String fileName = GameConstants.LEVEL_FILE_NAME_PREFIX + levelNumber + GameConstants.LEVEL_FILE_EXTENSION;
+        LevelPack levelPack = getLevelPack();
+        if (isOnExternalStorage(fileName) || levelPack == null) {
+            // the replacing JSON file is read by openLevel
+            throw new FileNotFoundException(fileName);
+        }
+        return levelPack.getCompiledLevel(levelNumber);
+    }
+
+    @Override
+    public ByteBuffer getCompiledEnd() throws InvalidLevelException, IOException {
+        LevelPack levelPack = getLevelPack();
+        if (levelPack == null) {
+            throw new FileNotFoundException(GameConstants.LEVEL_PACK_FILE_NAME);
+        }
+        return levelPack.getCompiledEnd();
+    }
+
+    @Override
+    public String getLevelOrigin(int levelNumber) {
+        File file = getReplacingFile(levelNumber);
+        if (file != null) {
+            return file.getPath();
+        }
+        return ASSET_ORIGIN + levelNumber;
+    }
+
+    @Override
+    public long getLevelModificationTime(int levelNumber) {
+        File file = getReplacingFile(levelNumber);
+        return file != null ? file.lastModified() : 0;
+    }
+
+    /**
+     * @return The file of the external storage, which replaces the level or the level pack, or null.
+     */
+    private File getReplacingFile(int levelNumber) {
+        String fileName = GameConstants.LEVEL_FILE_NAME_PREFIX + levelNumber + GameConstants.LEVEL_FILE_EXTENSION;
+        if (isOnExternalStorage(fileName)) {
+            return new File(mExternalStorageDirectory, fileName);
+        } else if (isOnExternalStorage(GameConstants.LEVEL_PACK_FILE_NAME)) {
+            return new File(mExternalStorageDirectory, GameConstants.LEVEL_PACK_FILE_NAME);
+        }
+        return null;
+    }
+}
@@ -17,12 +17,14 @@
 
 package io.github.msc42.masterthemaze;
 
+import java.io.IOException;
+
 /**
  * Represents an exception, which is thrown if Bluetooth was disabled by the user while using it.
  *
  * @author Stefan Constantin
  */
-class BluetoothDisabledException extends Exception {
+class BluetoothDisabledException extends IOException {
 
     private static final long serialVersionUID = 1L;
 
@@ -0,0 +1,319 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.masterthemaze;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothSocket;
+import android.os.ParcelUuid;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+
+import io.github.msc42.maze.display.DisplayCapabilities;
+import io.github.msc42.maze.display.DisplayHandshake;
+import io.github.msc42.maze.display.StreamDisplayTransport;
+
+/**
+ * Represents the transport to the Bluetooth LED display, it connects to the RFCOMM channel Constants.RFCOMM_PORT.
+ * The Bluetooth stack throws a NullPointerException if Bluetooth was disabled by the user,
+ * it is converted into a BluetoothDisabledException.
+ * <p/>
+ * The handshake is sent immediately after connecting. If the display does not respond within
+ * Constants.DISPLAY_READY_TIMEOUT (it was not ready and dropped the request), the connection is established
+ * again and the display gets Constants.WAIT_TIME_AFTER_CONNECT before the handshake. The time, which the display
+ * needs, and the protocol version, which it accepted, are stored in the DisplayCapabilitiesCache.
+ * <p/>
+ * The main activity connects to the chosen display in advance (warmUp), the game takes over this connection
+ * (obtain), so that it starts without waiting for the connection.
+ *
+ * @author Stefan Constantin
+ */
+final class BluetoothDisplayTransport extends StreamDisplayTransport {
+
+    // the transport, which connects or is connected in advance, guarded by the class
+    private static BluetoothDisplayTransport sWarmTransport;
+
+    private BluetoothDevice mBluetoothDevice;
+    private BluetoothSocket mBluetoothSocket;
+    private DisplayCapabilitiesCache mCapabilitiesCache;
+    // the capabilities, with which the transport was created, null if the display is probed
+    private DisplayCapabilities mCapabilities;
+    private int mSettleMillis;
+
+    private volatile CountDownLatch mWarmUp;
+    // guarded by the class
+    private boolean mObtained = false;
+
+
+    private BluetoothDisplayTransport(BluetoothDevice bluetoothDevice, DisplayCapabilitiesCache capabilitiesCache) {
+        this.mBluetoothDevice = bluetoothDevice;
+        this.mCapabilitiesCache = capabilitiesCache;
+
+        mCapabilities = capabilitiesCache.get(bluetoothDevice.getAddress());
+        mSettleMillis = mCapabilities == null ? 0 : mCapabilities.getSettleMillis();
+    }
+
+    /**
+     * Starts to connect to a display in the background, a connection to another display, which was
+     * established in advance, is closed. The connection is closed after Constants.WARM_CONNECTION_TIMEOUT
+     * if it is not obtained.
+     */
+    protected static synchronized void warmUp(BluetoothDevice bluetoothDevice,
+                                              DisplayCapabilitiesCache capabilitiesCache) {
+        if (sWarmTransport != null) {
+            if (sWarmTransport.mBluetoothDevice.getAddress().equals(bluetoothDevice.getAddress())) {
+                return;
+            }
+            sWarmTransport.close();
+            BluetoothDisplayTransport.class.notifyAll();
+        }
+
+        sWarmTransport = new BluetoothDisplayTransport(bluetoothDevice, capabilitiesCache);
+        sWarmTransport.startWarmUp();
+    }
+
+    /**
+     * Returns the transport to a display, it is connected or connects in advance if warmUp was called
+     * for this display, then connect() waits for this connection.
+     */
+    protected static synchronized BluetoothDisplayTransport obtain(BluetoothDevice bluetoothDevice,
+                                                                   DisplayCapabilitiesCache capabilitiesCache) {
+        BluetoothDisplayTransport transport = sWarmTransport;
+        sWarmTransport = null;
+        BluetoothDisplayTransport.class.notifyAll();
+
+        if (transport != null && transport.mBluetoothDevice.getAddress().equals(bluetoothDevice.getAddress())) {
+            transport.mObtained = true;
+            return transport;
+        }
+
+        if (transport != null) {
+            transport.close();
+        }
+        return new BluetoothDisplayTransport(bluetoothDevice, capabilitiesCache);
+    }
+
+    private void startWarmUp() {
+        final CountDownLatch warmUp = new CountDownLatch(1);
+        mWarmUp = warmUp;
+        Thread thread = new Thread("DisplayWarmUp") {
+            @Override
+            public void run() {
+                try {
+                    connectSocket();
+                } catch (IOException e) {
+                    // the game connects again and reports the error
+                    close();
+                } finally {
+                    warmUp.countDown();
+                }
+
+                closeIfNotObtained();
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void closeIfNotObtained() {
+        synchronized (BluetoothDisplayTransport.class) {
+            long deadline = System.currentTimeMillis() + Constants.WARM_CONNECTION_TIMEOUT;
+            long remaining = Constants.WARM_CONNECTION_TIMEOUT;
+            while (sWarmTransport == this && remaining > 0) {
+                try {
+                    BluetoothDisplayTransport.class.wait(remaining);
+                } catch (InterruptedException e) {
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+
+            if (!mObtained) {
+                if (sWarmTransport == this) {
+                    sWarmTransport = null;
+                }
+                close();
+            }
+        }
+    }
+
+    /**
+     * Waits for a connection, which was started in advance.
+     *
+     * @return true if a connection was started in advance.
+     */
+    private boolean awaitWarmUp() {
+        CountDownLatch warmUp = mWarmUp;
+        if (warmUp == null) {
+            return false;
+        }
+        mWarmUp = null;
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                warmUp.await();
+                break;
+            } catch (InterruptedException e) {
+                // the warm up uses the socket, so it has to be finished
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    /**
+     * @throws BluetoothDisabledException        If Bluetooth was disabled by the user.
+     * @throws RfcommSocketNotSupportedException If the RFCOMM socket cannot be created.
+     */
+    @Override
+    public void connect() throws IOException {
+        if (awaitWarmUp() && isConnected()) {
+            return;
+        }
+
+        connectSocket();
+    }
+
+    private void connectSocket() throws IOException {
+        initBluetoothSocket();
+
+        try {
+            BluetoothAdapter.getDefaultAdapter().cancelDiscovery();
+            mBluetoothSocket.connect();
+        } catch (NullPointerException e) {
+            throw new BluetoothDisabledException();
+        }
+
+        if (mSettleMillis > 0) {
+            try {
+                Thread.sleep(mSettleMillis);
+            } catch (InterruptedException e) {
+            }
+        }
+
+        try {
+            setStreams(mBluetoothSocket.getInputStream(), mBluetoothSocket.getOutputStream());
+        } catch (NullPointerException e) {
+            throw new BluetoothDisabledException();
+        }
+        setResponseTimeout(mSettleMillis > 0 ? 0 : Constants.DISPLAY_READY_TIMEOUT);
+    }
+
+    private void initBluetoothSocket() throws BluetoothDisabledException, RfcommSocketNotSupportedException {
+        mBluetoothSocket = null;
+        try {
+            // public BluetoothSocket createRfcommSocket(int channel) throws IOException in the class
+            // BluetoothDevice is hidden (annotation @hide)
+            // a workaround is to access the hidden function with the help of reflection
+            Method m = mBluetoothDevice.getClass().getMethod("createRfcommSocket", new Class[]{int.class});
+            mBluetoothSocket = (BluetoothSocket) m.invoke(mBluetoothDevice, Constants.RFCOMM_PORT);
+        } catch (NullPointerException e) {
+            throw new BluetoothDisabledException();
+        } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+            try {
+                // public BluetoothSocket createRfcommSocket(int channel) throws IOException in the class
+                // BluetoothDevice returns
+                // new BluetoothSocket(BluetoothSocket.TYPE_RFCOMM, -1, true, true, this, channel, null);
+                // instead of createRfcommSocket(int channel) the Bluetooth socket can be directly instantiated
+                // however, the constructor is private
+                // a workaround is to access the private constructor with the help of reflection
+                Class[] constructorArgumentTypes = {int.class, int.class, boolean.class,
+                        boolean.class, BluetoothDevice.class, int.class, ParcelUuid.class};
+                Constructor<BluetoothSocket> constructor = (Constructor<BluetoothSocket>)
+                        BluetoothSocket.class.getDeclaredConstructor(constructorArgumentTypes);
+                constructor.setAccessible(true);
+                int typeRfcomm = 1;
+                // since Android API 23 the constant BluetoothSocket.TYPE_RFCOMM is public
+                mBluetoothSocket = constructor.newInstance(typeRfcomm, -1, true, true,
+                        mBluetoothDevice, Constants.RFCOMM_PORT, null);
+            } catch (NullPointerException e1) {
+                throw new BluetoothDisabledException();
+            } catch (IllegalAccessException | InstantiationException | InvocationTargetException
+                    | NoSuchMethodException | SecurityException e1) {
+                throw new RfcommSocketNotSupportedException();
+            }
+        }
+    }
+
+    /**
+     * Does the handshake, it connects again and waits for the display if the display was not ready.
+     */
+    @Override
+    public boolean handshake(DisplayHandshake handshake) throws IOException {
+        try {
+            try {
+                return storeCapabilities(handshake, super.handshake(handshake));
+            } catch (SocketTimeoutException e) {
+                close();
+                mSettleMillis = Constants.WAIT_TIME_AFTER_CONNECT;
+                connectSocket();
+                return storeCapabilities(handshake, super.handshake(handshake));
+            }
+        } catch (NullPointerException e) {
+            throw new BluetoothDisabledException();
+        }
+    }
+
+    private boolean storeCapabilities(DisplayHandshake handshake, boolean accepted) {
+        if (accepted) {
+            mCapabilitiesCache.put(mBluetoothDevice.getAddress(), DisplayCapabilities.of(handshake, mSettleMillis,
+                    mCapabilities, System.currentTimeMillis()));
+        }
+        return accepted;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        try {
+            super.write(data, offset, length);
+        } catch (NullPointerException e) {
+            throw new BluetoothDisabledException();
+        }
+    }
+
+    /**
+     * @return false if the socket is not connected or Bluetooth was disabled.
+     */
+    @Override
+    public boolean isConnected() {
+        try {
+            return mBluetoothSocket != null && mBluetoothSocket.isConnected();
+        } catch (NullPointerException e) {
+            return false;
+        }
+    }
+
+    @Override
+    protected void closeConnection() {
+        try {
+            if (mBluetoothSocket != null) {
+                mBluetoothSocket.close();
+            }
+        } catch (NullPointerException e) {
+        } catch (IOException e) {
+        }
+    }
+}
@@ -17,6 +17,9 @@
 
 package io.github.msc42.masterthemaze;
 
+import io.github.msc42.maze.display.DisplayProtocol;
+import io.github.msc42.maze.input.MoveRingBuffer;
+
 /**
  * Represents important constants of the Master the maze app.
  *
@@ -27,16 +30,38 @@ final class Constants {
     // 0 <= MAX_FRAMES_PER_SECOND_GAME, emulator has problems with more than 12 FPS
     protected static final int MAX_FRAMES_PER_SECOND_GAME = 12;
 
-    protected static final float ADD_CURRENT_DIRECTION_TO_QUEUE_FIRST_TIME_FACTOR = 2;
+    // 1 <= MAX_CATCH_UP_TICKS, steps, which are done at once after the game thread missed deadlines
+    protected static final int MAX_CATCH_UP_TICKS = 3;
+
+    // 0 <= MOVE_REPEAT_FIRST_DELAY_FACTOR, the first repetition of a move comes after this factor times the interval
+    protected static final float MOVE_REPEAT_FIRST_DELAY_FACTOR = 2;
+    // 0 <= MIN_MOVE_REPEAT_INTERVAL, faster repetitions would only fill the motion queue
+    protected static final int MIN_MOVE_REPEAT_INTERVAL = 1000 / MAX_FRAMES_PER_SECOND_GAME;
 
     protected static final int MOTION_QUEUE_SIZE = 5; // 1 <= MOTION_QUEUE_SIZE
+    // a move, which is offered to the full motion queue, is discarded
+    protected static final MoveRingBuffer.OverflowPolicy MOTION_QUEUE_OVERFLOW_POLICY =
+            MoveRingBuffer.OverflowPolicy.DROP_NEWEST;
     protected static final int RFCOMM_PORT = 16; // 1 <= RFCOMM_PORT <= 30 == BluetoothSocket.MAX_RFCOMM_CHANNEL
-    protected static final int WAIT_TIME_AFTER_CONNECT = 1000; // 0 <= WAIT_TIME_AFTER_CONNECT
-    protected static final int GAME_THREAD_PAUSE_SLEEPTIME = 1500; // 0 <= GAME_THREAD_PAUSE_SLEEPTIME
-    protected static final int TIME_BETWEEN_RECONNECTING_ATTEMPTS = 2000; // 0 <= TIME_BETWEEN_RECONNECTING_ATTEMPTS
-
-    // 0 <= ADD_CURRENT_DIRECTION_TO_QUEUE_WAIT_SLEEPTIME
-    protected static final int ADD_CURRENT_DIRECTION_TO_QUEUE_WAIT_SLEEPTIME = 20;
+    // the handshake is sent immediately after connecting, if the display does not respond within
+    // DISPLAY_READY_TIMEOUT, it is connected again and gets WAIT_TIME_AFTER_CONNECT before the handshake
+    // (this is remembered per display)
+    protected static final int DISPLAY_READY_TIMEOUT = 300; // 0 < DISPLAY_READY_TIMEOUT, in milliseconds
+    protected static final int WAIT_TIME_AFTER_CONNECT = 1000; // 0 < WAIT_TIME_AFTER_CONNECT
+    // a connection, which was established in advance in the main activity, is closed if no game uses it in time
+    protected static final long WARM_CONNECTION_TIMEOUT = 60000; // 0 < WARM_CONNECTION_TIMEOUT, in milliseconds
+    // in milliseconds, the protocol version and the time after connecting, which were probed, are used for this time,
+    // then the display is probed again with the highest version and without waiting (e.g. after a firmware update)
+    protected static final long DISPLAY_CAPABILITIES_MAX_AGE = 24 * 60 * 60000L; // 0 < DISPLAY_CAPABILITIES_MAX_AGE
+    // during a pause the last frame is sent in this interval, so that the connection stays open
+    protected static final long PAUSE_HEARTBEAT_INTERVAL = 1000; // 0 < PAUSE_HEARTBEAT_INTERVAL, in milliseconds
+    // a longer pause closes the connection, 0 means that every pause closes it
+    protected static final long PAUSE_IDLE_TIMEOUT = 5 * 60000; // 0 <= PAUSE_IDLE_TIMEOUT, in milliseconds
+    // the delay before the second attempt to reconnect (the first one is immediately), it doubles up to the maximum
+    protected static final long RECONNECT_INITIAL_DELAY = 250; // 0 < RECONNECT_INITIAL_DELAY
+    protected static final long RECONNECT_MAX_DELAY = 8000; // RECONNECT_INITIAL_DELAY <= RECONNECT_MAX_DELAY
+    // the maximal part of a delay, which is removed randomly
+    protected static final double RECONNECT_JITTER = 0.5; // 0 <= RECONNECT_JITTER <= 1
 
     protected static final int DEFAULT_DIFFICULTY = 4; // DEFAULT_DIFFICULTY < MainActivity.difficulties.length
     protected static final boolean DEFAULT_MOTION = true;
@@ -46,12 +71,36 @@ final class Constants {
     protected static final int MAX_SENSITIVITY = 4; // MIN_SENSITIVITY <= MAX_SENSITIVITY
     protected static final int SENSITIVITY_MULTIPLICATOR = 4; // 0 < SENSITIVITY_MULTIPLICATOR
 
+    // a tilt direction is entered above the sensitivity and left below TILT_EXIT_THRESHOLD_FACTOR * sensitivity
+    protected static final float TILT_EXIT_THRESHOLD_FACTOR = 0.67f; // 0 < TILT_EXIT_THRESHOLD_FACTOR <= 1
+    protected static final float TILT_DEAD_ZONE = 0.5f; // 0 <= TILT_DEAD_ZONE < MIN_SENSITIVITY, in m/s^2
+    // weight of a new acceleration value in the low-pass filter, 1 means no filter
+    protected static final float TILT_FILTER_SMOOTHING = 0.5f; // 0 < TILT_FILTER_SMOOTHING <= 1
+    // a longer time between a sensor event and its delivery means that the timestamp has another time base
+    protected static final long MAX_PLAUSIBLE_SENSOR_LATENCY_NANOS = 1000000000L;
+
+    // 0 <= METRICS_CSV_INTERVAL, in milliseconds, 0 means that no snapshots of the metrics are written
+    protected static final long METRICS_CSV_INTERVAL = 5000;
+    // in the files directory of the app, a new file is started for every game
+    protected static final String METRICS_CSV_FILE_NAME = "metrics.csv";
+
+    // 0 <= LEVEL_CACHE_BYTES, budget of the read levels, which are kept for the next games of the process
+    protected static final long LEVEL_CACHE_BYTES = 256 * 1024;
+
     // MIN_SENSITIVITY <= DEFAULT_SENSOR_SENSITIVITY <= MAX_SENSITIVITY
     protected static final float DEFAULT_SENSOR_SENSITIVITY = 3;
 
     protected static final int MILLISECONDS_TO_REPEAT_DISCOVERY = 14000;
 
-    protected static final byte DISPLAY_PROTOCOL_VERSION = 1;
+    // the app falls back to DisplayProtocol.VERSION_1 if the display does not support this version
+    protected static final byte DISPLAY_PROTOCOL_VERSION = DisplayProtocol.VERSION_2;
+    // offered in the handshake, the display accepts a subset, a display with two or four shades
+    // accepts DisplayProtocol.FRAME_MODE_PACKED_1BPP respectively DisplayProtocol.FRAME_MODE_PACKED_2BPP
+    protected static final int DISPLAY_FRAME_MODES = DisplayProtocol.FRAME_MODE_DELTA
+            | DisplayProtocol.FRAME_MODE_RLE | DisplayProtocol.FRAME_MODE_LZ
+            | DisplayProtocol.FRAME_MODE_PACKED_2BPP | DisplayProtocol.FRAME_MODE_PACKED_1BPP;
+    // 0 <= DISPLAY_KEY_FRAME_INTERVAL, number of frames, 0 means only after (re)connecting
+    protected static final int DISPLAY_KEY_FRAME_INTERVAL = 5 * MAX_FRAMES_PER_SECOND_GAME;
     protected static final byte DISPLAY_COLOR_MODE_RED = 0;
     protected static final byte DISPLAY_COLOR_MODE_GREEN = 1;
     protected static final byte DISPLAY_COLOR_MODE_BLUE = 2;
@@ -76,6 +125,8 @@ final class Constants {
     protected static final String PREFS_DIFFICULTY = "difficulty";
     protected static final String PREFS_SPEED = "speed";
     protected static final String PREFS_SENSITIVITY = "sensitivity";
+    // followed by the Bluetooth address of the display
+    protected static final String PREFS_DISPLAY_CAPABILITIES = "displayCapabilities.";
 
     protected static final int REQUEST_COARSE_LOCATION_PERMISSIONS = 1;
     protected static final int REQUEST_READING_EXTERNAL_STORAGE_PERMISSIONS = 2;
@@ -27,24 +27,30 @@ import io.github.msc42.maze.Game;
 final class CurrentMoveDirection {
 
     private int mCurrentMoveDirection = Game.NO_MOVE;
-    private long mTimeLastMoveDirectionChange = System.currentTimeMillis();
+    private long mTimestamp = 0;
 
 
     protected CurrentMoveDirection() {
-        mTimeLastMoveDirectionChange = System.currentTimeMillis();
     }
 
     protected int getCurrentMoveDirection() {
         return mCurrentMoveDirection;
     }
 
-    protected long getTimeLastMoveDirectionChange() {
-        return mTimeLastMoveDirectionChange;
+    /**
+     * @return The time (System.nanoTime()) of the last change of the move direction.
+     */
+    protected long getTimestamp() {
+        return mTimestamp;
     }
 
     protected void setCurrentMoveDirection(int currentMoveDirection) {
+        setCurrentMoveDirection(currentMoveDirection, System.nanoTime());
+    }
+
+    protected void setCurrentMoveDirection(int currentMoveDirection, long timestamp) {
         this.mCurrentMoveDirection = currentMoveDirection;
-        mTimeLastMoveDirectionChange = System.currentTimeMillis();
+        this.mTimestamp = timestamp;
     }
 
 }
\ No newline at end of file
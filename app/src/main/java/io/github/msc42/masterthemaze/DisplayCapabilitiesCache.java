@@ -0,0 +1,57 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.masterthemaze;
+
+import android.content.SharedPreferences;
+
+import io.github.msc42.maze.display.DisplayCapabilities;
+
+/**
+ * Represents the capabilities of the displays, to which the app connected, per Bluetooth address.
+ * They are stored in the preferences of the app, so that they survive a restart of the app.
+ *
+ * @author Stefan Constantin
+ */
+final class DisplayCapabilitiesCache {
+
+    private SharedPreferences mSettings;
+
+
+    protected DisplayCapabilitiesCache(SharedPreferences settings) {
+        this.mSettings = settings;
+    }
+
+    /**
+     * @param address The Bluetooth address of the display.
+     * @return The capabilities of the last accepted handshake or null if the display is unknown
+     * or its capabilities are older than Constants.DISPLAY_CAPABILITIES_MAX_AGE (it is probed again).
+     */
+    protected DisplayCapabilities get(String address) {
+        DisplayCapabilities capabilities = DisplayCapabilities.decode(
+                mSettings.getString(Constants.PREFS_DISPLAY_CAPABILITIES + address, null));
+        if (capabilities == null
+                || capabilities.isExpired(System.currentTimeMillis(), Constants.DISPLAY_CAPABILITIES_MAX_AGE)) {
+            return null;
+        }
+        return capabilities;
+    }
+
+    protected void put(String address, DisplayCapabilities capabilities) {
+        mSettings.edit().putString(Constants.PREFS_DISPLAY_CAPABILITIES + address, capabilities.encode()).apply();
+    }
+}
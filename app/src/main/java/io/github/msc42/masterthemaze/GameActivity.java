@@ -33,6 +33,7 @@ import android.os.HandlerThread;
 import android.os.Looper;
 import android.os.Message;
 import android.os.Process;
+import android.util.Log;
 import android.support.v4.app.ActivityCompat;
 import android.support.v4.content.ContextCompat;
 import android.view.View;
@@ -41,12 +42,26 @@ import android.view.WindowManager;
 import android.widget.Button;
 import android.widget.TextView;
 
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import io.github.msc42.maze.Game;
 import io.github.msc42.maze.InvalidLevelException;
+import io.github.msc42.maze.LevelCache;
+import io.github.msc42.maze.display.DisplayCapabilities;
+import io.github.msc42.maze.input.MoveRingBuffer;
+import io.github.msc42.maze.metrics.Gauge;
+import io.github.msc42.maze.metrics.InputLatencyMetrics;
+import io.github.msc42.maze.metrics.MetricsCsvWriter;
+import io.github.msc42.maze.metrics.MetricsRegistry;
 
 /**
  * Represents the activity during playing the game.
@@ -56,6 +71,11 @@ import io.github.msc42.maze.InvalidLevelException;
  */
 public final class GameActivity extends Activity {
 
+    private static final String TAG = "GameActivity";
+
+    // shared by all games of the process, so a new game does not read the levels again
+    private static final LevelCache LEVEL_CACHE = new LevelCache(Constants.LEVEL_CACHE_BYTES);
+
     private Intent mIntent;
     private boolean mMotion;
     private int mSpeed;
@@ -63,16 +83,27 @@ public final class GameActivity extends Activity {
     private int mRotation;
 
     private Game mGame;
-    private ArrayBlockingQueue<Integer> mMotionQueue = new ArrayBlockingQueue<Integer>(Constants.MOTION_QUEUE_SIZE);
+    // reads the next level while the current level is played
+    private ExecutorService mLevelPrefetchExecutor;
+    // the moves are offered either by the touch buttons (UI thread) or by the AccelerometerEventListener and the
+    // MoveRepeatScheduler (both on mSensorHandlerThread), so there is only one producer
+    private MoveRingBuffer mMotionQueue = new MoveRingBuffer(Constants.MOTION_QUEUE_SIZE,
+            Constants.MOTION_QUEUE_OVERFLOW_POLICY);
     private final CurrentMoveDirection mCurrentMoveDirection = new CurrentMoveDirection();
+    // adb shell dumpsys activity io.github.msc42.masterthemaze/.GameActivity prints the metrics
+    private final MetricsRegistry mMetricsRegistry = new MetricsRegistry();
+    private final InputLatencyMetrics mInputLatencyMetrics = new InputLatencyMetrics(mMetricsRegistry);
 
     private Handler mGameThreadMessageHandler;
 
     private GameThread mGameThread;
-    private AddCurrentDirectionToQueueThread mAddCurrentDirectionToQueueThread;
+    private MoveRepeatScheduler mMoveRepeatScheduler;
     private HandlerThread mSensorHandlerThread;
     private Handler mSensorHandler;
     private AccelerometerEventListener mAccelerometerEventListener;
+    private HandlerThread mMetricsHandlerThread;
+    private Handler mMetricsHandler;
+    private MetricsSnapshotScheduler mMetricsSnapshotScheduler;
 
     private String mBluetoothDeviceName;
     private String mBluetoothAddress;
@@ -100,9 +131,18 @@ public final class GameActivity extends Activity {
 
         mIntent = getIntent();
 
+        registerLevelCacheMetrics();
+
         initScreen();
         getScreenElements();
 
+        // onResume registers the sensor listener, also if the game is started later (after a permission request)
+        if (mMotion) {
+            mSensorHandlerThread = new HandlerThread("SensorHandlerThread", Process.THREAD_PRIORITY_URGENT_DISPLAY);
+            mSensorHandlerThread.start();
+            mSensorHandler = new Handler(mSensorHandlerThread.getLooper());
+        }
+
         if (checkIfValidAddress()) {
             if (checkIfSensorForMotionControlIsAvailableAndInitMotionControlParameter()) {
                 initBluetoothAndStartGame();
@@ -243,8 +283,20 @@ public final class GameActivity extends Activity {
 
     private boolean initGame() {
         int difficulty = mIntent.getIntExtra(Constants.EXTRA_MESSAGE_DIFFICULTY, Constants.DEFAULT_DIFFICULTY);
+        mLevelPrefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, "LevelPrefetchThread");
+            }
+        });
         try {
-            mGame = new Game(getAssets(), difficulty);
+            mGame = new Game(new AndroidLevelSource(getAssets()), difficulty, mLevelPrefetchExecutor, LEVEL_CACHE);
         } catch (InvalidLevelException e) {
             showInvalidLevelDialog(e.getMessage());
             return false;
@@ -341,15 +393,83 @@ public final class GameActivity extends Activity {
             }
         };
 
-        mGameThread = new GameThread(mGame, mMotionQueue, mBluetoothDevice, mGameThreadMessageHandler);
+        DisplayCapabilitiesCache capabilitiesCache = new DisplayCapabilitiesCache(
+                getSharedPreferences(Constants.PREFS_NAME, MODE_PRIVATE));
+        // a display, which accepted only a lower protocol version, is not asked for the higher version again
+        DisplayCapabilities capabilities = capabilitiesCache.get(mBluetoothAddress);
+        byte protocolVersion = capabilities == null ? Constants.DISPLAY_PROTOCOL_VERSION
+                : (byte) Math.min(capabilities.getProtocolVersion(), Constants.DISPLAY_PROTOCOL_VERSION);
+
+        mGameThread = new GameThread(mGame, mMotionQueue, mMetricsRegistry, mInputLatencyMetrics,
+                BluetoothDisplayTransport.obtain(mBluetoothDevice, capabilitiesCache), protocolVersion,
+                mGameThreadMessageHandler);
         mGameThread.start();
 
-        if (mMotion) {
-            mSensorHandlerThread = new HandlerThread("SensorHandlerThread", Process.THREAD_PRIORITY_URGENT_DISPLAY);
-            mSensorHandlerThread.start();
-            mSensorHandler = new Handler(mSensorHandlerThread.getLooper());
-            mAccelerometerEventListener = new AccelerometerEventListener(mRotation, mSensitivity, mCurrentMoveDirection, mMotionQueue);
+        if (Constants.METRICS_CSV_INTERVAL > 0) {
+            startMetricsSnapshots();
+        }
+    }
+
+    private void registerLevelCacheMetrics() {
+        mMetricsRegistry.gauge("levelCache.hits", new Gauge() {
+            @Override
+            public long getValue() {
+                return LEVEL_CACHE.getHits();
+            }
+        });
+        mMetricsRegistry.gauge("levelCache.misses", new Gauge() {
+            @Override
+            public long getValue() {
+                return LEVEL_CACHE.getMisses();
+            }
+        });
+        mMetricsRegistry.gauge("levelCache.evictions", new Gauge() {
+            @Override
+            public long getValue() {
+                return LEVEL_CACHE.getEvictions();
+            }
+        });
+        mMetricsRegistry.gauge("levelCache.bytes", new Gauge() {
+            @Override
+            public long getValue() {
+                return LEVEL_CACHE.getBytes();
+            }
+        });
+    }
+
+    private void startMetricsSnapshots() {
+        File file = new File(getFilesDir(), Constants.METRICS_CSV_FILE_NAME);
+        try {
+            MetricsCsvWriter metricsCsvWriter = new MetricsCsvWriter(mMetricsRegistry,
+                    new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+            mMetricsHandlerThread = new HandlerThread("MetricsHandlerThread", Process.THREAD_PRIORITY_BACKGROUND);
+            mMetricsHandlerThread.start();
+            mMetricsHandler = new Handler(mMetricsHandlerThread.getLooper());
+            mMetricsSnapshotScheduler = new MetricsSnapshotScheduler(mMetricsHandler, metricsCsvWriter,
+                    Constants.METRICS_CSV_INTERVAL);
+            mMetricsSnapshotScheduler.start();
+        } catch (IOException e) {
+            // the metrics are only diagnostics, so the game is played without snapshots
+            Log.w(TAG, "cannot open " + file, e);
+        }
+    }
+
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+
+        writer.print(prefix);
+        writer.println("metrics:");
+        try {
+            mMetricsRegistry.dump(writer);
+            writer.println();
+            writer.print(prefix);
+            writer.println("input latency in ms:");
+            mInputLatencyMetrics.dump(writer);
+        } catch (IOException e) {
+            // a PrintWriter does not throw IOExceptions
         }
+        writer.flush();
     }
 
     private void showBluetoothEstablishedConnectionScreen() {
@@ -490,16 +610,14 @@ public final class GameActivity extends Activity {
         }
 
         if (mMotion) {
-            if (mSpeed > 0) {
-                mAddCurrentDirectionToQueueThread = new AddCurrentDirectionToQueueThread(
-                        mMotionQueue, mCurrentMoveDirection, mSpeed);
-                mAddCurrentDirectionToQueueThread.start();
-            }
+            // the current move direction is detected again, so that the scheduler is armed again
+            mCurrentMoveDirection.setCurrentMoveDirection(Game.NO_MOVE);
+            mMoveRepeatScheduler = new MoveRepeatScheduler(mSensorHandler, mMotionQueue, mSpeed, mSensitivity);
 
             SensorManager sensorManager = (SensorManager) getSystemService(SENSOR_SERVICE);
             Sensor accelerometer = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
             mAccelerometerEventListener = new AccelerometerEventListener(mRotation, mSensitivity,
-                    mCurrentMoveDirection, mMotionQueue);
+                    mCurrentMoveDirection, mMotionQueue, mMoveRepeatScheduler, mInputLatencyMetrics);
 
             sensorManager.registerListener(mAccelerometerEventListener, accelerometer,
                     SensorManager.SENSOR_DELAY_GAME, mSensorHandler);
@@ -520,12 +638,15 @@ public final class GameActivity extends Activity {
     protected void onPause() {
         super.onPause();
 
+        // adb logcat -s GameActivity shows the latencies from the inputs to the display
+        Log.i(TAG, "input latency in ms:\n" + mInputLatencyMetrics);
+
         if (mGameThread != null) {
             mGameThread.pause();
         }
 
-        if (mAddCurrentDirectionToQueueThread != null) {
-            mAddCurrentDirectionToQueueThread.terminate();
+        if (mMoveRepeatScheduler != null) {
+            mMoveRepeatScheduler.stop();
         }
 
         if (mMotion) {
@@ -575,14 +696,32 @@ public final class GameActivity extends Activity {
             mSensorHandlerThread.quit();
         }
 
-        if (mAddCurrentDirectionToQueueThread != null) {
-            mAddCurrentDirectionToQueueThread.terminate();
+        if (mMoveRepeatScheduler != null) {
+            mMoveRepeatScheduler.stop();
         }
 
         if (mGameThread != null) {
             mGameThread.terminate();
         }
 
+        if (mLevelPrefetchExecutor != null) {
+            mLevelPrefetchExecutor.shutdownNow();
+        }
+
+        if (mMetricsSnapshotScheduler != null) {
+            mMetricsSnapshotScheduler.stop();
+        }
+
+        // the thread quits after the last snapshot was written and the file was closed (the messages are in order)
+        if (mMetricsHandlerThread != null) {
+            mMetricsHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mMetricsHandlerThread.quit();
+                }
+            });
+        }
+
         super.onDestroy();
     }
 
@@ -660,35 +799,19 @@ public final class GameActivity extends Activity {
     }
 
     public void clickUpButton(View v) {
-        try {
-            mMotionQueue.add(Game.UP);
-        } catch (IllegalStateException e) {
-            // if queue is full, move is discarded
-        }
+        mMotionQueue.offer(Game.UP);
     }
 
     public void clickRightButton(View v) {
-        try {
-            mMotionQueue.add(Game.RIGHT);
-        } catch (IllegalStateException e) {
-            // if queue is full, move is discarded
-        }
+        mMotionQueue.offer(Game.RIGHT);
     }
 
     public void clickDownButton(View v) {
-        try {
-            mMotionQueue.add(Game.DOWN);
-        } catch (IllegalStateException e) {
-            // if queue is full, move is discarded
-        }
+        mMotionQueue.offer(Game.DOWN);
     }
 
     public void clickLeftButton(View v) {
-        try {
-            mMotionQueue.add(Game.LEFT);
-        } catch (IllegalStateException e) {
-            // if queue is full, move is discarded
-        }
+        mMotionQueue.offer(Game.LEFT);
     }
 
     @Override
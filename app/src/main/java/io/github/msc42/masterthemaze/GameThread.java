@@ -17,80 +17,248 @@
 
 package io.github.msc42.masterthemaze;
 
-import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothDevice;
-import android.bluetooth.BluetoothSocket;
 import android.os.Handler;
 import android.os.Message;
-import android.os.ParcelUuid;
 import android.os.Process;
+import android.util.Log;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.NoSuchElementException;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Arrays;
+import java.util.Random;
 
 import io.github.msc42.maze.Game;
 import io.github.msc42.maze.GameConstants;
 import io.github.msc42.maze.InvalidLevelException;
+import io.github.msc42.maze.display.DisplayHandshake;
+import io.github.msc42.maze.display.DisplayProtocol;
+import io.github.msc42.maze.display.DisplayTransport;
+import io.github.msc42.maze.display.FrameEncoder;
+import io.github.msc42.maze.display.FrameEncoders;
+import io.github.msc42.maze.display.TripleFrameBuffer;
+import io.github.msc42.maze.input.MoveRingBuffer;
+import io.github.msc42.maze.metrics.Counter;
+import io.github.msc42.maze.metrics.Gauge;
+import io.github.msc42.maze.metrics.InputLatencyMetrics;
+import io.github.msc42.maze.metrics.LatencyHistogram;
+import io.github.msc42.maze.metrics.MetricsRegistry;
+import io.github.msc42.maze.timing.Clock;
+import io.github.msc42.maze.timing.ExponentialBackoff;
+import io.github.msc42.maze.timing.FixedTimestepScheduler;
 
 /**
  * Represents the thread, which controls the game.
- * It connects to the Bluetooth LED display.
+ * It connects to the LED display through a DisplayTransport (Bluetooth in the app).
  * It removes the oldest inserted move from the mMoveQueue, does a step in the game with this move
  * and sends the new game state to the connected Bluetooth display.
+ * The steps are paced by a fixed timestep scheduler with absolute deadlines, missed ticks are caught up
+ * (at most Constants.MAX_CATCH_UP_TICKS at once, the others are skipped).
+ * If the display supports protocol version 2, only the changes of the game state are sent
+ * and the frames are compressed.
+ * The frames are sent by a separate sender thread, so that a slow write does not stall the game.
+ * The game publishes every frame in a triple buffer, the sender always sends the newest frame and drops
+ * older frames, which it could not send in time.
+ * If the connection is lost, a reconnect thread establishes it again with an exponential backoff,
+ * the game goes on meanwhile and its frames are dropped. After the reconnection the encoder starts
+ * with a key frame, so the display is resynchronized with the newest frame.
+ * During a pause the connection is kept open, the last frame is sent as heartbeat in a low rate,
+ * so that the game continues without reconnecting. The connection is closed not until the pause
+ * is longer than Constants.PAUSE_IDLE_TIMEOUT.
  *
  * @author Stefan Constantin
  */
 final class GameThread extends Thread {
 
-    private boolean mRunning = true;
-    private boolean mPause = false;
-    private boolean mStopReconnecting = false;
-    private boolean mFirstAttemptToReconnect = true;
-
-    private BluetoothSocket mBluetoothSocket;
-    private OutputStream mOutputStream;
-
-    private int mMaxFramesPerSecond;
+    private static final String TAG = "GameThread";
+    private static final long NANOSECONDS_PER_SECOND = 1000000000L;
+
+    private volatile boolean mRunning = true;
+    private volatile boolean mPause = false;
+    private volatile boolean mStopReconnecting = false;
+    // the paused threads wait on it, restart() wakes them up immediately
+    private final Object mPauseLock = new Object();
+    // the time of the last restart(), 0 if the first frame after it is sent
+    private volatile long mRestartTime = 0;
+
+    // guards the hand-over of the connection between the sender thread and the reconnect thread,
+    // the connection is used by the sender thread if it is up, otherwise by the reconnect thread
+    private final Object mLinkLock = new Object();
+    private boolean mLinkUp = false;
+    // true from the request of the sender until the connection is up again
+    private boolean mReconnectRequested = false;
+    // the start of the current outage, 0 if the connection is not lost
+    private volatile long mOutageStart = 0;
+    private volatile long mOutageNanos = 0;
+    private ExponentialBackoff mBackoff = new ExponentialBackoff(Constants.RECONNECT_INITIAL_DELAY,
+            Constants.RECONNECT_MAX_DELAY, Constants.RECONNECT_JITTER, new Random());
+
+    private DisplayTransport mTransport;
+
+    // written by the handshake of each connection, the game thread adapts the period of the ticks
+    private volatile int mMaxFramesPerSecond;
+    private volatile FixedTimestepScheduler mScheduler;
+    private byte mProtocolVersion;
+    private FrameEncoder mFrameEncoder;
+
+    private TripleFrameBuffer mFrameBuffer = new TripleFrameBuffer(GameConstants.WIDTH * GameConstants.HEIGHT);
+    // owned by the sender, the LED matrix of the game may still be written by the game thread at the end
+    private byte[] mClearedLedMatrix = new byte[GameConstants.WIDTH * GameConstants.HEIGHT];
+    private SenderThread mSenderThread;
+    private ReconnectThread mReconnectThread;
 
     private Game mGame;
-    private ArrayBlockingQueue<Integer> mMoveQueue;
-    private BluetoothDevice mBluetoothDevice;
+    private MoveRingBuffer mMoveQueue;
+    private InputLatencyMetrics mInputLatencyMetrics;
+    // the offer time of the oldest move of the current tick, 0 if the tick has no move
+    private long mTickInputTimestamp;
+    // the input time of the frame, which is sent, 0 if it has no input or its latency was recorded
+    private long mSendingInputTimestamp;
+    // the frame, which was taken last, it is sent as heartbeat during a pause
+    private byte[] mLastFrame;
+
+    private LatencyHistogram mFrameBytes;
+    private LatencyHistogram mMoveQueueDepth;
+    private Counter mReconnects;
+    private Counter mReconnectingAttempts;
+    private LatencyHistogram mReconnectingDuration;
+    private Counter mHeartbeats;
+    private LatencyHistogram mResumeLatency;
     private Handler mHandler;
 
 
-    protected GameThread(Game game, ArrayBlockingQueue<Integer> moveQueue,
-                         BluetoothDevice bluetoothDevice, Handler handler) {
+    protected GameThread(Game game, MoveRingBuffer moveQueue, MetricsRegistry metricsRegistry,
+                         InputLatencyMetrics inputLatencyMetrics, DisplayTransport transport, byte protocolVersion,
+                         Handler handler) {
         this.mGame = game;
         this.mMoveQueue = moveQueue;
-        this.mBluetoothDevice = bluetoothDevice;
+        this.mInputLatencyMetrics = inputLatencyMetrics;
+        this.mTransport = transport;
+        this.mProtocolVersion = protocolVersion;
         this.mHandler = handler;
+        registerMetrics(metricsRegistry);
+    }
+
+    private void registerMetrics(MetricsRegistry metricsRegistry) {
+        mFrameBytes = metricsRegistry.histogram("frame.bytes");
+        metricsRegistry.gauge("frames.published", new Gauge() {
+            @Override
+            public long getValue() {
+                return mFrameBuffer.getPublishedFrames();
+            }
+        });
+        metricsRegistry.gauge("frames.dropped", new Gauge() {
+            @Override
+            public long getValue() {
+                return mFrameBuffer.getDroppedFrames();
+            }
+        });
+        metricsRegistry.gauge("ticks.missedDeadlines", new Gauge() {
+            @Override
+            public long getValue() {
+                FixedTimestepScheduler scheduler = mScheduler;
+                return scheduler == null ? 0 : scheduler.getMissedDeadlines();
+            }
+        });
+        metricsRegistry.gauge("ticks.skipped", new Gauge() {
+            @Override
+            public long getValue() {
+                FixedTimestepScheduler scheduler = mScheduler;
+                return scheduler == null ? 0 : scheduler.getSkippedTicks();
+            }
+        });
+        mMoveQueueDepth = metricsRegistry.histogram("moveQueue.depth");
+        metricsRegistry.gauge("moveQueue.overflows", new Gauge() {
+            @Override
+            public long getValue() {
+                return mMoveQueue.getDroppedMoves();
+            }
+        });
+        metricsRegistry.gauge("level.transitions", new Gauge() {
+            @Override
+            public long getValue() {
+                return mGame.getLevelTransitions();
+            }
+        });
+        // a transition is late if the next level was not prefetched in time, then the tick is a hitch
+        metricsRegistry.gauge("level.lateTransitions", new Gauge() {
+            @Override
+            public long getValue() {
+                return mGame.getLateLevelTransitions();
+            }
+        });
+        metricsRegistry.gauge("level.transitionWaitMicros", new Gauge() {
+            @Override
+            public long getValue() {
+                return mGame.getLevelTransitionWaitNanos() / 1000;
+            }
+        });
+        mReconnects = metricsRegistry.counter("reconnect.count");
+        mReconnectingAttempts = metricsRegistry.counter("reconnect.attempts");
+        mReconnectingDuration = metricsRegistry.durationHistogram("reconnect.duration");
+        metricsRegistry.gauge("link.down", new Gauge() {
+            @Override
+            public long getValue() {
+                return mOutageStart == 0 ? 0 : 1;
+            }
+        });
+        // the total time without connection, including the current outage
+        metricsRegistry.gauge("link.outageMillis", new Gauge() {
+            @Override
+            public long getValue() {
+                long outageStart = mOutageStart;
+                long outageNanos = mOutageNanos + (outageStart == 0 ? 0 : System.nanoTime() - outageStart);
+                return outageNanos / 1000000;
+            }
+        });
+        mHeartbeats = metricsRegistry.counter("pause.heartbeats");
+        // from restart() until the first frame is sent
+        mResumeLatency = metricsRegistry.durationHistogram("pause.resumeLatency");
     }
 
     protected void pause() {
         mPause = true;
+        // the sender waits for a frame, but the game does not publish frames during the pause
+        SenderThread senderThread = mSenderThread;
+        if (senderThread != null) {
+            senderThread.interrupt();
+        }
     }
 
     protected void restart() {
+        mRestartTime = System.nanoTime();
         mPause = false;
-        interrupt();
+        wakeUpPausedThreads();
+        interruptThreads();
     }
 
     protected void stopReconnecting() {
         mStopReconnecting = true;
-        interrupt();
+        interruptThreads();
     }
 
     protected void terminate() {
         mRunning = false;
         mPause = false;
         mStopReconnecting = true;
+        wakeUpPausedThreads();
+        interruptThreads();
+    }
+
+    private void wakeUpPausedThreads() {
+        synchronized (mPauseLock) {
+            mPauseLock.notifyAll();
+        }
+    }
+
+    private void interruptThreads() {
         interrupt();
+        SenderThread senderThread = mSenderThread;
+        if (senderThread != null) {
+            senderThread.interrupt();
+        }
+        ReconnectThread reconnectThread = mReconnectThread;
+        if (reconnectThread != null) {
+            reconnectThread.interrupt();
+        }
     }
 
     @Override
@@ -124,292 +292,493 @@ final class GameThread extends Thread {
             mRunning = false;
         }
 
-        long sleepTimeUntilNextFrameShouldBeSent = 1000 / mMaxFramesPerSecond;
+        mScheduler = new FixedTimestepScheduler(tickPeriodNanos(), Constants.MAX_CATCH_UP_TICKS, Clock.SYSTEM);
 
         mHandler.sendEmptyMessage(Constants.BT_ESTABLISHED_CONNECTION_MESSAGE);
 
         mMoveQueue.clear();
 
+        mLinkUp = mRunning;
+        mReconnectThread = new ReconnectThread();
+        mReconnectThread.start();
+        mSenderThread = new SenderThread();
+        mSenderThread.start();
+
+        mScheduler.reset();
         while (mRunning) {
             if (mPause) {
-                sleepTimeUntilNextFrameShouldBeSent = 0;
-                disconnectIfConnectedAndSleep();
+                awaitRestart(0);
+                mScheduler.reset();
                 continue;
             }
 
-            sleepUntilNextFrameShouldBeSent(sleepTimeUntilNextFrameShouldBeSent);
-
-            long timeStart = System.currentTimeMillis();
-
-            int move = getNextMove();
+            // a reconnection can accept another frame rate (e.g. after the fallback to protocol version 1)
+            long periodNanos = tickPeriodNanos();
+            if (periodNanos != mScheduler.getPeriodNanos()) {
+                mScheduler.setPeriodNanos(periodNanos);
+            }
 
-            byte[] ledMatrix;
-            try {
-                ledMatrix = mGame.doStep(move);
-            } catch (InvalidLevelException e) {
-                sendStringMessage(e.getMessage());
-                mRunning = false;
-                break;
-            } catch (IOException e) {
-                mHandler.sendEmptyMessage(Constants.IO_ERROR_MESSAGE);
-                mRunning = false;
-                break;
+            int ticks = mScheduler.awaitTicks();
+            if (ticks == 0 || !mRunning || mPause) {
+                continue;
             }
 
-            mStopReconnecting = false;
-            try {
-                if (!sendDataWithHandlers(ledMatrix)) {
-                    mRunning = false;
-                }
-            } catch (BluetoothDisabledException e) {
-                mHandler.sendEmptyMessage(Constants.DISABLED_BLUETOOTH_MESSAGE);
+            byte[] ledMatrix = doSteps(ticks);
+            if (ledMatrix == null) {
                 mRunning = false;
+                break;
             }
 
-            sleepTimeUntilNextFrameShouldBeSent = Math.max(0, System.currentTimeMillis() - timeStart);
+            mFrameBuffer.publish(ledMatrix, mTickInputTimestamp);
         }
 
-        clearLedAndCloseConnection();
-    }
-
-    private void disconnectIfConnectedAndSleep() {
-        if (mBluetoothSocket.isConnected()) {
-            closeConnection();
+        if (mScheduler.getMissedDeadlines() > 0) {
+            Log.i(TAG, "ticks: " + mScheduler.getTicks() + ", missed deadlines: " + mScheduler.getMissedDeadlines()
+                    + ", skipped ticks: " + mScheduler.getSkippedTicks());
         }
 
+        stopRunning();
+        mFrameBuffer.close();
         try {
-            Thread.sleep(Constants.GAME_THREAD_PAUSE_SLEEPTIME);
+            mSenderThread.join();
         } catch (InterruptedException e) {
         }
     }
 
-    private void sleepUntilNextFrameShouldBeSent(long duration) {
-        if (duration < 1000 / mMaxFramesPerSecond) {
+    /**
+     * Represents the thread, which sends the frames published by the game to the display.
+     * After the handshake only this thread uses the connection while it is up.
+     */
+    private final class SenderThread extends Thread {
+
+        @Override
+        public void run() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_DISPLAY);
+
+            while (mRunning) {
+                if (mPause) {
+                    keepAliveWhilePaused();
+                    continue;
+                }
+
+                if (!awaitLink()) {
+                    continue;
+                }
+
+                byte[] ledMatrix = mFrameBuffer.take();
+                if (ledMatrix == null) {
+                    continue;
+                }
+                mSendingInputTimestamp = mFrameBuffer.getTakenInputTimestamp();
+                mLastFrame = ledMatrix;
+
+                try {
+                    sendFrame(ledMatrix);
+                    recordResumeLatency();
+                } catch (BluetoothDisabledException e) {
+                    mHandler.sendEmptyMessage(Constants.DISABLED_BLUETOOTH_MESSAGE);
+                    mRunning = false;
+                } catch (IOException e) {
+                    // the frame is dropped, the first frame after the reconnection is a key frame
+                    loseLink();
+                }
+            }
+
+            mReconnectThread.interrupt();
             try {
-                Thread.sleep(1000 / mMaxFramesPerSecond - duration);
+                mReconnectThread.join();
             } catch (InterruptedException e) {
             }
+            clearLedAndCloseConnection();
         }
     }
 
-    private int getNextMove() {
-        try {
-            return mMoveQueue.remove();
-        } catch (NoSuchElementException e) {
-            return Game.NO_MOVE;
+    /**
+     * Represents the thread, which establishes the connection again, if the sender lost it
+     * or the game is continued after a pause. The first attempt is immediately, the next attempts
+     * wait with an exponential backoff (a pause or an abort by the player interrupts the waiting).
+     */
+    private final class ReconnectThread extends Thread {
+
+        @Override
+        public void run() {
+            while (awaitReconnectRequest()) {
+                mBackoff.reset();
+                while (mRunning) {
+                    if (mStopReconnecting) {
+                        mHandler.sendEmptyMessage(Constants.BT_IO_ERROR_MESSAGE);
+                        stopRunning();
+                    } else if (mPause) {
+                        awaitRestart(0);
+                    } else if (reconnect()) {
+                        break;
+                    } else {
+                        sleepBeforeNextAttempt();
+                    }
+                }
+            }
         }
     }
 
-    private void sendStringMessage(String stringToSend) {
-        Message msg = Message.obtain();
-        msg.what = Constants.INVALID_LEVEL_MESSAGE;
-        msg.obj = stringToSend;
-        msg.setTarget(mHandler);
-        msg.sendToTarget();
-    }
+    /**
+     * Waits until the reconnect thread established the connection.
+     *
+     * @return true if the connection is up, false if the thread was interrupted or the game is terminated.
+     */
+    private boolean awaitLink() {
+        synchronized (mLinkLock) {
+            if (!mLinkUp && !mReconnectRequested) {
+                // the connection was closed by a pause
+                requestReconnect();
+                mLinkLock.notifyAll();
+            }
 
-    private void openConnection() throws BluetoothDisabledException, IOException,
-            RfcommSocketNotSupportedException {
-        initBluetoothSocket();
+            while (!mLinkUp && mRunning) {
+                try {
+                    mLinkLock.wait();
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }
 
-        try {
-            BluetoothAdapter.getDefaultAdapter().cancelDiscovery();
-            mBluetoothSocket.connect();
-        } catch (NullPointerException e) {
-            throw new BluetoothDisabledException();
+            return mLinkUp;
         }
+    }
 
-        try {
-            Thread.sleep(Constants.WAIT_TIME_AFTER_CONNECT);
-        } catch (InterruptedException e) {
+    private void loseLink() {
+        synchronized (mLinkLock) {
+            mLinkUp = false;
+            if (!mReconnectRequested) {
+                requestReconnect();
+            }
+            beginOutage();
+            mLinkLock.notifyAll();
         }
+    }
 
-        try {
-            mOutputStream = mBluetoothSocket.getOutputStream();
-        } catch (NullPointerException e) {
-            throw new BluetoothDisabledException();
+    /**
+     * Requests a reconnection, the caller holds mLinkLock. A stop of the previous reconnection does not affect
+     * the new one, but a stop after this request is kept until the reconnect thread sees it.
+     */
+    private void requestReconnect() {
+        mStopReconnecting = false;
+        mReconnectRequested = true;
+    }
+
+    private void stopRunning() {
+        synchronized (mLinkLock) {
+            mRunning = false;
+            mLinkLock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until the sender requests a reconnection.
+     *
+     * @return true if the connection has to be established, false if the game is terminated.
+     */
+    private boolean awaitReconnectRequest() {
+        synchronized (mLinkLock) {
+            while (mRunning && !mReconnectRequested) {
+                try {
+                    mLinkLock.wait();
+                } catch (InterruptedException e) {
+                    // terminate() interrupts, the condition is checked again
+                }
+            }
+
+            return mRunning;
         }
     }
 
-    private void initBluetoothSocket() throws BluetoothDisabledException,
-            RfcommSocketNotSupportedException {
-        mBluetoothSocket = null;
+    /**
+     * Does an attempt to establish the connection.
+     *
+     * @return true if the attempt succeeded or the game can not be continued, false if it has to be repeated.
+     */
+    private boolean reconnect() {
+        mReconnectingAttempts.increment();
+        closeConnection();
         try {
-            // public BluetoothSocket createRfcommSocket(int channel) throws IOException in the class
-            // BluetoothDevice is hidden (annotation @hide)
-            // a workaround is to access the hidden function with the help of reflection
-            Method m = mBluetoothDevice.getClass().getMethod("createRfcommSocket", new Class[]{int.class});
-            mBluetoothSocket = (BluetoothSocket) m.invoke(mBluetoothDevice, Constants.RFCOMM_PORT);
-        } catch (NullPointerException e) {
-            throw new BluetoothDisabledException();
-        } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
-            try {
-                // public BluetoothSocket createRfcommSocket(int channel) throws IOException in the class
-                // BluetoothDevice returns
-                // new BluetoothSocket(BluetoothSocket.TYPE_RFCOMM, -1, true, true, this, channel, null);
-                // instead of createRfcommSocket(int channel) the Bluetooth socket can be directly instantiated
-                // however, the constructor is private
-                // a workaround is to access the private constructor with the help of reflection
-                Class[] constructorArgumentTypes = {int.class, int.class, boolean.class,
-                        boolean.class, BluetoothDevice.class, int.class, ParcelUuid.class};
-                Constructor<BluetoothSocket> constructor = (Constructor<BluetoothSocket>)
-                        BluetoothSocket.class.getDeclaredConstructor(constructorArgumentTypes);
-                constructor.setAccessible(true);
-                int typeRfcomm = 1;
-                // since Android API 23 the constant BluetoothSocket.TYPE_RFCOMM is public
-                mBluetoothSocket = constructor.newInstance(typeRfcomm, -1, true, true,
-                        mBluetoothDevice, Constants.RFCOMM_PORT, null);
-            } catch (NullPointerException e1) {
-                throw new BluetoothDisabledException();
-            } catch (IllegalAccessException | InstantiationException | InvocationTargetException
-                    | NoSuchMethodException | SecurityException e1) {
-                throw new RfcommSocketNotSupportedException();
+            openConnection();
+            if (!doHandshake()) {
+                mHandler.sendEmptyMessage(Constants.FAILED_HANDSHAKE_MESSAGE);
+                stopRunning();
+                return true;
+            }
+        } catch (BluetoothDisabledException e) {
+            mHandler.sendEmptyMessage(Constants.DISABLED_BLUETOOTH_MESSAGE);
+            stopRunning();
+            return true;
+        } catch (IOException e) {
+            closeConnection();
+            if (mOutageStart == 0) {
+                beginOutage();
             }
+            return false;
+        }
+
+        synchronized (mLinkLock) {
+            mLinkUp = true;
+            mReconnectRequested = false;
+            mLinkLock.notifyAll();
         }
+        endOutage();
+        return true;
     }
 
-    private boolean doHandshake() throws BluetoothDisabledException, IOException {
-        return sendHandshake() && receiveHandshakeResponse();
+    private void beginOutage() {
+        mOutageStart = System.nanoTime();
+        mReconnects.increment();
+        mHandler.sendEmptyMessage(Constants.BT_BEGIN_IO_ERROR_MESSAGE);
     }
 
-    private boolean sendHandshake() throws BluetoothDisabledException {
-        byte[] handshake = new byte[5 + Constants.DISPLAY_APP_NAME.length()];
-        handshake[0] = Constants.DISPLAY_PROTOCOL_VERSION;
-        handshake[1] = (byte) GameConstants.WIDTH;
-        handshake[2] = (byte) GameConstants.HEIGHT;
-        handshake[3] = Constants.DISPLAY_COLOR_MODE;
-        handshake[4] = (byte) Constants.DISPLAY_APP_NAME.length();
-        System.arraycopy(Constants.DISPLAY_APP_NAME.getBytes(), 0, handshake, 5, Constants.DISPLAY_APP_NAME.length());
+    private void endOutage() {
+        long outageStart = mOutageStart;
+        if (outageStart == 0) {
+            mHandler.sendEmptyMessage(Constants.BT_ESTABLISHED_CONNECTION_MESSAGE);
+            return;
+        }
 
-        return sendDataWithHandlers(handshake);
+        long outageNanos = System.nanoTime() - outageStart;
+        mOutageNanos += outageNanos;
+        mOutageStart = 0;
+        mReconnectingDuration.record(outageNanos);
+        mHandler.sendEmptyMessage(Constants.BT_END_IO_ERROR_MESSAGE);
     }
 
-    private boolean receiveHandshakeResponse() throws BluetoothDisabledException, IOException {
-        InputStream inputStream;
+    private void sleepBeforeNextAttempt() {
         try {
-            inputStream = mBluetoothSocket.getInputStream();
-        } catch (NullPointerException e) {
-            throw new BluetoothDisabledException();
+            Thread.sleep(mBackoff.nextDelayMillis());
+        } catch (InterruptedException e) {
         }
+    }
 
-        int handshakeResponse = inputStream.read();
-        int maxFramesPerSecondDisplay = inputStream.read();
-
-        if (handshakeResponse != 0) {
-            return false;
+    /**
+     * Waits until the game is continued or terminated.
+     *
+     * @param timeout The maximal time to wait in milliseconds, 0 means no limit.
+     */
+    private void awaitRestart(long timeout) {
+        synchronized (mPauseLock) {
+            if (mPause && mRunning) {
+                try {
+                    mPauseLock.wait(timeout);
+                } catch (InterruptedException e) {
+                }
+            }
         }
+    }
 
-        mMaxFramesPerSecond = Math.min(maxFramesPerSecondDisplay, Constants.MAX_FRAMES_PER_SECOND_GAME);
-
-        return true;
+    /**
+     * Sends heartbeats until the game is continued, the connection is closed if the pause is longer than
+     * Constants.PAUSE_IDLE_TIMEOUT.
+     */
+    private void keepAliveWhilePaused() {
+        long pauseStart = System.currentTimeMillis();
+        while (mPause && mRunning) {
+            long pauseDuration = System.currentTimeMillis() - pauseStart;
+            if (pauseDuration >= Constants.PAUSE_IDLE_TIMEOUT) {
+                disconnectIfConnected();
+                awaitRestart(0);
+            } else {
+                sendHeartbeat();
+                awaitRestart(Math.min(Constants.PAUSE_HEARTBEAT_INTERVAL,
+                        Constants.PAUSE_IDLE_TIMEOUT - pauseDuration));
+            }
+        }
     }
 
-    private boolean sendDataWithHandlers(byte[] data) throws BluetoothDisabledException {
-        if (!establishConnectionIfNecessary()) {
-            return attemptToSendDataAgain(data);
+    /**
+     * Sends the last frame completely (as key frame), so that the display and the connection stay alive.
+     */
+    private void sendHeartbeat() {
+        byte[] ledMatrix = mLastFrame;
+        if (ledMatrix == null || !isLinkUp()) {
+            return;
         }
 
         try {
-            if (data != null) {
-                mOutputStream.write(data);
+            mFrameEncoder.reset();
+            int length = mFrameEncoder.encode(ledMatrix);
+            if (length > 0) {
+                mTransport.write(mFrameEncoder.getFrame(), 0, length);
+                mHeartbeats.increment();
             }
-        } catch (NullPointerException e) {
-            throw new BluetoothDisabledException();
+        } catch (BluetoothDisabledException e) {
+            mHandler.sendEmptyMessage(Constants.DISABLED_BLUETOOTH_MESSAGE);
+            stopRunning();
         } catch (IOException e) {
-            return attemptToSendDataAgain(data);
+            loseLink();
         }
-
-        return true;
     }
 
-    private boolean establishConnectionIfNecessary() throws BluetoothDisabledException {
-        boolean isConnected;
-        try {
-            isConnected = mBluetoothSocket.isConnected();
-        } catch (NullPointerException e) {
-            throw new BluetoothDisabledException();
+    private boolean isLinkUp() {
+        synchronized (mLinkLock) {
+            return mLinkUp;
         }
+    }
 
-        if (!isConnected) {
-            try {
-                openConnection();
-            } catch (RfcommSocketNotSupportedException e) {
-                return false; //can not happen
-            } catch (IOException e) {
-                return false;
+    private void disconnectIfConnected() {
+        synchronized (mLinkLock) {
+            if (mLinkUp) {
+                mLinkUp = false;
+                closeConnection();
             }
+        }
+    }
+
+    private void recordResumeLatency() {
+        long restartTime = mRestartTime;
+        if (restartTime != 0) {
+            mResumeLatency.record(System.nanoTime() - restartTime);
+            mRestartTime = 0;
+        }
+    }
 
+    /**
+     * Does the due steps of the game, a late tick is caught up with a step for every missed tick.
+     *
+     * @param ticks The number of due ticks.
+     * @return The state of the game after the last step or null if the game can not be continued.
+     */
+    private byte[] doSteps(int ticks) {
+        long timeStart = System.nanoTime();
+        mTickInputTimestamp = 0;
+        mMoveQueueDepth.record(mMoveQueue.size());
+
+        byte[] ledMatrix = null;
+        for (int i = 0; i < ticks; i++) {
             try {
-                doHandshake();
+                ledMatrix = mGame.doStep(getNextMove());
+            } catch (InvalidLevelException e) {
+                sendStringMessage(e.getMessage());
+                return null;
             } catch (IOException e) {
-                return false;
+                mHandler.sendEmptyMessage(Constants.IO_ERROR_MESSAGE);
+                return null;
             }
-
-            mHandler.sendEmptyMessage(Constants.BT_ESTABLISHED_CONNECTION_MESSAGE);
         }
 
-        return true;
+        // late ticks are not logged here, the scheduler counts them (ticks.missedDeadlines, ticks.skipped)
+        mInputLatencyMetrics.record(InputLatencyMetrics.STAGE_TICK, System.nanoTime() - timeStart);
+        return ledMatrix;
     }
 
-    private boolean attemptToSendDataAgain(byte[] data) throws BluetoothDisabledException {
-        if (mStopReconnecting) {
-            mHandler.sendEmptyMessage(Constants.BT_IO_ERROR_MESSAGE);
-            return false;
+    private int getNextMove() {
+        int move = mMoveQueue.poll();
+        if (move == MoveRingBuffer.EMPTY) {
+            return Game.NO_MOVE;
         }
 
-        if (mFirstAttemptToReconnect) {
-            mHandler.sendEmptyMessage(Constants.BT_BEGIN_IO_ERROR_MESSAGE);
-            mFirstAttemptToReconnect = false;
+        long inputTimestamp = mMoveQueue.getLastPolledTimestamp();
+        mInputLatencyMetrics.record(InputLatencyMetrics.STAGE_QUEUE_WAIT, System.nanoTime() - inputTimestamp);
+        if (mTickInputTimestamp == 0) {
+            mTickInputTimestamp = inputTimestamp;
         }
+        return move;
+    }
 
-        closeConnection();
+    private void sendStringMessage(String stringToSend) {
+        Message msg = Message.obtain();
+        msg.what = Constants.INVALID_LEVEL_MESSAGE;
+        msg.obj = stringToSend;
+        msg.setTarget(mHandler);
+        msg.sendToTarget();
+    }
 
-        try {
-            Thread.sleep(Constants.TIME_BETWEEN_RECONNECTING_ATTEMPTS);
-        } catch (InterruptedException e) {
-        }
+    private void openConnection() throws IOException {
+        mTransport.connect();
+    }
 
+    private long tickPeriodNanos() {
+        return NANOSECONDS_PER_SECOND / Math.max(1, mMaxFramesPerSecond);
+    }
 
-        if (sendDataWithHandlers(data)) {
-            mHandler.sendEmptyMessage(Constants.BT_END_IO_ERROR_MESSAGE);
-            mFirstAttemptToReconnect = true;
+    private boolean doHandshake() throws IOException {
+        if (sendHandshake()) {
             return true;
         }
 
+        if (mProtocolVersion > DisplayProtocol.VERSION_1) {
+            // the display does not support the protocol version, the connection is established again with version 1
+            mProtocolVersion = DisplayProtocol.VERSION_1;
+            closeConnection();
+            openConnection();
+            return sendHandshake();
+        }
+
         return false;
     }
 
-    private void clearLedAndCloseConnection() {
-        try {
-            Thread.sleep(1000 / mMaxFramesPerSecond);
-        } catch (InterruptedException e) {
+    private boolean sendHandshake() throws IOException {
+        DisplayHandshake handshake = new DisplayHandshake(mProtocolVersion, GameConstants.WIDTH,
+                GameConstants.HEIGHT, Constants.DISPLAY_COLOR_MODE, Constants.DISPLAY_APP_NAME,
+                Constants.DISPLAY_FRAME_MODES);
+        if (!mTransport.handshake(handshake)) {
+            return false;
         }
 
-        try {
-            mOutputStream.write(mGame.clearLedMatrix());
-        } catch (NullPointerException e) {
-        } catch (IOException e) {
+        mFrameEncoder = FrameEncoders.create(mProtocolVersion, handshake.getAcceptedFrameModes(), GameConstants.WIDTH,
+                GameConstants.HEIGHT, Constants.DISPLAY_KEY_FRAME_INTERVAL);
+
+        mMaxFramesPerSecond = Math.min(handshake.getMaxFramesPerSecond(), Constants.MAX_FRAMES_PER_SECOND_GAME);
+
+        return true;
+    }
+
+    /**
+     * Sends a frame to the display.
+     *
+     * @param ledMatrix The frame, it is encoded not until it is sent, because a reconnection
+     *                  resets the encoder (the display lost its state)
+     */
+    private void sendFrame(byte[] ledMatrix) throws IOException {
+        long timeStart = System.nanoTime();
+        int length = mFrameEncoder.encode(ledMatrix);
+        long timeEncoded = System.nanoTime();
+        mInputLatencyMetrics.record(InputLatencyMetrics.STAGE_ENCODE, timeEncoded - timeStart);
+        if (length > 0) {
+            mTransport.write(mFrameEncoder.getFrame(), 0, length);
+            recordWriteLatency(timeEncoded);
+            mFrameBytes.record(length);
         }
+    }
 
-        closeConnection();
+    private void recordWriteLatency(long timeStart) {
+        long timeEnd = System.nanoTime();
+        mInputLatencyMetrics.record(InputLatencyMetrics.STAGE_WRITE, timeEnd - timeStart);
+        if (mSendingInputTimestamp != 0) {
+            mInputLatencyMetrics.record(InputLatencyMetrics.STAGE_INPUT_TO_WRITE, timeEnd - mSendingInputTimestamp);
+            mSendingInputTimestamp = 0;
+        }
     }
 
-    private void closeConnection() {
+    private void clearLedAndCloseConnection() {
+        if (!mLinkUp) {
+            closeConnection();
+            return;
+        }
+
         try {
-            if (mOutputStream != null) {
-                mOutputStream.close();
-            }
-        } catch (NullPointerException e) {
-        } catch (IOException e) {
+            Thread.sleep(1000 / Math.max(1, mMaxFramesPerSecond));
+        } catch (InterruptedException e) {
         }
 
         try {
-            if (mBluetoothSocket != null) {
-                mBluetoothSocket.close();
+            Arrays.fill(mClearedLedMatrix, GameConstants.LED_OUT);
+            int length = mFrameEncoder.encode(mClearedLedMatrix);
+            if (length > 0) {
+                mTransport.write(mFrameEncoder.getFrame(), 0, length);
             }
         } catch (NullPointerException e) {
-
         } catch (IOException e) {
         }
+
+        closeConnection();
+    }
+
+    private void closeConnection() {
+        mTransport.close();
     }
-}
\ No newline at end of file
+}
@@ -17,6 +17,7 @@
 
 package io.github.msc42.masterthemaze;
 
+import android.bluetooth.BluetoothAdapter;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
@@ -90,6 +91,27 @@ public final class MainActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+
+        warmUpDisplayConnection();
+    }
+
+    /**
+     * Connects to the chosen display in advance, so that the game starts without waiting for the connection.
+     */
+    private void warmUpDisplayConnection() {
+        BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+        if (bluetoothAdapter == null || !bluetoothAdapter.isEnabled() || mBluetoothAddress == null
+                || !BluetoothAdapter.checkBluetoothAddress(mBluetoothAddress)) {
+            return;
+        }
+
+        BluetoothDisplayTransport.warmUp(bluetoothAdapter.getRemoteDevice(mBluetoothAddress),
+                new DisplayCapabilitiesCache(mSettings));
+    }
+
     private void initDifficulty() {
         mDifficulties = new String[]{getString(R.string.very_difficult),
                 getString(R.string.difficult), getString(R.string.medium), getString(R.string.easy)};
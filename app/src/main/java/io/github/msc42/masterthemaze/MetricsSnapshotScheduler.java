@@ -0,0 +1,102 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.masterthemaze;
+
+import android.os.Handler;
+import android.util.Log;
+
+import java.io.IOException;
+
+import io.github.msc42.maze.metrics.MetricsCsvWriter;
+
+/**
+ * Represents the scheduler, which writes a CSV snapshot of the metrics periodically.
+ * It runs on the thread of its handler, so that the file is not written on the UI thread.
+ * The snapshots can be pulled with adb shell run-as io.github.msc42.masterthemaze cat files/metrics.csv.
+ *
+ * @author Stefan Constantin
+ */
+final class MetricsSnapshotScheduler implements Runnable {
+
+    private static final String TAG = "MetricsSnapshot";
+
+    private Handler mHandler;
+    private MetricsCsvWriter mMetricsCsvWriter;
+    private long mInterval;
+
+    private volatile boolean mStopped = false;
+
+
+    /**
+     * Creates a new metrics snapshot scheduler, it has to be started with start().
+     *
+     * @param handler          The handler of the thread, which writes the snapshots.
+     * @param metricsCsvWriter The writer of the snapshots, it is closed by stop().
+     * @param interval         The interval in milliseconds between two snapshots, 0 < interval.
+     */
+    protected MetricsSnapshotScheduler(Handler handler, MetricsCsvWriter metricsCsvWriter, long interval) {
+        this.mHandler = handler;
+        this.mMetricsCsvWriter = metricsCsvWriter;
+        this.mInterval = interval;
+    }
+
+    protected void start() {
+        mHandler.postDelayed(this, mInterval);
+    }
+
+    /**
+     * Stops the scheduler, a last snapshot is written and the writer is closed on the thread of the handler.
+     */
+    protected void stop() {
+        mStopped = true;
+        mHandler.removeCallbacks(this);
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                writeSnapshot();
+                try {
+                    mMetricsCsvWriter.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "cannot close the metrics file", e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        if (mStopped) {
+            return;
+        }
+
+        if (writeSnapshot()) {
+            mHandler.postDelayed(this, mInterval);
+        }
+    }
+
+    private boolean writeSnapshot() {
+        try {
+            mMetricsCsvWriter.writeSnapshot(System.currentTimeMillis());
+            return true;
+        } catch (IOException e) {
+            // the metrics are only diagnostics, so the game continues without snapshots
+            Log.w(TAG, "cannot write the metrics snapshot", e);
+            return false;
+        }
+    }
+}
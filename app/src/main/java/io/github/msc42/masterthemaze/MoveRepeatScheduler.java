@@ -0,0 +1,117 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.masterthemaze;
+
+import android.os.Handler;
+
+import io.github.msc42.maze.Game;
+import io.github.msc42.maze.input.MoveRingBuffer;
+
+/**
+ * Represents the scheduler, which repeats the current move direction while the device is tilted.
+ * It is driven by the events of the AccelerometerEventListener and runs on the thread of its handler
+ * (the thread of the sensor events): a direction change arms it, the first repetition follows after
+ * Constants.MOVE_REPEAT_FIRST_DELAY_FACTOR intervals, then the move is repeated every interval.
+ * The interval shrinks with the tilt, the more the device is tilted, the faster the hero point moves.
+ * If the device lies flat, nothing is scheduled, so the scheduler causes no wakeups.
+ *
+ * @author Stefan Constantin
+ */
+final class MoveRepeatScheduler implements Runnable {
+
+    private Handler mHandler;
+    private MoveRingBuffer mMoveQueue;
+    private int mBaseInterval;
+    private float mSensitivity;
+
+    private int mMoveDirection = Game.NO_MOVE;
+    private float mTilt;
+    private volatile boolean mStopped = false;
+
+
+    /**
+     * Creates a new move repeat scheduler.
+     *
+     * @param handler      The handler of the thread, which delivers the sensor events.
+     * @param moveQueue    The queue of the moves.
+     * @param baseInterval The interval in milliseconds between two repeated moves if the tilt
+     *                     is the sensitivity, 0 means that moves are not repeated.
+     * @param sensitivity  The tilt (acceleration in m/s^2), from which a move is detected.
+     */
+    protected MoveRepeatScheduler(Handler handler, MoveRingBuffer moveQueue, int baseInterval, float sensitivity) {
+        this.mHandler = handler;
+        this.mMoveQueue = moveQueue;
+        this.mBaseInterval = baseInterval;
+        this.mSensitivity = sensitivity;
+    }
+
+    /**
+     * Returns the interval between two repeated moves, it is inversely proportional to the tilt.
+     *
+     * @param tilt         The tilt (acceleration in m/s^2 along the axis of the move).
+     * @param sensitivity  The tilt, from which a move is detected.
+     * @param baseInterval The interval in milliseconds if the tilt is the sensitivity.
+     * @return The interval in milliseconds, at least Constants.MIN_MOVE_REPEAT_INTERVAL.
+     */
+    protected static long repeatInterval(float tilt, float sensitivity, int baseInterval) {
+        if (tilt <= sensitivity) {
+            return Math.max(Constants.MIN_MOVE_REPEAT_INTERVAL, baseInterval);
+        }
+        return Math.max(Constants.MIN_MOVE_REPEAT_INTERVAL, Math.round(baseInterval * sensitivity / tilt));
+    }
+
+    /**
+     * Updates the current move direction and tilt, it has to be called on the thread of the handler.
+     *
+     * @param moveDirection The current move direction.
+     * @param tilt          The current tilt along the axis of the move direction.
+     */
+    protected void update(int moveDirection, float tilt) {
+        mTilt = tilt;
+        if (moveDirection == mMoveDirection || mStopped) {
+            return;
+        }
+
+        mMoveDirection = moveDirection;
+        mHandler.removeCallbacks(this);
+        if (moveDirection != Game.NO_MOVE && mBaseInterval > 0) {
+            mHandler.postDelayed(this, (long) (Constants.MOVE_REPEAT_FIRST_DELAY_FACTOR
+                    * repeatInterval(mTilt, mSensitivity, mBaseInterval)));
+        }
+    }
+
+    /**
+     * Stops the repetition, it can be called on any thread.
+     */
+    protected void stop() {
+        mStopped = true;
+        if (mHandler != null) {
+            mHandler.removeCallbacks(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        if (mStopped || mMoveDirection == Game.NO_MOVE) {
+            return;
+        }
+
+        mMoveQueue.offer(mMoveDirection);
+        mHandler.postDelayed(this, repeatInterval(mTilt, mSensitivity, mBaseInterval));
+    }
+}
@@ -17,12 +17,14 @@
 
 package io.github.msc42.masterthemaze;
 
+import java.io.IOException;
+
 /**
  * Represents an exception, which is thrown if RFCOMM sockes are not supported by the device.
  *
  * @author Stefan Constantin
  */
-class RfcommSocketNotSupportedException extends Exception {
+class RfcommSocketNotSupportedException extends IOException {
 
     private static final long serialVersionUID = 1L;
 
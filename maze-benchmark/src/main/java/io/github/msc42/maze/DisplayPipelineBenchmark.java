@@ -0,0 +1,119 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import io.github.msc42.maze.display.DisplayHandshake;
+import io.github.msc42.maze.display.DisplayProtocol;
+import io.github.msc42.maze.display.DisplayTransport;
+import io.github.msc42.maze.display.FrameEncoder;
+import io.github.msc42.maze.display.FrameEncoders;
+import io.github.msc42.maze.display.LoopbackDisplayTransport;
+import io.github.msc42.maze.display.TcpDisplayTransport;
+import io.github.msc42.maze.headless.DisplayEmulator;
+
+/**
+ * Benchmarks the whole pipeline of a frame without a radio: a turn of the game (level 1, the hero point moves),
+ * the encoding of the frame with all frame modes of protocol version 2 and the write to the display.
+ * <p/>
+ * loopback: the LoopbackDisplayTransport, which decodes every frame in the same thread<br/>
+ * tcp: the TcpDisplayTransport to the DisplayEmulator on localhost, which decodes every frame in its own thread
+ *
+ * @author Stefan Constantin
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DisplayPipelineBenchmark {
+
+    private static final int FRAME_MODES = DisplayProtocol.FRAME_MODE_DELTA | DisplayProtocol.FRAME_MODE_LZ
+            | DisplayProtocol.FRAME_MODE_PACKED_2BPP;
+
+    // a closed path, so that the hero point stays in the level
+    private static final int[] MOVES = {Game.RIGHT, Game.RIGHT, Game.DOWN, Game.DOWN,
+            Game.LEFT, Game.LEFT, Game.UP, Game.UP};
+
+    @Param({"loopback", "tcp"})
+    public String transport;
+
+    private Game mGame;
+    private DisplayTransport mTransport;
+    private FrameEncoder mFrameEncoder;
+    private DisplayEmulator mEmulator;
+    private int mTurn;
+
+
+    @Setup
+    public void setUp() throws InvalidLevelException, IOException {
+        mGame = new Game(MemoryLevelSource.readBundledLevels(), 3);
+        if ("tcp".equals(transport)) {
+            mEmulator = new DisplayEmulator(DisplayProtocol.VERSION_2, FRAME_MODES, 60);
+            mEmulator.start(0);
+            mTransport = new TcpDisplayTransport("127.0.0.1", mEmulator.getPort(), 1000);
+        } else {
+            mTransport = new LoopbackDisplayTransport(GameConstants.WIDTH, GameConstants.HEIGHT,
+                    DisplayProtocol.VERSION_2, FRAME_MODES, 60);
+        }
+
+        mTransport.connect();
+        DisplayHandshake handshake = new DisplayHandshake(DisplayProtocol.VERSION_2, GameConstants.WIDTH,
+                GameConstants.HEIGHT, (byte) 0, "benchmark", FRAME_MODES);
+        if (!mTransport.handshake(handshake)) {
+            throw new IOException("handshake failed");
+        }
+        mFrameEncoder = FrameEncoders.create(DisplayProtocol.VERSION_2, handshake.getAcceptedFrameModes(),
+                GameConstants.WIDTH, GameConstants.HEIGHT, 100);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        mTransport.close();
+        if (mEmulator != null) {
+            mEmulator.stop();
+        }
+    }
+
+    @Benchmark
+    public int sendFrame() throws InvalidLevelException, IOException {
+        int move = MOVES[mTurn];
+        mTurn = (mTurn + 1) % MOVES.length;
+        int length = mFrameEncoder.encode(mGame.doStep(move));
+        if (length > 0) {
+            mTransport.write(mFrameEncoder.getFrame(), 0, length);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,93 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks one turn of the game (Game.doStep).
+ * <p/>
+ * idle: level 1, the hero point does not move<br/>
+ * moving: level 1, the hero point moves in every turn<br/>
+ * enemies: a generated level with ENEMY_HEAVY_ENEMY_POINTS enemy points, which move every second turn
+ *
+ * @author Stefan Constantin
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStepBenchmark {
+
+    protected static final int ENEMY_HEAVY_ENEMY_POINTS = 500;
+
+    // a closed path, so that the hero point stays in the level
+    private static final int[] MOVING_MOVES = {Game.RIGHT, Game.RIGHT, Game.DOWN, Game.DOWN,
+            Game.LEFT, Game.LEFT, Game.UP, Game.UP};
+
+    @Param({"idle", "moving", "enemies"})
+    public String scenario;
+
+    private Game mGame;
+    private int[] mMoves;
+    private int mTurn;
+
+
+    @Setup
+    public void setUp() throws InvalidLevelException, IOException {
+        switch (scenario) {
+            case "idle":
+                mGame = new Game(MemoryLevelSource.readBundledLevels(), 3);
+                mMoves = new int[]{Game.NO_MOVE};
+                break;
+            case "moving":
+                mGame = new Game(MemoryLevelSource.readBundledLevels(), 3);
+                mMoves = MOVING_MOVES;
+                break;
+            case "enemies":
+                mGame = new Game(MemoryLevelSource.fromStrings(LevelGenerator.generate(
+                        2 * (GameConstants.WIDTH + GameConstants.HEIGHT) - 4, ENEMY_HEAVY_ENEMY_POINTS)), 0);
+                mMoves = new int[]{Game.NO_MOVE};
+                break;
+            default:
+                throw new IllegalArgumentException(scenario);
+        }
+    }
+
+    @Benchmark
+    public byte[] doStep() throws InvalidLevelException, IOException {
+        int move = mMoves[mTurn];
+        mTurn = (mTurn + 1) % mMoves.length;
+        return mGame.doStep(move);
+    }
+}
@@ -0,0 +1,94 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+/**
+ * Generates valid level files of any size for benchmarks.
+ * The hero point starts at (1, 1), the next level point is at (WIDTH - 2, HEIGHT - 2).
+ * The border points fill first the edge of the field and then the inner cells row by row,
+ * if there are more border points than cells, cells get several border points.
+ * The enemy points start next to the hero point and fill the field row by row,
+ * every enemy point moves one cell to the right and back.
+ *
+ * @author Stefan Constantin
+ */
+final class LevelGenerator {
+
+    protected static final int HERO_X = 1;
+    protected static final int HERO_Y = 1;
+    protected static final int NEXT_LEVEL_X = GameConstants.WIDTH - 2;
+    protected static final int NEXT_LEVEL_Y = GameConstants.HEIGHT - 2;
+
+
+    private LevelGenerator() {
+    }
+
+    /**
+     * Generates a level.
+     *
+     * @param borderPoints The number of the border points.
+     * @param enemyPoints  The number of the enemy points.
+     * @return The JSON file of the level.
+     */
+    protected static String generate(int borderPoints, int enemyPoints) {
+        StringBuilder json = new StringBuilder(64 + 32 * borderPoints + 96 * enemyPoints);
+        json.append("{\n\"Heropoint\": { \"x\": ").append(HERO_X).append(", \"y\": ").append(HERO_Y)
+                .append(", \"stepX\": 1, \"stepY\": 1 },\n");
+        json.append("\"Nextlevelpoints\": [\n{ \"x\": ").append(NEXT_LEVEL_X).append(", \"y\": ")
+                .append(NEXT_LEVEL_Y).append(" }\n],\n");
+
+        int[] cells = borderCells();
+        json.append("\"Borderpoints\": [\n");
+        for (int i = 0; i < borderPoints; i++) {
+            int cell = cells[i % cells.length];
+            json.append(i == 0 ? "" : ",\n").append("{ \"x\": ").append(cell % GameConstants.WIDTH)
+                    .append(", \"y\": ").append(cell / GameConstants.WIDTH).append(" }");
+        }
+        json.append("\n],\n");
+
+        json.append("\"Enemypoints\": [\n");
+        for (int i = 0; i < enemyPoints; i++) {
+            int startX = 2 + i % (GameConstants.WIDTH - 4);
+            int startY = 1 + (i / (GameConstants.WIDTH - 4)) % (GameConstants.HEIGHT - 2);
+            json.append(i == 0 ? "" : ",\n").append("{ \"startX\": ").append(startX)
+                    .append(", \"startY\": ").append(startY)
+                    .append(", \"stepInterval\": 1, \"stepX\": [1, -1], \"stepY\": [0, 0] }");
+        }
+        json.append("\n]\n}\n");
+
+        return json.toString();
+    }
+
+    // the cells, which may get a border point, the edge first
+    private static int[] borderCells() {
+        int[] cells = new int[GameConstants.WIDTH * GameConstants.HEIGHT - 2];
+        int count = 0;
+        for (int inner = 0; inner < 2; inner++) {
+            for (int y = 0; y < GameConstants.HEIGHT; y++) {
+                for (int x = 0; x < GameConstants.WIDTH; x++) {
+                    boolean edge = x == 0 || y == 0 || x == GameConstants.WIDTH - 1 || y == GameConstants.HEIGHT - 1;
+                    boolean free = (x == HERO_X && y == HERO_Y) || (x == NEXT_LEVEL_X && y == NEXT_LEVEL_Y);
+                    if (edge == (inner == 0) && !free) {
+                        cells[count++] = x + y * GameConstants.WIDTH;
+                    }
+                }
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,92 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the construction of a level from its JSON file or its compiled form (parsing and validation).
+ * The files are held in memory, so the file system is not measured.
+ * <p/>
+ * Level1, Level2: the levels of the app<br/>
+ * generated-N-M: a generated level with N border points and M enemy points<br/>
+ * json, dom, compiled: the format, which is read, json is streamed by the StreamingLevelReader,
+ * dom is the JSON file parsed into a DOM of org.json by the DomLevelReader of the tests of maze-core
+ * and compiled levels are read from a LevelPack<br/>
+ * The allocations of the readers are compared with the profiler "-prof gc".
+ *
+ * @author Stefan Constantin
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LevelLoadBenchmark {
+
+    protected static final String GENERATED_PREFIX = "generated-";
+
+    @Param({"Level1", "Level2", "generated-574-0", "generated-10000-0", "generated-50000-500"})
+    public String level;
+
+    @Param({"json", "dom", "compiled"})
+    public String format;
+
+    private LevelSource mLevelSource;
+    private int mLevelNumber;
+    private Game mGame;
+
+
+    @Setup
+    public void setUp() throws InvalidLevelException, IOException {
+        MemoryLevelSource levelSource;
+        if (level.startsWith(GENERATED_PREFIX)) {
+            String[] size = level.substring(GENERATED_PREFIX.length()).split("-");
+            levelSource = MemoryLevelSource.fromStrings(LevelGenerator.generate(Integer.parseInt(size[0]),
+                    Integer.parseInt(size[1])));
+            mLevelNumber = 1;
+        } else {
+            levelSource = MemoryLevelSource.readBundledLevels();
+            mLevelNumber = Integer.parseInt(level.substring(GameConstants.LEVEL_FILE_NAME_PREFIX.length()));
+        }
+        mLevelSource = "compiled".equals(format) ? levelSource.toLevelPack() : levelSource;
+        mGame = new Game(mLevelSource, 3);
+    }
+
+    @Benchmark
+    public Object constructLevel() throws InvalidLevelException, IOException {
+        if ("dom".equals(format)) {
+            return DomLevelReader.read(mLevelSource.openLevel(mLevelNumber), false);
+        }
+        return new Level(mLevelNumber, mLevelSource, mGame, 3);
+    }
+}
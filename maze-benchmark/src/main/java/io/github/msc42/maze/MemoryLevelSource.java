@@ -0,0 +1,149 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Represents a source of levels, which are held in memory.
+ * Benchmarks use it, so that they do not measure the file system.
+ * The compiled levels are provided by a LevelPack, which is returned by toLevelPack().
+ *
+ * @author Stefan Constantin
+ */
+final class MemoryLevelSource implements LevelSource {
+
+    protected static final String LEVEL_DIRECTORY_PROPERTY = "maze.levelDirectory";
+
+    private byte[][] mLevels;
+    private byte[] mEnd;
+
+
+    /**
+     * Creates a new memory level source.
+     *
+     * @param levels The JSON files of the levels, the first one is level 1.
+     * @param end    The JSON file of the level after the last level.
+     */
+    protected MemoryLevelSource(byte[][] levels, byte[] end) {
+        this.mLevels = levels;
+        this.mEnd = end;
+    }
+
+    protected static MemoryLevelSource fromStrings(String... levels) {
+        byte[][] levelBytes = new byte[levels.length][];
+        for (int i = 0; i < levels.length; i++) {
+            levelBytes[i] = levels[i].getBytes(Charset.forName("UTF-8"));
+        }
+        return new MemoryLevelSource(levelBytes, LevelGenerator.generate(0, 0).getBytes(Charset.forName("UTF-8")));
+    }
+
+    /**
+     * Reads the levels of the app.
+     * The directory is given by the system property "maze.levelDirectory".
+     *
+     * @return The levels of the app.
+     * @throws IOException
+     */
+    protected static MemoryLevelSource readBundledLevels() throws IOException {
+        LevelSource fileLevelSource = new FileLevelSource(new File(System.getProperty(LEVEL_DIRECTORY_PROPERTY,
+                "app/src/main/assets")));
+
+        byte[][] levels = new byte[0][];
+        try {
+            for (int levelNumber = 1; ; levelNumber++) {
+                byte[] level = readFully(fileLevelSource.openLevel(levelNumber));
+                levels = Arrays.copyOf(levels, levelNumber);
+                levels[levelNumber - 1] = level;
+            }
+        } catch (FileNotFoundException e) {
+            // all levels are read
+        }
+
+        return new MemoryLevelSource(levels, readFully(fileLevelSource.openEnd()));
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        try {
+            byte[] buffer = new byte[8192];
+            int length = 0;
+            int read;
+            while ((read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Compiles the levels into a level pack, which is held in a direct buffer like a memory-mapped file.
+     *
+     * @return The level pack.
+     * @throws InvalidLevelException
+     * @throws IOException
+     */
+    protected LevelPack toLevelPack() throws InvalidLevelException, IOException {
+        byte[][] compiledLevels = new byte[mLevels.length][];
+        for (int i = 0; i < mLevels.length; i++) {
+            compiledLevels[i] = compile(mLevels[i], false);
+        }
+        ByteArrayOutputStream levelPack = new ByteArrayOutputStream();
+        LevelPack.write(compiledLevels, compile(mEnd, true), levelPack);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(levelPack.size());
+        buffer.put(levelPack.toByteArray());
+        buffer.flip();
+        return new LevelPack(buffer);
+    }
+
+    private static byte[] compile(byte[] level, boolean end) throws InvalidLevelException, IOException {
+        ByteArrayOutputStream compiledLevel = new ByteArrayOutputStream();
+        BinaryLevelFormat.write(Level.fromJSON(new ByteArrayInputStream(level), end), compiledLevel);
+        return compiledLevel.toByteArray();
+    }
+
+    protected int getNumberOfLevels() {
+        return mLevels.length;
+    }
+
+    @Override
+    public InputStream openLevel(int levelNumber) throws IOException {
+        if (levelNumber < 1 || levelNumber > mLevels.length) {
+            throw new FileNotFoundException(GameConstants.LEVEL_FILE_NAME_PREFIX + levelNumber);
+        }
+        return new ByteArrayInputStream(mLevels[levelNumber - 1]);
+    }
+
+    @Override
+    public InputStream openEnd() throws IOException {
+        return new ByteArrayInputStream(mEnd);
+    }
+}
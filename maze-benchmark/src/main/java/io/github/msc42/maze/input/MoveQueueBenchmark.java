@@ -0,0 +1,105 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.input;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.github.msc42.maze.Game;
+
+/**
+ * Benchmarks the move queue between the input threads and the game thread under contention:
+ * one thread offers moves and one thread polls them at the same time.
+ * <p/>
+ * arrayBlockingQueue: the former ArrayBlockingQueue&lt;Integer&gt; with add/remove and exceptions<br/>
+ * moveRingBuffer: the lock-free MoveRingBuffer<br/>
+ * The average time of poll is the time the game thread needs to get a move, the average time of offer is
+ * the time an input thread is blocked until the move is in the queue.
+ *
+ * @author Stefan Constantin
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveQueueBenchmark {
+
+    // the size of the motion queue of the app
+    private static final int CAPACITY = 5;
+
+    @State(Scope.Group)
+    public static class ArrayBlockingQueueState {
+        ArrayBlockingQueue<Integer> mQueue = new ArrayBlockingQueue<Integer>(CAPACITY);
+    }
+
+    @State(Scope.Group)
+    public static class MoveRingBufferState {
+        MoveRingBuffer mQueue = new MoveRingBuffer(CAPACITY, MoveRingBuffer.OverflowPolicy.DROP_NEWEST);
+    }
+
+    @Benchmark
+    @Group("arrayBlockingQueue")
+    @GroupThreads(1)
+    public boolean arrayBlockingQueueOffer(ArrayBlockingQueueState state) {
+        try {
+            return state.mQueue.add(Game.UP);
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    @Group("arrayBlockingQueue")
+    @GroupThreads(1)
+    public int arrayBlockingQueuePoll(ArrayBlockingQueueState state) {
+        try {
+            return state.mQueue.remove();
+        } catch (NoSuchElementException e) {
+            return Game.NO_MOVE;
+        }
+    }
+
+    @Benchmark
+    @Group("moveRingBuffer")
+    @GroupThreads(1)
+    public boolean moveRingBufferOffer(MoveRingBufferState state) {
+        return state.mQueue.offer(Game.UP);
+    }
+
+    @Benchmark
+    @Group("moveRingBuffer")
+    @GroupThreads(1)
+    public int moveRingBufferPoll(MoveRingBufferState state) {
+        int move = state.mQueue.poll();
+        return move == MoveRingBuffer.EMPTY ? Game.NO_MOVE : move;
+    }
+}
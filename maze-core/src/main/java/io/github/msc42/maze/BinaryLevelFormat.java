@@ -0,0 +1,224 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Represents the compiled form of a level, it is read without parsing JSON and without allocating a DOM.
+ * <p/>
+ * All numbers are big endian, a layer has one bit per cell (cell index = x + y * width,
+ * bit (index &amp; 7) of byte (index &gt;&gt; 3)):<br/>
+ * header: magic "MTML" (4 bytes), version (1 byte), flags (1 byte, FLAG_END), width (1 byte), height (1 byte)<br/>
+ * end level: border layer<br/>
+ * other levels: hero point (x, y, stepX, stepY, 1 signed byte each), next level layer,
+ * teleport table (count (2 bytes), then cell index and destination index (2 bytes each) per teleport point),
+ * border layer, enemy table (count (2 bytes), then per enemy point: startX, startY (1 byte each),
+ * step interval of the level file (2 bytes), number of steps (2 bytes) and the steps,
+ * one byte per step: stepX in the high nibble and stepY in the low nibble, both signed)
+ * <p/>
+ * The points are added by the same methods of Level as the points of a JSON file, so the same rules are checked.
+ * Many compiled levels are stored in a LevelPack.
+ *
+ * @author Stefan Constantin
+ */
+final class BinaryLevelFormat {
+
+    protected static final int MAGIC = 0x4D544D4C; // "MTML"
+    protected static final byte VERSION = 1;
+    protected static final int FLAG_END = 1;
+
+    private static final int MIN_STEP = -8;
+    private static final int MAX_STEP = 7;
+
+
+    private BinaryLevelFormat() {
+    }
+
+    /**
+     * Reads a compiled level and adds its points to a level.
+     *
+     * @param in    The compiled level from the position to the limit of the buffer, the position is advanced.
+     * @param level The level, which is empty, isEnd() must be set.
+     * @throws InvalidLevelException If the compiled level is malformed or breaks a rule of the levels.
+     */
+    protected static void read(ByteBuffer in, Level level) throws InvalidLevelException {
+        try {
+            if (in.getInt() != MAGIC || in.get() != VERSION) {
+                throw new InvalidLevelException(GameConstants.ERROR_COMPILED_LEVEL);
+            }
+            boolean end = (in.get() & FLAG_END) != 0;
+            if (end != level.isEnd() || (in.get() & 0xFF) != GameConstants.WIDTH
+                    || (in.get() & 0xFF) != GameConstants.HEIGHT) {
+                throw new InvalidLevelException(GameConstants.ERROR_COMPILED_LEVEL);
+            }
+
+            byte[] layer = new byte[layerLength()];
+            if (end) {
+                in.get(layer);
+                readBorderPoints(layer, level);
+            } else {
+                //order is the order of the JSON file reading
+                level.setHero(in.get(), in.get(), in.get(), in.get());
+
+                in.get(layer);
+                for (int index = nextCell(layer, 0); index >= 0; index = nextCell(layer, index + 1)) {
+                    level.addNextLevelPoint(index % GameConstants.WIDTH, index / GameConstants.WIDTH);
+                }
+
+                int teleports = in.getShort() & 0xFFFF;
+                for (int i = 0; i < teleports; i++) {
+                    int index = in.getShort() & 0xFFFF;
+                    int destination = in.getShort() & 0xFFFF;
+                    level.addTeleportPoint(index % GameConstants.WIDTH, index / GameConstants.WIDTH,
+                            destination % GameConstants.WIDTH, destination / GameConstants.WIDTH);
+                }
+
+                in.get(layer);
+                readBorderPoints(layer, level);
+
+                level.checkStaticPoints();
+
+                int enemies = in.getShort() & 0xFFFF;
+                for (int i = 0; i < enemies; i++) {
+                    int startX = in.get() & 0xFF;
+                    int startY = in.get() & 0xFF;
+                    int stepInterval = in.getShort() & 0xFFFF;
+                    int[] stepX = new int[in.getShort() & 0xFFFF];
+                    int[] stepY = new int[stepX.length];
+                    for (int j = 0; j < stepX.length; j++) {
+                        int steps = in.get();
+                        stepX[j] = steps >> 4;
+                        stepY[j] = (steps << 28) >> 28;
+                    }
+                    level.addEnemyPoint(startX, startY, stepX, stepY, stepInterval);
+                }
+            }
+
+            if (in.hasRemaining()) {
+                throw new InvalidLevelException(GameConstants.ERROR_COMPILED_LEVEL);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new InvalidLevelException(GameConstants.ERROR_COMPILED_LEVEL, e);
+        }
+    }
+
+    /**
+     * Writes the compiled form of a level.
+     *
+     * @param level        The level, which was read from its JSON file.
+     * @param outputStream The destination, it is flushed, but not closed.
+     * @throws InvalidLevelException If the level cannot be represented in this format.
+     * @throws IOException           If the destination cannot be written.
+     */
+    protected static void write(Level level, OutputStream outputStream) throws InvalidLevelException, IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        CellLayers cells = level.getCells();
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(level.isEnd() ? FLAG_END : 0);
+        out.writeByte(GameConstants.WIDTH);
+        out.writeByte(GameConstants.HEIGHT);
+
+        if (!level.isEnd()) {
+            HeroPoint hero = level.getHero();
+            out.writeByte(hero.getStartX());
+            out.writeByte(hero.getStartY());
+            out.writeByte(hero.getStepX());
+            out.writeByte(hero.getStepY());
+
+            writeLayer(cells, CellLayers.NEXT_LEVEL, out);
+
+            int teleports = 0;
+            for (int index = 0; index < GameConstants.WIDTH * GameConstants.HEIGHT; index++) {
+                if (cells.has(CellLayers.TELEPORT, index % GameConstants.WIDTH, index / GameConstants.WIDTH)) {
+                    teleports++;
+                }
+            }
+            out.writeShort(teleports);
+            for (int index = 0; index < GameConstants.WIDTH * GameConstants.HEIGHT; index++) {
+                int x = index % GameConstants.WIDTH;
+                int y = index / GameConstants.WIDTH;
+                if (cells.has(CellLayers.TELEPORT, x, y)) {
+                    out.writeShort(index);
+                    out.writeShort(cells.getTeleportDestination(x, y));
+                }
+            }
+        }
+
+        writeLayer(cells, CellLayers.BORDER, out);
+
+        if (!level.isEnd()) {
+            EnemyPoint[] enemies = level.getDynamicPoints();
+            out.writeShort(enemies.length);
+            for (EnemyPoint enemy : enemies) {
+                out.writeByte(enemy.getX());
+                out.writeByte(enemy.getY());
+                out.writeShort(enemy.getStepInterval() / level.getStepIntervalFactor());
+                int[] stepX = enemy.getStepX();
+                int[] stepY = enemy.getStepY();
+                out.writeShort(stepX.length);
+                for (int j = 0; j < stepX.length; j++) {
+                    if (stepX[j] < MIN_STEP || stepX[j] > MAX_STEP || stepY[j] < MIN_STEP || stepY[j] > MAX_STEP) {
+                        throw new InvalidLevelException(GameConstants.ERROR_ENEMIES);
+                    }
+                    out.writeByte(((stepX[j] & 0xF) << 4) | (stepY[j] & 0xF));
+                }
+            }
+        }
+
+        out.flush();
+    }
+
+    private static int layerLength() {
+        return (GameConstants.WIDTH * GameConstants.HEIGHT + 7) >>> 3;
+    }
+
+    /**
+     * @return The index of the next cell with a set bit, which is at least from, or -1.
+     */
+    private static int nextCell(byte[] layer, int from) {
+        for (int index = from; index < GameConstants.WIDTH * GameConstants.HEIGHT; index++) {
+            if ((layer[index >>> 3] & (1 << (index & 7))) != 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static void readBorderPoints(byte[] layer, Level level) throws InvalidLevelException {
+        for (int index = nextCell(layer, 0); index >= 0; index = nextCell(layer, index + 1)) {
+            level.addBorderPoint(index % GameConstants.WIDTH, index / GameConstants.WIDTH);
+        }
+    }
+
+    private static void writeLayer(CellLayers cells, int layerNumber, DataOutputStream out) throws IOException {
+        byte[] layer = new byte[layerLength()];
+        for (int index = 0; index < GameConstants.WIDTH * GameConstants.HEIGHT; index++) {
+            if (cells.has(layerNumber, index % GameConstants.WIDTH, index / GameConstants.WIDTH)) {
+                layer[index >>> 3] |= 1 << (index & 7);
+            }
+        }
+        out.write(layer);
+    }
+}
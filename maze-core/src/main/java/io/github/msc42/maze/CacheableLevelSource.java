@@ -0,0 +1,45 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.IOException;
+
+/**
+ * Represents a source of level files, whose parsed levels can be kept in a LevelCache.
+ * The origin and the modification time identify the content of a level, so a changed level is read again.
+ *
+ * @author Stefan Constantin
+ */
+public interface CacheableLevelSource extends LevelSource {
+
+    /**
+     * Returns where a level is read from, e.g. the path of its file.
+     *
+     * @param levelNumber The number of the level, starting with 1.
+     * @return The origin, which is equal for the same content, or null if the level must not be cached.
+     * @throws IOException If the origin cannot be determined.
+     */
+    String getLevelOrigin(int levelNumber) throws IOException;
+
+    /**
+     * @param levelNumber The number of the level, starting with 1.
+     * @return The modification time of the origin of the level in milliseconds, 0 if it does not change.
+     * @throws IOException If the modification time cannot be determined.
+     */
+    long getLevelModificationTime(int levelNumber) throws IOException;
+}
@@ -0,0 +1,204 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.util.Arrays;
+
+/**
+ * Represents the cells of a level as a layered bitboard.
+ * Every kind of point has its own bit plane (one bit per cell, cell index = x + y * width),
+ * so that the test whether a cell contains a point of a kind is a bit test.
+ * The destinations of the teleport points are held in a small table, which is sorted by the cell index.
+ * Several enemy points can be in the same cell, therefore the enemy points of every cell are counted.
+ * <p/>
+ * If a cell contains several points, the pixel value of the cell is the pixel value of the point
+ * with the highest priority: next level point > teleport point > border point > enemy point
+ *
+ * @author Stefan Constantin
+ */
+final class CellLayers {
+
+    protected static final int BORDER = 0;
+    protected static final int TELEPORT = 1;
+    protected static final int NEXT_LEVEL = 2;
+    protected static final int ENEMY = 3;
+    private static final int LAYERS = 4;
+
+    protected static final byte BORDER_PIXEL_VALUE = GameConstants.LED_HALF;
+    protected static final byte TELEPORT_PIXEL_VALUE = GameConstants.LED_THREE_QUARTER;
+    protected static final byte NEXT_LEVEL_PIXEL_VALUE = GameConstants.LED_THREE_QUARTER;
+    protected static final byte ENEMY_PIXEL_VALUE = GameConstants.LED_THREE_QUARTER;
+
+    private static final int INITIAL_TELEPORT_TABLE_SIZE = 4;
+
+    private int mWidth;
+    private int mHeight;
+    private int mWordsPerLayer;
+
+    // layer after layer, every layer has mWordsPerLayer words
+    private long[] mLayers;
+    private int[] mEnemyCounts;
+
+    private int mTeleports = 0;
+    private int[] mTeleportCells = new int[INITIAL_TELEPORT_TABLE_SIZE];
+    private int[] mTeleportDestinations = new int[INITIAL_TELEPORT_TABLE_SIZE];
+
+
+    /**
+     * Creates new cell layers without any points.
+     *
+     * @param width  The width of the level.
+     * @param height The height of the level.
+     */
+    protected CellLayers(int width, int height) {
+        this.mWidth = width;
+        this.mHeight = height;
+        mWordsPerLayer = (width * height + 63) >>> 6;
+        mLayers = new long[LAYERS * mWordsPerLayer];
+        mEnemyCounts = new int[width * height];
+    }
+
+    /**
+     * Creates a copy of cell layers.
+     *
+     * @param cells The cell layers, which are copied.
+     */
+    protected CellLayers(CellLayers cells) {
+        this.mWidth = cells.mWidth;
+        this.mHeight = cells.mHeight;
+        this.mWordsPerLayer = cells.mWordsPerLayer;
+        mLayers = cells.mLayers.clone();
+        mEnemyCounts = cells.mEnemyCounts.clone();
+        mTeleports = cells.mTeleports;
+        mTeleportCells = cells.mTeleportCells.clone();
+        mTeleportDestinations = cells.mTeleportDestinations.clone();
+    }
+
+    /**
+     * @return The estimated number of bytes of the arrays.
+     */
+    protected long getEstimatedBytes() {
+        return 8L * mLayers.length + 4L * (mEnemyCounts.length + mTeleportCells.length + mTeleportDestinations.length);
+    }
+
+    protected int getWidth() {
+        return mWidth;
+    }
+
+    protected int getHeight() {
+        return mHeight;
+    }
+
+    protected int index(int x, int y) {
+        return x + y * mWidth;
+    }
+
+    protected boolean has(int layer, int x, int y) {
+        int index = index(x, y);
+        return (mLayers[layer * mWordsPerLayer + (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    protected void set(int layer, int x, int y) {
+        int index = index(x, y);
+        mLayers[layer * mWordsPerLayer + (index >>> 6)] |= 1L << index;
+    }
+
+    private void clear(int layer, int index) {
+        mLayers[layer * mWordsPerLayer + (index >>> 6)] &= ~(1L << index);
+    }
+
+    /**
+     * Adds a teleport point.
+     * If the cell contains already a teleport point, only the destination of the first one is used.
+     */
+    protected void addTeleport(int x, int y, int destinationX, int destinationY) {
+        set(TELEPORT, x, y);
+
+        int index = index(x, y);
+        int position = Arrays.binarySearch(mTeleportCells, 0, mTeleports, index);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+
+        if (mTeleports == mTeleportCells.length) {
+            mTeleportCells = Arrays.copyOf(mTeleportCells, 2 * mTeleports);
+            mTeleportDestinations = Arrays.copyOf(mTeleportDestinations, 2 * mTeleports);
+        }
+        System.arraycopy(mTeleportCells, position, mTeleportCells, position + 1, mTeleports - position);
+        System.arraycopy(mTeleportDestinations, position, mTeleportDestinations, position + 1,
+                mTeleports - position);
+        mTeleportCells[position] = index;
+        mTeleportDestinations[position] = index(destinationX, destinationY);
+        mTeleports++;
+    }
+
+    /**
+     * Returns the destination of the teleport point of a cell.
+     *
+     * @return The cell index of the destination or -1 if the cell contains no teleport point.
+     */
+    protected int getTeleportDestination(int x, int y) {
+        int position = Arrays.binarySearch(mTeleportCells, 0, mTeleports, index(x, y));
+        return position >= 0 ? mTeleportDestinations[position] : -1;
+    }
+
+    protected void addEnemy(int x, int y) {
+        int index = index(x, y);
+        if (mEnemyCounts[index]++ == 0) {
+            set(ENEMY, x, y);
+        }
+    }
+
+    /**
+     * Removes an enemy point from a cell.
+     *
+     * @return true if the cell is empty afterwards.
+     */
+    protected boolean removeEnemy(int x, int y) {
+        int index = index(x, y);
+        if (--mEnemyCounts[index] == 0) {
+            clear(ENEMY, index);
+            return !hasStatic(index);
+        }
+        return false;
+    }
+
+    private boolean hasStatic(int index) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        return ((mLayers[BORDER * mWordsPerLayer + word] | mLayers[TELEPORT * mWordsPerLayer + word]
+                | mLayers[NEXT_LEVEL * mWordsPerLayer + word]) & bit) != 0;
+    }
+
+    /**
+     * Returns the pixel value of a cell without the hero point.
+     */
+    protected byte getPixelValue(int x, int y) {
+        if (has(NEXT_LEVEL, x, y)) {
+            return NEXT_LEVEL_PIXEL_VALUE;
+        } else if (has(TELEPORT, x, y)) {
+            return TELEPORT_PIXEL_VALUE;
+        } else if (has(BORDER, x, y)) {
+            return BORDER_PIXEL_VALUE;
+        } else if (has(ENEMY, x, y)) {
+            return ENEMY_PIXEL_VALUE;
+        }
+        return GameConstants.LED_OUT;
+    }
+}
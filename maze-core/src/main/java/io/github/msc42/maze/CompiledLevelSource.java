@@ -0,0 +1,53 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a source of level files, which provides also the compiled form of the levels (see BinaryLevelFormat).
+ * A compiled level is read without parsing JSON, so the game prefers it. If a level has no compiled form,
+ * its JSON file is read.
+ *
+ * @author Stefan Constantin
+ */
+public interface CompiledLevelSource extends LevelSource {
+
+    /**
+     * Returns the compiled form of a level.
+     *
+     * @param levelNumber The number of the level, starting with 1.
+     * @return A buffer, which contains only the compiled level, the caller may change its position.
+     * @throws FileNotFoundException If the level has no compiled form (or there is no level with this number).
+     * @throws InvalidLevelException If the container of the compiled levels is invalid.
+     * @throws IOException           If the compiled level exists, but cannot be read.
+     */
+    ByteBuffer getCompiledLevel(int levelNumber) throws InvalidLevelException, IOException;
+
+    /**
+     * Returns the compiled form of the level, which is displayed after the last level.
+     *
+     * @return A buffer, which contains only the compiled level, the caller may change its position.
+     * @throws FileNotFoundException If the level has no compiled form.
+     * @throws InvalidLevelException If the container of the compiled levels is invalid.
+     * @throws IOException           If the compiled level exists, but cannot be read.
+     */
+    ByteBuffer getCompiledEnd() throws InvalidLevelException, IOException;
+}
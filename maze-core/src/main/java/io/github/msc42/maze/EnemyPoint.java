@@ -29,6 +29,8 @@ class EnemyPoint implements Point {
 
     private int mCurrentX;
     private int mCurrentY;
+    private int mPreviousX;
+    private int mPreviousY;
     private int[] mStepX;
     private int[] mStepY;
     private int mStepInterval;
@@ -46,6 +48,8 @@ class EnemyPoint implements Point {
     protected EnemyPoint(int startX, int startY, int[] stepX, int[] stepY, int stepInterval) {
         this.mCurrentX = startX;
         this.mCurrentY = startY;
+        this.mPreviousX = startX;
+        this.mPreviousY = startY;
         this.mStepX = stepX;
         this.mStepY = stepY;
         this.mStepInterval = stepInterval;
@@ -56,23 +60,63 @@ class EnemyPoint implements Point {
         return GameConstants.LED_THREE_QUARTER;
     }
 
-    protected int[] doStep() {
+    protected int getX() {
+        return mCurrentX;
+    }
+
+    protected int getY() {
+        return mCurrentY;
+    }
+
+    /**
+     * @return The steps at the x coordinate, the array must not be modified.
+     */
+    protected int[] getStepX() {
+        return mStepX;
+    }
+
+    /**
+     * @return The steps at the y coordinate, the array must not be modified.
+     */
+    protected int[] getStepY() {
+        return mStepY;
+    }
+
+    protected int getStepInterval() {
+        return mStepInterval;
+    }
+
+    /**
+     * @return The x coordinate before the last step.
+     */
+    protected int getPreviousX() {
+        return mPreviousX;
+    }
+
+    /**
+     * @return The y coordinate before the last step.
+     */
+    protected int getPreviousY() {
+        return mPreviousY;
+    }
+
+    /**
+     * Does one turn, the enemy point moves only every step interval turns.
+     */
+    protected void doStep() {
+        mPreviousX = mCurrentX;
+        mPreviousY = mCurrentY;
         if (mCounter < mStepInterval - 1) {
             mCounter++;
-            return new int[]{mCurrentX, mCurrentY, mCurrentX, mCurrentY};
         } else {
             mCounter = 0;
-            int oldX = mCurrentX;
-            int oldY = mCurrentY;
-            int[] newPosition = computeNewPosition();
-            return new int[]{oldX, oldY, newPosition[0], newPosition[1]};
+            computeNewPosition();
         }
     }
 
-    private int[] computeNewPosition() {
+    private void computeNewPosition() {
         mCurrentX += mStepX[mCounterStep];
         mCurrentY += mStepY[mCounterStep];
         mCounterStep = (mCounterStep + 1) % mStepX.length;
-        return new int[]{mCurrentX, mCurrentY};
     }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Represents a source of level files, which are stored in a directory of the file system.
+ * The directory contains the files "Level1.json", "Level2.json", ... and "End.json".
+ * A level is identified in a LevelCache by the path and the modification time of its file.
+ *
+ * @author Stefan Constantin
+ */
+public class FileLevelSource implements CacheableLevelSource {
+
+    private File mDirectory;
+
+
+    /**
+     * Creates a new file level source.
+     *
+     * @param directory The directory, which contains the level files.
+     */
+    public FileLevelSource(File directory) {
+        this.mDirectory = directory;
+    }
+
+    private File getLevelFile(int levelNumber) {
+        return new File(mDirectory, GameConstants.LEVEL_FILE_NAME_PREFIX + levelNumber
+                + GameConstants.LEVEL_FILE_EXTENSION);
+    }
+
+    /**
+     * @return The file, which is read for a level, the end level if the level does not exist.
+     */
+    private File getReadFile(int levelNumber) {
+        File file = getLevelFile(levelNumber);
+        return file.isFile() ? file : new File(mDirectory, GameConstants.END_LEVEL_FILE_NAME);
+    }
+
+    @Override
+    public InputStream openLevel(int levelNumber) throws IOException {
+        return new FileInputStream(getLevelFile(levelNumber));
+    }
+
+    @Override
+    public InputStream openEnd() throws IOException {
+        return new FileInputStream(new File(mDirectory, GameConstants.END_LEVEL_FILE_NAME));
+    }
+
+    @Override
+    public String getLevelOrigin(int levelNumber) {
+        return getReadFile(levelNumber).getAbsolutePath();
+    }
+
+    @Override
+    public long getLevelModificationTime(int levelNumber) {
+        return getReadFile(levelNumber).lastModified();
+    }
+}
@@ -0,0 +1,275 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * Represents a game.
+ * A level is generated from a JSON file.
+ * Rules for a JSON file are in the JavaDoc of the 'Level' class.
+ *
+ * @author Stefan Constantin
+ */
+public class Game {
+
+    public static final int NO_MOVE = 0;
+    public static final int UP = 1;
+    public static final int RIGHT_UP = 2;
+    public static final int RIGHT = 3;
+    public static final int RIGHT_DOWN = 4;
+    public static final int DOWN = 5;
+    public static final int LEFT_DOWN = 6;
+    public static final int LEFT = 7;
+    public static final int LEFT_UP = 8;
+
+    protected static final int NO_CELL = -1;
+
+    private LevelSource mLevelSource;
+    private int mDifficulty;
+    private LevelPrefetcher mLevelPrefetcher;
+
+    private int mCurrentLevelNumber = 1;
+    private boolean mCurrentLevelRunning = true;
+
+    private byte[] mLedMatrix = new byte[GameConstants.WIDTH * GameConstants.HEIGHT];
+
+    private CellLayers mCells;
+    private HeroPoint mHeroPoint;
+    private EnemyPoint[] mEnemyPoints;
+
+
+    /**
+     * Creates a new game.
+     *
+     * @param levelSource Provides access to the level files.
+     * @param difficulty  The difficulty of the game, 0 is the most difficult one.
+     * @throws InvalidLevelException
+     * @throws IOException
+     */
+    public Game(LevelSource levelSource, int difficulty) throws InvalidLevelException, IOException {
+        this(levelSource, difficulty, null);
+    }
+
+    /**
+     * Creates a new game, which reads the next level in the background while the current level is played.
+     *
+     * @param levelSource      Provides access to the level files, it is used by one thread at a time.
+     * @param difficulty       The difficulty of the game, 0 is the most difficult one.
+     * @param prefetchExecutor The executor, which reads the next level, or null if the next level is read
+     *                         when it is reached.
+     * @throws InvalidLevelException
+     * @throws IOException
+     */
+    public Game(LevelSource levelSource, int difficulty, Executor prefetchExecutor)
+            throws InvalidLevelException, IOException {
+        this(levelSource, difficulty, prefetchExecutor, null);
+    }
+
+    /**
+     * Creates a new game, which reads the next level in the background and takes levels from a cache.
+     *
+     * @param levelSource      Provides access to the level files, it is used by one thread at a time.
+     * @param difficulty       The difficulty of the game, 0 is the most difficult one.
+     * @param prefetchExecutor The executor, which reads the next level, or null if the next level is read
+     *                         when it is reached.
+     * @param levelCache       The cache of the levels, which is shared by the games, or null.
+     * @throws InvalidLevelException
+     * @throws IOException
+     */
+    public Game(LevelSource levelSource, int difficulty, Executor prefetchExecutor, LevelCache levelCache)
+            throws InvalidLevelException, IOException {
+        this.mLevelSource = levelSource;
+        this.mDifficulty = difficulty;
+        mLevelPrefetcher = new LevelPrefetcher(prefetchExecutor, levelSource, this, difficulty, levelCache);
+        try {
+            loadLevel(Level.load(mCurrentLevelNumber, mLevelSource, this, mDifficulty, levelCache));
+        } catch (IOException e) {
+            end();
+            throw new IOException(GameConstants.ERROR_IO);
+        }
+    }
+
+    /**
+     * Execute one turn of the game.
+     * A turn does not allocate memory unless the next level is loaded.
+     *
+     * @param move The direction of the players move.<br/>
+     *             0: no move, 1: up, 2: right and up, 3: right, 4: right and down,
+     *             5: down, 6: left and down, 7: left, 8: left and up
+     * @return The values of every pixel of the matrix (GameConstants.HEIGHT * GameConstants.WIDTH))
+     * @throws InvalidLevelException
+     * @throws IOException
+     */
+    public byte[] doStep(int move) throws InvalidLevelException, IOException {
+        if (mHeroPoint != null) {
+            if (mHeroPoint.doStep(move)) {
+                doStepHeroPoint();
+            }
+
+            if (mCurrentLevelRunning) {
+                // no for-each loop, because it would allocate an iterator on Android
+                for (int i = 0; i < mEnemyPoints.length; i++) {
+                    doStepDynamicPoint(mEnemyPoints[i]);
+                }
+            } else {
+                mCurrentLevelNumber++;
+                mCurrentLevelRunning = true;
+                try {
+                    loadLevel(mLevelPrefetcher.take(mCurrentLevelNumber));
+                } catch (IOException e) {
+                    end();
+                    throw new IOException(GameConstants.ERROR_IO);
+                }
+            }
+        }
+        return mLedMatrix;
+    }
+
+    /**
+     * Returns the number of the current level.
+     *
+     * @return the number of the current level, starting with 1
+     */
+    public int getCurrentLevelNumber() {
+        return mCurrentLevelNumber;
+    }
+
+    /**
+     * @return The number of transitions to a next level.
+     */
+    public long getLevelTransitions() {
+        return mLevelPrefetcher.getTransitions();
+    }
+
+    /**
+     * @return The number of transitions, which had to wait, because the next level was not prefetched in time.
+     */
+    public long getLateLevelTransitions() {
+        return mLevelPrefetcher.getLateTransitions();
+    }
+
+    /**
+     * @return The sum of the times in nanoseconds, which the late transitions waited for the next level.
+     */
+    public long getLevelTransitionWaitNanos() {
+        return mLevelPrefetcher.getWaitNanos();
+    }
+
+    /**
+     * Clears the LED Matrix.
+     *
+     * @return the cleared LED Matrix
+     */
+    public byte[] clearLedMatrix() {
+        for (int i = 0; i < GameConstants.WIDTH * GameConstants.HEIGHT; i++) {
+            mLedMatrix[i] = GameConstants.LED_OUT;
+        }
+        return mLedMatrix;
+    }
+
+    private void loadLevel(Level currentLevel) {
+        this.mCells = currentLevel.getCells();
+        this.mEnemyPoints = currentLevel.getDynamicPoints();
+        this.mHeroPoint = currentLevel.getHero();
+        initLedMatrix();
+
+        // the end level has no next level
+        if (!currentLevel.isEnd()) {
+            mLevelPrefetcher.prefetch(mCurrentLevelNumber + 1);
+        }
+    }
+
+    protected void initLedMatrix() {
+        for (int i = 0; i < GameConstants.HEIGHT; i++) {
+            for (int j = 0; j < GameConstants.WIDTH; j++) {
+                mLedMatrix[i + j * GameConstants.WIDTH] = mCells.getPixelValue(i, j);
+            }
+        }
+        if (mHeroPoint != null) {
+            mLedMatrix[mHeroPoint.getX() + mHeroPoint.getY() * GameConstants.WIDTH] = mHeroPoint.getPixelValue();
+        }
+    }
+
+    private void end() {
+        this.mCells = null;
+        this.mEnemyPoints = null;
+        this.mHeroPoint = null;
+    }
+
+    /**
+     * Computes the cell, which the hero point reaches, if it moves to the given coordinates.
+     *
+     * @return The index (x + y * GameConstants.WIDTH) of the reached cell or NO_CELL if the hero point
+     * cannot move to the given coordinates.
+     */
+    protected int getStepHeroPoint(int newX, int newY) {
+        //order is important
+        if (mCells.has(CellLayers.NEXT_LEVEL, newX, newY)) {
+            mCurrentLevelRunning = false;
+            return NO_CELL;
+        }
+
+        if (mCells.has(CellLayers.TELEPORT, newX, newY)) {
+            int destination = mCells.getTeleportDestination(newX, newY);
+            newX = destination % mCells.getWidth();
+            newY = destination / mCells.getWidth();
+            if (mCells.has(CellLayers.NEXT_LEVEL, newX, newY)) {
+                mCurrentLevelRunning = false;
+                return NO_CELL;
+            }
+        }
+
+        if (mCells.has(CellLayers.BORDER, newX, newY)) {
+            return NO_CELL;
+        }
+
+        return newX + newY * GameConstants.WIDTH;
+    }
+
+    private void doStepDynamicPoint(EnemyPoint enemyPoint) {
+        enemyPoint.doStep();
+
+        deleteCell(enemyPoint.getPreviousX(), enemyPoint.getPreviousY());
+
+        if (enemyPoint.getX() == mHeroPoint.getX() && enemyPoint.getY() == mHeroPoint.getY()) {
+            mHeroPoint.die();
+            doStepHeroPoint();
+        }
+
+        setCell(enemyPoint.getX(), enemyPoint.getY(), enemyPoint);
+    }
+
+    private void deleteCell(int x, int y) {
+        if (mCells.removeEnemy(x, y)) {
+            mLedMatrix[x + y * GameConstants.WIDTH] = GameConstants.LED_OUT;
+        }
+    }
+
+    private void doStepHeroPoint() {
+        //HeroPoint is always alone in cell, therefore LED out is okay
+        mLedMatrix[mHeroPoint.getPreviousX() + mHeroPoint.getPreviousY() * GameConstants.WIDTH] = GameConstants.LED_OUT;
+        mLedMatrix[mHeroPoint.getX() + mHeroPoint.getY() * GameConstants.WIDTH] = mHeroPoint.getPixelValue();
+    }
+
+    private void setCell(int x, int y, Point point) {
+        mCells.addEnemy(x, y);
+        mLedMatrix[x + y * GameConstants.WIDTH] = point.getPixelValue();
+    }
+}
\ No newline at end of file
@@ -33,6 +33,11 @@ final public class GameConstants {
     public static final int WIDTH = 24; // 0 < WIDTH
     public static final int HEIGHT = 24; // 0 <= HEIGHT
 
+    public static final String LEVEL_FILE_NAME_PREFIX = "Level";
+    public static final String LEVEL_FILE_EXTENSION = ".json";
+    public static final String END_LEVEL_FILE_NAME = "End" + LEVEL_FILE_EXTENSION;
+    public static final String LEVEL_PACK_FILE_NAME = "levels.pack";
+
     public static final String ERROR_IO = "ERROR_IO";
     public static final String ERROR_JSON = "JSON_ERROR";
     public static final String ERROR_HERO = "JSON_ERROR_HERO";
@@ -45,6 +50,7 @@ final public class GameConstants {
     public static final String ERROR_TELEPORT_POSITION = "JSON_ERROR_TELEPORT_POSITION";
     public static final String ERROR_NEXT = "JSON_ERROR_NEXT";
     public static final String ERROR_NEXT_POSITION = "JSON_ERROR_NEXT_POSITION";
+    public static final String ERROR_COMPILED_LEVEL = "ERROR_COMPILED_LEVEL";
 
 
     private GameConstants() {
@@ -27,6 +27,8 @@ class HeroPoint implements Point {
     private Game mGame;
     private int mCurrentX;
     private int mCurrentY;
+    private int mPreviousX;
+    private int mPreviousY;
     private int mStartX;
     private int mStartY;
     private int mStepX;
@@ -50,6 +52,8 @@ class HeroPoint implements Point {
         this.mGame = game;
         mCurrentX = startX;
         mCurrentY = startY;
+        mPreviousX = startX;
+        mPreviousY = startY;
     }
 
     @Override
@@ -65,7 +69,43 @@ class HeroPoint implements Point {
         return mCurrentY;
     }
 
-    protected int[] doStep(int move) {
+    protected int getStartX() {
+        return mStartX;
+    }
+
+    protected int getStartY() {
+        return mStartY;
+    }
+
+    protected int getStepX() {
+        return mStepX;
+    }
+
+    protected int getStepY() {
+        return mStepY;
+    }
+
+    /**
+     * @return The x coordinate before the last move or death.
+     */
+    protected int getPreviousX() {
+        return mPreviousX;
+    }
+
+    /**
+     * @return The y coordinate before the last move or death.
+     */
+    protected int getPreviousY() {
+        return mPreviousY;
+    }
+
+    /**
+     * Moves the hero point.
+     *
+     * @param move The direction of the move.
+     * @return true if the hero point has moved, then getPreviousX and getPreviousY return the old position.
+     */
+    protected boolean doStep(int move) {
         switch (move) {
             case Game.UP:
                 return moveUp();
@@ -84,97 +124,85 @@ class HeroPoint implements Point {
             case Game.LEFT_UP:
                 return moveLeftUp();
             default:
-                return null;
+                return false;
         }
     }
 
-    protected int[] die() {
-        int[] heroPosition = {mCurrentX, mCurrentY, mStartX, mStartY};
+    /**
+     * Moves the hero point back to its start position,
+     * getPreviousX and getPreviousY return the position where it died.
+     */
+    protected void die() {
+        mPreviousX = mCurrentX;
+        mPreviousY = mCurrentY;
         mCurrentX = mStartX;
         mCurrentY = mStartY;
-        return heroPosition;
     }
 
-    private int[] moveHelp(int[] newPosition) {
-        if (newPosition[0] != -1) {
-            int oldX = mCurrentX;
-            int oldY = mCurrentY;
-            mCurrentX = newPosition[0];
-            mCurrentY = newPosition[1];
-            return new int[]{oldX, oldY, mCurrentX, mCurrentY};
+    private boolean moveHelp(int newCell) {
+        if (newCell != Game.NO_CELL) {
+            mPreviousX = mCurrentX;
+            mPreviousY = mCurrentY;
+            mCurrentX = newCell % GameConstants.WIDTH;
+            mCurrentY = newCell / GameConstants.WIDTH;
+            return true;
         }
-        return null;
+        return false;
     }
 
-    private int[] moveRight() {
+    private boolean moveRight() {
         if (mCurrentX + mStepX < GameConstants.WIDTH) {
-            int[] newPosition = mGame.getStepHeroPoint(mCurrentX, mCurrentY,
-                    mCurrentX + mStepX, mCurrentY);
-            return moveHelp(newPosition);
+            return moveHelp(mGame.getStepHeroPoint(mCurrentX + mStepX, mCurrentY));
         }
-        return null;
+        return false;
     }
 
-    private int[] moveLeft() {
+    private boolean moveLeft() {
         if (mCurrentX - mStepX >= 0) {
-            int[] newPosition = mGame.getStepHeroPoint(mCurrentX, mCurrentY,
-                    mCurrentX - mStepX, mCurrentY);
-            return moveHelp(newPosition);
+            return moveHelp(mGame.getStepHeroPoint(mCurrentX - mStepX, mCurrentY));
         }
-        return null;
+        return false;
     }
 
-    private int[] moveUp() {
+    private boolean moveUp() {
         if (mCurrentY - mStepY >= 0) {
-            int[] newPosition = mGame.getStepHeroPoint(mCurrentX, mCurrentY,
-                    mCurrentX, mCurrentY - mStepY);
-            return moveHelp(newPosition);
+            return moveHelp(mGame.getStepHeroPoint(mCurrentX, mCurrentY - mStepY));
         }
-        return null;
+        return false;
     }
 
-    private int[] moveDown() {
+    private boolean moveDown() {
         if (mCurrentY + mStepY < GameConstants.HEIGHT) {
-            int[] newPosition = mGame.getStepHeroPoint(mCurrentX, mCurrentY,
-                    mCurrentX, mCurrentY + mStepY);
-            return moveHelp(newPosition);
+            return moveHelp(mGame.getStepHeroPoint(mCurrentX, mCurrentY + mStepY));
         }
-        return null;
+        return false;
     }
 
-    private int[] moveLeftUp() {
+    private boolean moveLeftUp() {
         if (mCurrentX - mStepX >= 0 && mCurrentY + mStepY >= 0) {
-            int[] newPosition = mGame.getStepHeroPoint(mCurrentX, mCurrentY,
-                    mCurrentX - mStepX, mCurrentY - mStepY);
-            return moveHelp(newPosition);
+            return moveHelp(mGame.getStepHeroPoint(mCurrentX - mStepX, mCurrentY - mStepY));
         }
-        return null;
+        return false;
     }
 
-    private int[] moveLeftDown() {
+    private boolean moveLeftDown() {
         if (mCurrentX - mStepX >= 0 && mCurrentY + mStepY <= GameConstants.HEIGHT) {
-            int[] newPosition = mGame.getStepHeroPoint(mCurrentX, mCurrentY,
-                    mCurrentX - mStepX, mCurrentY + mStepY);
-            return moveHelp(newPosition);
+            return moveHelp(mGame.getStepHeroPoint(mCurrentX - mStepX, mCurrentY + mStepY));
         }
-        return null;
+        return false;
     }
 
-    private int[] moveRightUp() {
+    private boolean moveRightUp() {
         if (mCurrentX + mStepX <= GameConstants.WIDTH && mCurrentY - mStepY >= 0) {
-            int[] newPosition = mGame.getStepHeroPoint(mCurrentX, mCurrentY,
-                    mCurrentX + mStepX, mCurrentY - mStepY);
-            return moveHelp(newPosition);
+            return moveHelp(mGame.getStepHeroPoint(mCurrentX + mStepX, mCurrentY - mStepY));
         }
-        return null;
+        return false;
     }
 
-    private int[] moveRightDown() {
+    private boolean moveRightDown() {
         if (mCurrentX + mStepX <= GameConstants.WIDTH && mCurrentY + mStepY <= GameConstants.HEIGHT) {
-            int[] newPosition = mGame.getStepHeroPoint(mCurrentX, mCurrentY,
-                    mCurrentX + mStepX, mCurrentY + mStepY);
-            return moveHelp(newPosition);
+            return moveHelp(mGame.getStepHeroPoint(mCurrentX + mStepX, mCurrentY + mStepY));
         }
-        return null;
+        return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,421 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Represents a pull parser of JSON (like android.util.JsonReader), which reads the tokens one after another
+ * from a reader, so a document is never held in memory as a whole.
+ * It accepts the same lenient syntax as the org.json of Android: single quoted strings, unquoted names and values,
+ * '=' or '=&gt;' between a name and its value, ';' between values, a separator before a closing bracket
+ * and comments ('//' and '#' up to the end of the line, '/*' up to '*&#47;').
+ * <p/>
+ * A syntax error throws an InvalidLevelException with GameConstants.ERROR_JSON, the caller checks the types
+ * of the values with peek() before it reads them.
+ *
+ * @author Stefan Constantin
+ */
+final class JsonPullReader {
+
+    protected static final int BEGIN_OBJECT = 1;
+    protected static final int END_OBJECT = 2;
+    protected static final int BEGIN_ARRAY = 3;
+    protected static final int END_ARRAY = 4;
+    protected static final int NAME = 5;
+    // a quoted string
+    protected static final int STRING = 6;
+    // an unquoted value: a number, true, false, null or an unquoted string
+    protected static final int LITERAL = 7;
+    protected static final int END_DOCUMENT = 8;
+
+    private static final int NONE = 0;
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private Reader mReader;
+    private char[] mBuffer = new char[BUFFER_SIZE];
+    private int mPosition = 0;
+    private int mLimit = 0;
+    private int mLineNumber = 1;
+
+    private int[] mScopes = new int[16];
+    private int mDepth = 1;
+
+    private int mPeeked = NONE;
+    // the opening quote of a peeked NAME or STRING, 0 if it is unquoted
+    private char mQuote;
+    private StringBuilder mString = new StringBuilder();
+
+
+    /**
+     * Creates a new JSON pull reader.
+     *
+     * @param reader The JSON document, the top level value must be an object.
+     */
+    protected JsonPullReader(Reader reader) {
+        this.mReader = reader;
+        mScopes[0] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * @return The line of the last read or peeked token, the first line is 1.
+     */
+    protected int getLineNumber() {
+        return mLineNumber;
+    }
+
+    /**
+     * @return The type of the next token, e.g. BEGIN_OBJECT.
+     * @throws InvalidLevelException If the document has a syntax error.
+     * @throws IOException           If the reader cannot be read.
+     */
+    protected int peek() throws InvalidLevelException, IOException {
+        if (mPeeked == NONE) {
+            mPeeked = doPeek();
+        }
+        return mPeeked;
+    }
+
+    private int doPeek() throws InvalidLevelException, IOException {
+        int scope = mScopes[mDepth - 1];
+        if (scope == EMPTY_ARRAY || scope == NONEMPTY_ARRAY) {
+            mScopes[mDepth - 1] = NONEMPTY_ARRAY;
+            int c = nextNonWhitespace();
+            if (scope == NONEMPTY_ARRAY) {
+                if (c == ',' || c == ';') {
+                    c = nextNonWhitespace();
+                } else if (c != ']') {
+                    throw syntaxError();
+                }
+            }
+            if (c == ']') {
+                return END_ARRAY;
+            }
+            mPosition--;
+        } else if (scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT) {
+            mScopes[mDepth - 1] = DANGLING_NAME;
+            int c = nextNonWhitespace();
+            if (scope == NONEMPTY_OBJECT) {
+                if (c == ',' || c == ';') {
+                    c = nextNonWhitespace();
+                } else if (c != '}') {
+                    throw syntaxError();
+                }
+            }
+            if (c == '}') {
+                return END_OBJECT;
+            }
+            mQuote = c == '"' || c == '\'' ? (char) c : 0;
+            if (mQuote == 0) {
+                mPosition--;
+            }
+            return NAME;
+        } else if (scope == DANGLING_NAME) {
+            mScopes[mDepth - 1] = NONEMPTY_OBJECT;
+            int c = nextNonWhitespace();
+            if (c == '=') {
+                if (fillBuffer(1) && mBuffer[mPosition] == '>') {
+                    mPosition++;
+                }
+            } else if (c != ':') {
+                throw syntaxError();
+            }
+        } else if (scope == EMPTY_DOCUMENT) {
+            mScopes[mDepth - 1] = NONEMPTY_DOCUMENT;
+            // like org.json, the top level value is an object and the rest of the document is not read
+            if (nextNonWhitespace() != '{') {
+                throw syntaxError();
+            }
+            return BEGIN_OBJECT;
+        } else {
+            return END_DOCUMENT;
+        }
+
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return BEGIN_OBJECT;
+            case '[':
+                return BEGIN_ARRAY;
+            case '"':
+            case '\'':
+                mQuote = (char) c;
+                return STRING;
+            case ',':
+            case ';':
+            case ']':
+            case '}':
+            case ':':
+                throw syntaxError();
+            default:
+                mQuote = 0;
+                mPosition--;
+                return LITERAL;
+        }
+    }
+
+    protected void beginObject() throws InvalidLevelException, IOException {
+        expect(BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    protected void endObject() throws InvalidLevelException, IOException {
+        expect(END_OBJECT);
+        mDepth--;
+    }
+
+    protected void beginArray() throws InvalidLevelException, IOException {
+        expect(BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    protected void endArray() throws InvalidLevelException, IOException {
+        expect(END_ARRAY);
+        mDepth--;
+    }
+
+    /**
+     * @return true if the current object or array has another element.
+     */
+    protected boolean hasNext() throws InvalidLevelException, IOException {
+        int peeked = peek();
+        return peeked != END_OBJECT && peeked != END_ARRAY && peeked != END_DOCUMENT;
+    }
+
+    protected String nextName() throws InvalidLevelException, IOException {
+        expect(NAME);
+        return readText();
+    }
+
+    /**
+     * @return The text of a STRING or a LITERAL.
+     */
+    protected String nextText() throws InvalidLevelException, IOException {
+        int peeked = peek();
+        if (peeked != STRING && peeked != LITERAL) {
+            throw new IllegalStateException("no string or literal");
+        }
+        mPeeked = NONE;
+        return readText();
+    }
+
+    /**
+     * Skips the next value, nested objects and arrays are skipped completely.
+     */
+    protected void skipValue() throws InvalidLevelException, IOException {
+        int depth = 0;
+        do {
+            int peeked = peek();
+            if (peeked == BEGIN_OBJECT) {
+                beginObject();
+                depth++;
+            } else if (peeked == BEGIN_ARRAY) {
+                beginArray();
+                depth++;
+            } else if (peeked == END_OBJECT) {
+                endObject();
+                depth--;
+            } else if (peeked == END_ARRAY) {
+                endArray();
+                depth--;
+            } else if (peeked == NAME) {
+                nextName();
+            } else if (peeked == END_DOCUMENT) {
+                throw syntaxError();
+            } else {
+                nextText();
+            }
+        } while (depth > 0);
+    }
+
+    private void expect(int token) throws InvalidLevelException, IOException {
+        if (peek() != token) {
+            throw new IllegalStateException("expected token " + token + ", but was " + mPeeked);
+        }
+        mPeeked = NONE;
+    }
+
+    private void push(int scope) {
+        if (mDepth == mScopes.length) {
+            int[] scopes = new int[2 * mDepth];
+            System.arraycopy(mScopes, 0, scopes, 0, mDepth);
+            mScopes = scopes;
+        }
+        mScopes[mDepth++] = scope;
+    }
+
+    private String readText() throws InvalidLevelException, IOException {
+        mString.setLength(0);
+        if (mQuote != 0) {
+            readQuoted();
+        } else {
+            readLiteral();
+        }
+        return mString.toString();
+    }
+
+    private void readQuoted() throws InvalidLevelException, IOException {
+        while (true) {
+            if (!fillBuffer(1)) {
+                throw syntaxError();
+            }
+            char c = mBuffer[mPosition++];
+            if (c == mQuote) {
+                return;
+            } else if (c == '\n' || c == '\r') {
+                throw syntaxError();
+            } else if (c == '\\') {
+                if (!fillBuffer(1)) {
+                    throw syntaxError();
+                }
+                c = mBuffer[mPosition++];
+                switch (c) {
+                    case 'b':
+                        mString.append('\b');
+                        break;
+                    case 't':
+                        mString.append('\t');
+                        break;
+                    case 'n':
+                        mString.append('\n');
+                        break;
+                    case 'f':
+                        mString.append('\f');
+                        break;
+                    case 'r':
+                        mString.append('\r');
+                        break;
+                    case 'u':
+                        if (!fillBuffer(4)) {
+                            throw syntaxError();
+                        }
+                        try {
+                            mString.append((char) Integer.parseInt(new String(mBuffer, mPosition, 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw syntaxError();
+                        }
+                        mPosition += 4;
+                        break;
+                    case '"':
+                    case '\'':
+                    case '\\':
+                    case '/':
+                        mString.append(c);
+                        break;
+                    default:
+                        throw syntaxError();
+                }
+            } else {
+                mString.append(c);
+            }
+        }
+    }
+
+    private void readLiteral() throws InvalidLevelException, IOException {
+        while (fillBuffer(1)) {
+            char c = mBuffer[mPosition];
+            if (c <= ' ' || ",:]}/\\\"[{;=#".indexOf(c) >= 0) {
+                break;
+            }
+            mString.append(c);
+            mPosition++;
+        }
+        if (mString.length() == 0) {
+            throw syntaxError();
+        }
+    }
+
+    /**
+     * @return The next character, which is neither whitespace nor part of a comment ('//', '/* *&#47;' or '#').
+     */
+    private int nextNonWhitespace() throws InvalidLevelException, IOException {
+        while (fillBuffer(1)) {
+            char c = mBuffer[mPosition++];
+            if (c == '\n') {
+                mLineNumber++;
+            } else if (c == '#') {
+                skipToEndOfLine();
+            } else if (c == '/' && fillBuffer(1) && mBuffer[mPosition] == '/') {
+                mPosition++;
+                skipToEndOfLine();
+            } else if (c == '/' && fillBuffer(1) && mBuffer[mPosition] == '*') {
+                mPosition++;
+                skipBlockComment();
+            } else if (c > ' ') {
+                return c;
+            }
+        }
+        throw syntaxError();
+    }
+
+    private void skipToEndOfLine() throws IOException {
+        while (fillBuffer(1)) {
+            char c = mBuffer[mPosition++];
+            if (c == '\n') {
+                mLineNumber++;
+                return;
+            } else if (c == '\r') {
+                return;
+            }
+        }
+    }
+
+    private void skipBlockComment() throws InvalidLevelException, IOException {
+        while (fillBuffer(2)) {
+            char c = mBuffer[mPosition++];
+            if (c == '*' && mBuffer[mPosition] == '/') {
+                mPosition++;
+                return;
+            } else if (c == '\n') {
+                mLineNumber++;
+            }
+        }
+        throw syntaxError();
+    }
+
+    /**
+     * @return true if at least the given number of characters is in the buffer.
+     */
+    private boolean fillBuffer(int minimum) throws IOException {
+        if (mLimit - mPosition >= minimum) {
+            return true;
+        }
+        System.arraycopy(mBuffer, mPosition, mBuffer, 0, mLimit - mPosition);
+        mLimit -= mPosition;
+        mPosition = 0;
+        int read;
+        while (mLimit < minimum && (read = mReader.read(mBuffer, mLimit, mBuffer.length - mLimit)) != -1) {
+            mLimit += read;
+        }
+        return mLimit >= minimum;
+    }
+
+    private static InvalidLevelException syntaxError() {
+        return new InvalidLevelException(GameConstants.ERROR_JSON);
+    }
+}
@@ -0,0 +1,350 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents a level.
+ * <p/>
+ * It generates levels from JSON files, which are streamed by the StreamingLevelReader,
+ * or from their compiled form (see BinaryLevelFormat), which is preferred if the level source provides it.
+ * Rules for a level:<br/>
+ * NextLevelPoint > TeleportPoint > BorderPoint > DynamicPoint<br/>
+ * Consequently, NextLevelPoint and TeleportPoint secure mHero point
+ * The number of the steps of an enemy point must be in x and y direction equal.
+ * Neither a static point nor a dynamic point are allowed to go out of the field.
+ * After all steps of an enemy point, it must be at its start position.
+ * The destination of a teleport point must not have a border point.
+ * The start position of the mHero point must not have a border point.
+ * <p/>
+ * A level can be correct, but maybe it cannot make sense or are to difficult, please test every level.
+ *
+ * @author Stefan Constantin
+ */
+class Level {
+
+    protected static final String JSON_HEROPOINT_ID = "Heropoint";
+    protected static final String JSON_NEXTLEVELPOINTS_ID = "Nextlevelpoints";
+    protected static final String JSON_BORDERPOINTS_ID = "Borderpoints";
+    protected static final String JSON_TELEPORTPOINTS_ID = "Teleportpoints";
+    protected static final String JSON_ENEMYPOINTS_ID = "Enemypoints";
+
+    protected static final String JSON_X_AXIS_ID = "x";
+    protected static final String JSON_Y_AXIS_ID = "y";
+    protected static final String JSON_X_AXIS_STEP_ID = "stepX";
+    protected static final String JSON_Y_AXIS_STEP_ID = "stepY";
+    protected static final String JSON_X_AXIS_DESTINATION_ID = "destinationX";
+    protected static final String JSON_Y_AXIS_DESTINATION_ID = "destinationY";
+    protected static final String JSON_X_AXIS_START_ID = "startX";
+    protected static final String JSON_Y_AXIS_START_ID = "startY";
+    protected static final String JSON_STEP_INTERVAL_ID = "stepInterval";
+
+    private static final Charset JSON_CHARSET = Charset.forName("UTF-8");
+
+    private int mLevelNumber;
+    private LevelSource mLevelSource;
+    private Game mGame;
+    private int mDifficulty;
+
+    private boolean mEnd = false;
+
+    private CellLayers mCells;
+    private HeroPoint mHero;
+    private List<EnemyPoint> mDynamicPoints = new ArrayList<EnemyPoint>();
+    private List<int[]> mTeleportDestinations = new ArrayList<int[]>();
+
+
+    protected Level(int levelNumber, LevelSource levelSource, Game game, int difficulty)
+            throws InvalidLevelException, IOException {
+        this(game, difficulty);
+        this.mLevelNumber = levelNumber;
+        this.mLevelSource = levelSource;
+
+        if (!readCompiledLevel(false)) {
+            InputStream inputStream = openJSONFile();
+
+            if (inputStream != null) {
+                readJSON(inputStream);
+            }
+        }
+    }
+
+    private Level(Game game, int difficulty) {
+        this.mGame = game;
+        this.mDifficulty = difficulty;
+
+        mCells = new CellLayers(GameConstants.WIDTH, GameConstants.HEIGHT);
+    }
+
+    /**
+     * Creates a level from its parts, it is used by the LevelTemplate.
+     */
+    protected Level(Game game, int difficulty, boolean end, CellLayers cells, HeroPoint hero, EnemyPoint[] enemies) {
+        this.mGame = game;
+        this.mDifficulty = difficulty;
+        this.mEnd = end;
+        this.mCells = cells;
+        this.mHero = hero;
+        mDynamicPoints.addAll(Arrays.asList(enemies));
+    }
+
+    /**
+     * Reads a level or creates it from the cache.
+     *
+     * @param levelCache The cache of the levels or null if the level is always read.
+     */
+    protected static Level load(int levelNumber, LevelSource levelSource, Game game, int difficulty,
+                                LevelCache levelCache) throws InvalidLevelException, IOException {
+        if (levelCache == null) {
+            return new Level(levelNumber, levelSource, game, difficulty);
+        }
+        return levelCache.load(levelNumber, levelSource, game, difficulty);
+    }
+
+    /**
+     * Reads and validates a level from its JSON file, it is used by the LevelCompiler.
+     *
+     * @param inputStream The content of the JSON file, it is closed.
+     * @param end         true if it is the level, which is displayed after the last level.
+     * @return The level with the difficulty 0 and without a game.
+     */
+    protected static Level fromJSON(InputStream inputStream, boolean end) throws InvalidLevelException, IOException {
+        Level level = new Level(null, 0);
+        level.mEnd = end;
+        level.readJSON(inputStream);
+        return level;
+    }
+
+    /**
+     * Validates a level from its JSON file and collects every problem instead of throwing the first,
+     * it is used by the LevelLinter.
+     *
+     * @param inputStream The content of the JSON file, it is closed.
+     * @param end         true if it is the level, which is displayed after the last level.
+     * @return The problems of the level, it is empty if the level is valid.
+     * @throws IOException If the JSON file cannot be read.
+     */
+    protected static List<LevelProblem> lintJSON(InputStream inputStream, boolean end) throws IOException {
+        Level level = new Level(null, 0);
+        level.mEnd = end;
+        Reader reader = new InputStreamReader(inputStream, JSON_CHARSET);
+        try {
+            return StreamingLevelReader.lint(reader, level);
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    protected EnemyPoint[] getDynamicPoints() {
+        return mDynamicPoints.toArray(new EnemyPoint[mDynamicPoints.size()]);
+    }
+
+    protected CellLayers getCells() {
+        return mCells;
+    }
+
+    protected HeroPoint getHero() {
+        return mHero;
+    }
+
+    /**
+     * @return true if it is the level, which is displayed after the last level.
+     */
+    protected boolean isEnd() {
+        return mEnd;
+    }
+
+    protected int getDifficulty() {
+        return mDifficulty;
+    }
+
+    /**
+     * @return The factor, by which the step intervals of the enemy points are multiplied in this difficulty.
+     */
+    protected int getStepIntervalFactor() {
+        return 2 * (mDifficulty + 1);
+    }
+
+    /**
+     * Reads the compiled form of the level if the level source provides it.
+     *
+     * @param end true if the level, which is displayed after the last level, is read.
+     * @return false if there is no compiled form, then the JSON file has to be read.
+     */
+    private boolean readCompiledLevel(boolean end) throws InvalidLevelException, IOException {
+        if (!(mLevelSource instanceof CompiledLevelSource)) {
+            return false;
+        }
+        CompiledLevelSource compiledLevelSource = (CompiledLevelSource) mLevelSource;
+
+        ByteBuffer compiledLevel;
+        try {
+            compiledLevel = end ? compiledLevelSource.getCompiledEnd()
+                    : compiledLevelSource.getCompiledLevel(mLevelNumber);
+        } catch (FileNotFoundException e) {
+            return false;
+        }
+
+        mEnd = end;
+        BinaryLevelFormat.read(compiledLevel, this);
+        return true;
+    }
+
+    /**
+     * Opens the JSON file of the level or, if it does not exist, the level, which is displayed after the last level.
+     *
+     * @return null if the compiled form of the level after the last level is read instead.
+     */
+    private InputStream openJSONFile() throws InvalidLevelException, IOException {
+        try {
+            return mLevelSource.openLevel(mLevelNumber);
+        } catch (FileNotFoundException e) {
+            if (readCompiledLevel(true)) {
+                return null;
+            }
+            InputStream inputStream = mLevelSource.openEnd();
+            mEnd = true;
+            return inputStream;
+        }
+    }
+
+    private void readJSON(InputStream inputStream) throws InvalidLevelException, IOException {
+        Reader reader = null;
+        try {
+            reader = new InputStreamReader(inputStream, JSON_CHARSET);
+            StreamingLevelReader.read(reader, this);
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+            }
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    protected void setHero(int x, int y, int stepX, int stepY) throws InvalidLevelException {
+        if (!staticCheck(x, y)) {
+            throw new InvalidLevelException(GameConstants.ERROR_HERO_POSITION);
+        }
+
+        mHero = new HeroPoint(x, y, stepX, stepY, mGame);
+    }
+
+    protected void addNextLevelPoint(int x, int y) throws InvalidLevelException {
+        if (!staticCheck(x, y)) {
+            throw new InvalidLevelException(GameConstants.ERROR_NEXT_POSITION);
+        }
+
+        mCells.set(CellLayers.NEXT_LEVEL, x, y);
+    }
+
+    protected void addTeleportPoint(int x, int y, int destinationX, int destinationY) throws InvalidLevelException {
+        if (!staticCheck(x, y) || !staticCheck(destinationX, destinationY)) {
+            throw new InvalidLevelException(GameConstants.ERROR_TELEPORT_POSITION);
+        }
+
+        mCells.addTeleport(x, y, destinationX, destinationY);
+        mTeleportDestinations.add(new int[]{destinationX, destinationY});
+    }
+
+    protected void addBorderPoint(int x, int y) throws InvalidLevelException {
+        if (!staticCheck(x, y)) {
+            throw new InvalidLevelException(GameConstants.ERROR_BORDER_POSITION);
+        }
+
+        mCells.set(CellLayers.BORDER, x, y);
+    }
+
+    /**
+     * Checks the teleport destinations and the hero point, it has to be called after all static points are added.
+     */
+    protected void checkStaticPoints() throws InvalidLevelException {
+        if (!checkTeleportDestination()) {
+            throw new InvalidLevelException(GameConstants.ERROR_TELEPORT_POSITION);
+        }
+
+        if (!checkHero()) {
+            throw new InvalidLevelException(GameConstants.ERROR_HERO_POSITION);
+        }
+    }
+
+    /**
+     * Adds an enemy point.
+     *
+     * @param stepInterval The step interval of the level file, it is multiplied by getStepIntervalFactor().
+     */
+    protected void addEnemyPoint(int startX, int startY, int[] stepX, int[] stepY, int stepInterval)
+            throws InvalidLevelException {
+        if (stepX.length != stepY.length || !dynamicCheck(startX, startY, stepX, stepY)) {
+            throw new InvalidLevelException(GameConstants.ERROR_ENEMIES_POSITION);
+        }
+
+        EnemyPoint enemyPoint = new EnemyPoint(startX, startY, stepX, stepY, stepInterval * getStepIntervalFactor());
+        mDynamicPoints.add(enemyPoint);
+        mCells.addEnemy(startX, startY);
+    }
+
+    private boolean staticCheck(int x, int y) {
+        return (x >= 0 && y >= 0 && x < GameConstants.WIDTH && y < GameConstants.HEIGHT);
+    }
+
+    private boolean dynamicCheck(int startX, int startY, int[] stepX, int[] stepY) {
+        int x = startX;
+        int y = startY;
+        for (int i = 0; i < stepX.length; i++) {
+            x += stepX[i];
+            y += stepY[i];
+            if (x < 0 || y < 0 || x >= GameConstants.WIDTH || y >= GameConstants.HEIGHT) {
+                return false;
+            }
+        }
+
+        return (x == startX && y == startY);
+    }
+
+    private boolean checkTeleportDestination() {
+        for (int[] destination : mTeleportDestinations) {
+            if (mCells.has(CellLayers.BORDER, destination[0], destination[1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean checkHero() {
+        return !mCells.has(CellLayers.BORDER, mHero.getX(), mHero.getY());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,192 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents a cache of read and validated levels, which is shared by the games of a process.
+ * A level is identified by the origin and the modification time, which its CacheableLevelSource reports,
+ * its number and the difficulty. The cache holds templates up to a budget of bytes,
+ * the least recently used template is evicted first.
+ * <p/>
+ * The cache is thread-safe, levels can be read by the prefetch executor and the thread, which creates a game.
+ *
+ * @author Stefan Constantin
+ */
+public final class LevelCache {
+
+    private static final class Key {
+        private String mOrigin;
+        private int mLevelNumber;
+        private long mModificationTime;
+        private int mDifficulty;
+
+        Key(String origin, int levelNumber, long modificationTime, int difficulty) {
+            this.mOrigin = origin;
+            this.mLevelNumber = levelNumber;
+            this.mModificationTime = modificationTime;
+            this.mDifficulty = difficulty;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) object;
+            return mOrigin.equals(key.mOrigin) && mLevelNumber == key.mLevelNumber
+                    && mModificationTime == key.mModificationTime && mDifficulty == key.mDifficulty;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = mOrigin.hashCode();
+            hash = 31 * hash + mLevelNumber;
+            hash = 31 * hash + (int) (mModificationTime ^ (mModificationTime >>> 32));
+            return 31 * hash + mDifficulty;
+        }
+    }
+
+    private long mMaxBytes;
+    private long mBytes = 0;
+    // access order, the first entry is the least recently used one
+    private LinkedHashMap<Key, LevelTemplate> mTemplates = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long mHits = 0;
+    private long mMisses = 0;
+    private long mEvictions = 0;
+
+
+    /**
+     * Creates a new level cache.
+     *
+     * @param maxBytes The budget of the estimated bytes of the cached levels, a larger level is not cached.
+     */
+    public LevelCache(long maxBytes) {
+        this.mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Reads a level or creates it from its cached template.
+     *
+     * @param levelNumber The number of the level.
+     * @param levelSource The source of the levels, only a CacheableLevelSource is cached.
+     * @param game        The game of the level.
+     * @param difficulty  The difficulty of the game.
+     * @return A new level, which can be played.
+     * @throws InvalidLevelException If the level is invalid, invalid levels are not cached.
+     * @throws IOException           If the level cannot be read.
+     */
+    protected Level load(int levelNumber, LevelSource levelSource, Game game, int difficulty)
+            throws InvalidLevelException, IOException {
+        if (!(levelSource instanceof CacheableLevelSource)) {
+            return new Level(levelNumber, levelSource, game, difficulty);
+        }
+        CacheableLevelSource cacheableLevelSource = (CacheableLevelSource) levelSource;
+        String origin = cacheableLevelSource.getLevelOrigin(levelNumber);
+        if (origin == null) {
+            return new Level(levelNumber, levelSource, game, difficulty);
+        }
+
+        Key key = new Key(origin, levelNumber, cacheableLevelSource.getLevelModificationTime(levelNumber), difficulty);
+        LevelTemplate template = get(key);
+        if (template != null) {
+            return template.instantiate(game);
+        }
+
+        Level level = new Level(levelNumber, levelSource, game, difficulty);
+        put(key, new LevelTemplate(level));
+        return level;
+    }
+
+    private synchronized LevelTemplate get(Key key) {
+        LevelTemplate template = mTemplates.get(key);
+        if (template != null) {
+            mHits++;
+        } else {
+            mMisses++;
+        }
+        return template;
+    }
+
+    private synchronized void put(Key key, LevelTemplate template) {
+        if (template.getEstimatedBytes() > mMaxBytes) {
+            return;
+        }
+
+        LevelTemplate replaced = mTemplates.put(key, template);
+        if (replaced != null) {
+            mBytes -= replaced.getEstimatedBytes();
+        }
+        mBytes += template.getEstimatedBytes();
+
+        Iterator<Map.Entry<Key, LevelTemplate>> iterator = mTemplates.entrySet().iterator();
+        while (mBytes > mMaxBytes) {
+            mBytes -= iterator.next().getValue().getEstimatedBytes();
+            iterator.remove();
+            mEvictions++;
+        }
+    }
+
+    /**
+     * Removes all levels, the statistics are kept.
+     */
+    public synchronized void clear() {
+        mTemplates.clear();
+        mBytes = 0;
+    }
+
+    /**
+     * @return The number of levels, which were created from a cached template.
+     */
+    public synchronized long getHits() {
+        return mHits;
+    }
+
+    /**
+     * @return The number of levels, which were read, because they were not cached.
+     */
+    public synchronized long getMisses() {
+        return mMisses;
+    }
+
+    /**
+     * @return The number of templates, which were removed to stay within the budget.
+     */
+    public synchronized long getEvictions() {
+        return mEvictions;
+    }
+
+    /**
+     * @return The estimated bytes of the cached templates.
+     */
+    public synchronized long getBytes() {
+        return mBytes;
+    }
+
+    /**
+     * @return The number of cached templates.
+     */
+    public synchronized int getSize() {
+        return mTemplates.size();
+    }
+}
@@ -0,0 +1,117 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Represents the compiler, which validates the JSON files of the levels and compiles them into
+ * the BinaryLevelFormat and a LevelPack. The build runs it for the levels in the assets of the app.
+ * <p/>
+ * Usage: LevelCompiler sourceDirectory packFile
+ *
+ * @author Stefan Constantin
+ */
+public final class LevelCompiler {
+
+    private LevelCompiler() {
+    }
+
+    /**
+     * Compiles a level.
+     *
+     * @param jsonFile The JSON file of the level.
+     * @param end      true if it is the level, which is displayed after the last level.
+     * @return The compiled level.
+     * @throws InvalidLevelException If the level is invalid, the message contains the name of the file.
+     * @throws IOException           If the JSON file cannot be read.
+     */
+    public static byte[] compile(File jsonFile, boolean end) throws InvalidLevelException, IOException {
+        try {
+            Level level = Level.fromJSON(new FileInputStream(jsonFile), end);
+            ByteArrayOutputStream compiledLevel = new ByteArrayOutputStream();
+            BinaryLevelFormat.write(level, compiledLevel);
+            return compiledLevel.toByteArray();
+        } catch (InvalidLevelException e) {
+            throw new InvalidLevelException(jsonFile.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compiles the levels 1, 2, ... (up to the first missing number) and the end level of a directory
+     * into a LevelPack.
+     *
+     * @param sourceDirectory The directory, which contains the JSON files.
+     * @param packFile        The level pack file, which is written.
+     * @return The number of compiled levels without the end level.
+     * @throws InvalidLevelException If a level is invalid, the message contains the name of the file.
+     * @throws IOException           If a file cannot be read or written.
+     */
+    public static int compileDirectory(File sourceDirectory, File packFile) throws InvalidLevelException, IOException {
+        File packDirectory = packFile.getAbsoluteFile().getParentFile();
+        if (!packDirectory.isDirectory() && !packDirectory.mkdirs()) {
+            throw new IOException("cannot create " + packDirectory);
+        }
+
+        List<byte[]> compiledLevels = new ArrayList<>();
+        for (int levelNumber = 1; ; levelNumber++) {
+            File jsonFile = new File(sourceDirectory, GameConstants.LEVEL_FILE_NAME_PREFIX + levelNumber
+                    + GameConstants.LEVEL_FILE_EXTENSION);
+            if (!jsonFile.isFile()) {
+                break;
+            }
+            compiledLevels.add(compileFile(jsonFile, false));
+        }
+        byte[] compiledEnd = compileFile(new File(sourceDirectory, GameConstants.END_LEVEL_FILE_NAME), true);
+
+        OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(packFile));
+        try {
+            LevelPack.write(compiledLevels.toArray(new byte[compiledLevels.size()][]), compiledEnd, outputStream);
+        } finally {
+            outputStream.close();
+        }
+        System.out.println(String.format(Locale.ENGLISH, "%s: %d levels, %d bytes", packFile.getName(),
+                compiledLevels.size(), packFile.length()));
+        return compiledLevels.size();
+    }
+
+    private static byte[] compileFile(File jsonFile, boolean end) throws InvalidLevelException, IOException {
+        byte[] compiledLevel = compile(jsonFile, end);
+        System.out.println(String.format(Locale.ENGLISH, "%s: %d bytes -> %d bytes", jsonFile.getName(),
+                jsonFile.length(), compiledLevel.length));
+        return compiledLevel;
+    }
+
+    public static void main(String[] args) throws InvalidLevelException, IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: LevelCompiler sourceDirectory packFile");
+            System.exit(1);
+        }
+
+        compileDirectory(new File(args[0]), new File(args[1]));
+    }
+}
@@ -0,0 +1,187 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Represents the linter, which validates all JSON files of the levels in a directory and its subdirectories
+ * in parallel (fork/join) and reports every problem of every file with its location, e.g.
+ * "Level7.json:12: JSON_ERROR_BORDER_POSITION Borderpoints[3]". The file with the name
+ * GameConstants.END_LEVEL_FILE_NAME is validated as end level.
+ * <p/>
+ * Usage: LevelLinter levelDirectory [parallelism]
+ *
+ * @author Stefan Constantin
+ */
+public final class LevelLinter {
+
+    // the number of files, which a task validates without splitting them into further tasks
+    private static final int FILES_PER_TASK = 16;
+
+    private File[] mFiles;
+    // the problems of every file, each task sets the elements of its files
+    private AtomicReferenceArray<List<LevelProblem>> mProblems;
+
+
+    private LevelLinter(File[] files) {
+        this.mFiles = files;
+        this.mProblems = new AtomicReferenceArray<List<LevelProblem>>(files.length);
+    }
+
+    /**
+     * Validates a level.
+     *
+     * @param jsonFile The JSON file of the level.
+     * @param end      true if it is the level, which is displayed after the last level.
+     * @return The problems of the level, it is empty if the level is valid, a file, which cannot be read,
+     * has the problem GameConstants.ERROR_IO.
+     */
+    public static List<LevelProblem> lint(File jsonFile, boolean end) {
+        try {
+            return Level.lintJSON(new FileInputStream(jsonFile), end);
+        } catch (IOException e) {
+            return Collections.singletonList(new LevelProblem(GameConstants.ERROR_IO, null, -1, -1));
+        }
+    }
+
+    /**
+     * Validates all JSON files of a directory and its subdirectories and prints every problem and statistics
+     * of the throughput.
+     *
+     * @param directory   The directory, which contains the JSON files.
+     * @param parallelism The number of threads, which validate the files.
+     * @param out         The stream, to which the problems and the statistics are printed.
+     * @return The number of problems of all files.
+     * @throws IOException If the directory cannot be listed.
+     */
+    public static int lintDirectory(File directory, int parallelism, PrintStream out) throws IOException {
+        List<File> fileList = new ArrayList<>();
+        listJSONFiles(directory, fileList);
+        File[] files = fileList.toArray(new File[fileList.size()]);
+        Arrays.sort(files);
+        long bytes = 0;
+        for (File file : files) {
+            bytes += file.length();
+        }
+
+        LevelLinter levelLinter = new LevelLinter(files);
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(levelLinter.new LintTask(0, files.length));
+        } finally {
+            pool.shutdown();
+        }
+        long nanos = Math.max(System.nanoTime() - start, 1);
+
+        int problems = 0;
+        int invalidFiles = 0;
+        for (int i = 0; i < files.length; i++) {
+            if (!levelLinter.mProblems.get(i).isEmpty()) {
+                invalidFiles++;
+            }
+            for (LevelProblem problem : levelLinter.mProblems.get(i)) {
+                problems++;
+                out.println(format(files[i], directory, problem));
+            }
+        }
+
+        double seconds = nanos / 1e9;
+        out.println(String.format(Locale.ENGLISH,
+                "%d files (%d invalid), %d problems, %d bytes in %.1f ms with %d threads: %.0f files/s, %.1f MB/s",
+                files.length, invalidFiles, problems, bytes, nanos / 1e6, parallelism, files.length / seconds,
+                bytes / seconds / (1024 * 1024)));
+        return problems;
+    }
+
+    private static void listJSONFiles(File directory, List<File> files) throws IOException {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            throw new IOException("cannot list " + directory);
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                listJSONFiles(child, files);
+            } else if (child.getName().endsWith(GameConstants.LEVEL_FILE_EXTENSION)) {
+                files.add(child);
+            }
+        }
+    }
+
+    private static String format(File file, File directory, LevelProblem problem) {
+        String path = file.getPath().substring(directory.getPath().length() + 1);
+        if (problem.getLineNumber() < 0) {
+            return path + ": " + problem;
+        }
+        return path + ":" + problem.getLineNumber() + ": " + problem;
+    }
+
+    /**
+     * Represents the validation of a range of the files, it is split until a task has at most FILES_PER_TASK files.
+     */
+    private class LintTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private int mFrom;
+        private int mTo;
+
+
+        private LintTask(int from, int to) {
+            this.mFrom = from;
+            this.mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom <= FILES_PER_TASK) {
+                for (int i = mFrom; i < mTo; i++) {
+                    mProblems.set(i, lint(mFiles[i], mFiles[i].getName().equals(GameConstants.END_LEVEL_FILE_NAME)));
+                }
+                return;
+            }
+
+            int middle = (mFrom + mTo) >>> 1;
+            invokeAll(new LintTask(mFrom, middle), new LintTask(middle, mTo));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: LevelLinter levelDirectory [parallelism]");
+            System.exit(1);
+        }
+
+        int parallelism = args.length == 2 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        if (lintDirectory(new File(args[0]), parallelism, System.out) > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Represents a level pack: one file, which contains the compiled form of many levels (see BinaryLevelFormat).
+ * The file is memory-mapped, a level is found by one lookup in the index, so loading a level opens no file.
+ * <p/>
+ * All numbers are big endian:<br/>
+ * header: magic "MTMP" (4 bytes), version (1 byte), reserved (1 byte), number of levels N (2 bytes)<br/>
+ * index: N + 1 entries, offset and length of a compiled level (4 bytes each) relative to the beginning
+ * of the pack, the first entry is the level, which is displayed after the last level, then the levels 1 to N<br/>
+ * data: the compiled levels
+ * <p/>
+ * A level pack has no JSON files, so openLevel and openEnd throw FileNotFoundException.
+ *
+ * @author Stefan Constantin
+ */
+public final class LevelPack implements CompiledLevelSource {
+
+    protected static final int MAGIC = 0x4D544D50; // "MTMP"
+    protected static final byte VERSION = 1;
+
+    private static final int HEADER_LENGTH = 8;
+    private static final int INDEX_ENTRY_LENGTH = 8;
+
+    private ByteBuffer mBuffer;
+    private int mNumberOfLevels;
+
+
+    /**
+     * Creates a new level pack and checks its index.
+     *
+     * @param buffer The level pack from its position to its limit, the buffer must not be modified.
+     * @throws InvalidLevelException If the header or the index is invalid.
+     */
+    public LevelPack(ByteBuffer buffer) throws InvalidLevelException {
+        this.mBuffer = buffer.slice();
+
+        if (mBuffer.remaining() < HEADER_LENGTH || mBuffer.getInt(0) != MAGIC || mBuffer.get(4) != VERSION) {
+            throw new InvalidLevelException(GameConstants.ERROR_COMPILED_LEVEL);
+        }
+        mNumberOfLevels = mBuffer.getShort(6) & 0xFFFF;
+
+        int indexEnd = HEADER_LENGTH + (mNumberOfLevels + 1) * INDEX_ENTRY_LENGTH;
+        if (mBuffer.limit() < indexEnd) {
+            throw new InvalidLevelException(GameConstants.ERROR_COMPILED_LEVEL);
+        }
+        for (int entry = 0; entry <= mNumberOfLevels; entry++) {
+            long offset = mBuffer.getInt(HEADER_LENGTH + entry * INDEX_ENTRY_LENGTH) & 0xFFFFFFFFL;
+            long length = mBuffer.getInt(HEADER_LENGTH + entry * INDEX_ENTRY_LENGTH + 4) & 0xFFFFFFFFL;
+            if (offset < indexEnd || offset + length > mBuffer.limit()) {
+                throw new InvalidLevelException(GameConstants.ERROR_COMPILED_LEVEL);
+            }
+        }
+    }
+
+    /**
+     * Maps a level pack file.
+     *
+     * @param file The level pack file.
+     * @return The level pack.
+     * @throws InvalidLevelException If the header or the index is invalid.
+     * @throws IOException           If the file cannot be mapped.
+     */
+    public static LevelPack open(File file) throws InvalidLevelException, IOException {
+        return open(new FileInputStream(file), 0, file.length());
+    }
+
+    /**
+     * Maps a level pack, which is a part of a file (e.g. an uncompressed asset of an Android app).
+     *
+     * @param inputStream The file, it is closed, the mapping stays valid.
+     * @param offset      The position of the level pack in the file.
+     * @param length      The length of the level pack.
+     * @return The level pack.
+     * @throws InvalidLevelException If the header or the index is invalid.
+     * @throws IOException           If the file cannot be mapped.
+     */
+    public static LevelPack open(FileInputStream inputStream, long offset, long length)
+            throws InvalidLevelException, IOException {
+        try {
+            return new LevelPack(inputStream.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, length));
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    /**
+     * Writes a level pack.
+     *
+     * @param compiledLevels The compiled levels 1 to N.
+     * @param compiledEnd    The compiled level, which is displayed after the last level.
+     * @param outputStream   The destination, it is flushed, but not closed.
+     * @throws IOException If the destination cannot be written.
+     */
+    public static void write(byte[][] compiledLevels, byte[] compiledEnd, OutputStream outputStream)
+            throws IOException {
+        if (compiledLevels.length > 0xFFFF) {
+            throw new IllegalArgumentException("too many levels: " + compiledLevels.length);
+        }
+
+        ByteBuffer index = ByteBuffer.allocate(HEADER_LENGTH + (compiledLevels.length + 1) * INDEX_ENTRY_LENGTH);
+        index.putInt(MAGIC);
+        index.put(VERSION);
+        index.put((byte) 0);
+        index.putShort((short) compiledLevels.length);
+
+        int offset = index.capacity();
+        index.putInt(offset).putInt(compiledEnd.length);
+        offset += compiledEnd.length;
+        for (byte[] compiledLevel : compiledLevels) {
+            index.putInt(offset).putInt(compiledLevel.length);
+            offset += compiledLevel.length;
+        }
+
+        outputStream.write(index.array());
+        outputStream.write(compiledEnd);
+        for (byte[] compiledLevel : compiledLevels) {
+            outputStream.write(compiledLevel);
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * @return The number of levels without the level, which is displayed after the last level.
+     */
+    public int getNumberOfLevels() {
+        return mNumberOfLevels;
+    }
+
+    private ByteBuffer getEntry(int entry) {
+        int offset = mBuffer.getInt(HEADER_LENGTH + entry * INDEX_ENTRY_LENGTH);
+        int length = mBuffer.getInt(HEADER_LENGTH + entry * INDEX_ENTRY_LENGTH + 4);
+
+        ByteBuffer level = mBuffer.duplicate();
+        level.limit(offset + length);
+        level.position(offset);
+        return level.slice();
+    }
+
+    @Override
+    public ByteBuffer getCompiledLevel(int levelNumber) throws FileNotFoundException {
+        if (levelNumber < 1 || levelNumber > mNumberOfLevels) {
+            throw new FileNotFoundException(GameConstants.LEVEL_FILE_NAME_PREFIX + levelNumber);
+        }
+        return getEntry(levelNumber);
+    }
+
+    @Override
+    public ByteBuffer getCompiledEnd() {
+        return getEntry(0);
+    }
+
+    @Override
+    public InputStream openLevel(int levelNumber) throws IOException {
+        throw new FileNotFoundException(GameConstants.LEVEL_FILE_NAME_PREFIX + levelNumber);
+    }
+
+    @Override
+    public InputStream openEnd() throws IOException {
+        throw new FileNotFoundException(GameConstants.END_LEVEL_FILE_NAME);
+    }
+}
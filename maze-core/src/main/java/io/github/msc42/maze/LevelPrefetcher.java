@@ -0,0 +1,179 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Represents the prefetcher, which reads and validates the next level on an executor while the current level
+ * is played, so that the transition to the next level is only a swap of references.
+ * Only one level is prefetched at a time and a level, which is not the prefetched one, is read only after the
+ * prefetch is finished, so the level source is never used by two threads at the same time.
+ * <p/>
+ * Without an executor the level is read when it is needed, then every transition is late.
+ *
+ * @author Stefan Constantin
+ */
+final class LevelPrefetcher {
+
+    private Executor mExecutor;
+    private LevelSource mLevelSource;
+    private Game mGame;
+    private int mDifficulty;
+    private LevelCache mLevelCache;
+
+    private FutureTask<Level> mPrefetch;
+    private int mPrefetchedLevelNumber;
+
+    // written only by the game thread, read by metrics
+    private volatile long mTransitions = 0;
+    private volatile long mLateTransitions = 0;
+    private volatile long mWaitNanos = 0;
+
+
+    /**
+     * Creates a new level prefetcher.
+     *
+     * @param executor    The executor, which reads the levels, or null if the levels are read when they are needed.
+     * @param levelSource The source of the levels.
+     * @param game        The game of the levels.
+     * @param difficulty  The difficulty of the game.
+     * @param levelCache  The cache of the levels or null.
+     */
+    protected LevelPrefetcher(Executor executor, LevelSource levelSource, Game game, int difficulty,
+                              LevelCache levelCache) {
+        this.mExecutor = executor;
+        this.mLevelSource = levelSource;
+        this.mGame = game;
+        this.mDifficulty = difficulty;
+        this.mLevelCache = levelCache;
+    }
+
+    /**
+     * Starts to read a level in the background.
+     *
+     * @param levelNumber The number of the level, which is needed next.
+     */
+    protected void prefetch(final int levelNumber) {
+        if (mExecutor == null) {
+            return;
+        }
+
+        mPrefetch = new FutureTask<>(new Callable<Level>() {
+            @Override
+            public Level call() throws InvalidLevelException, IOException {
+                return Level.load(levelNumber, mLevelSource, mGame, mDifficulty, mLevelCache);
+            }
+        });
+        mPrefetchedLevelNumber = levelNumber;
+        mExecutor.execute(mPrefetch);
+    }
+
+    /**
+     * Returns a level, it waits if the level is not prefetched yet.
+     *
+     * @param levelNumber The number of the level.
+     * @return The level.
+     * @throws InvalidLevelException If the level is invalid.
+     * @throws IOException           If the level cannot be read or the waiting thread is interrupted.
+     */
+    protected Level take(int levelNumber) throws InvalidLevelException, IOException {
+        long timeStart = System.nanoTime();
+        FutureTask<Level> prefetch = mPrefetch;
+        mPrefetch = null;
+
+        boolean late;
+        Level level;
+        if (prefetch != null && mPrefetchedLevelNumber == levelNumber) {
+            late = !prefetch.isDone();
+            level = get(prefetch);
+        } else {
+            if (prefetch != null) {
+                awaitStale(prefetch);
+            }
+            late = true;
+            level = Level.load(levelNumber, mLevelSource, mGame, mDifficulty, mLevelCache);
+        }
+
+        mTransitions++;
+        if (late) {
+            mLateTransitions++;
+            mWaitNanos += System.nanoTime() - timeStart;
+        }
+        return level;
+    }
+
+    private static void awaitStale(FutureTask<Level> prefetch) throws IOException {
+        try {
+            prefetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            // the level of a stale prefetch is not needed, so its failure is not relevant
+        }
+    }
+
+    private static Level get(FutureTask<Level> prefetch) throws InvalidLevelException, IOException {
+        try {
+            return prefetch.get();
+        } catch (InterruptedException e) {
+            prefetch.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InvalidLevelException) {
+                throw (InvalidLevelException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * @return The number of transitions to a next level.
+     */
+    protected long getTransitions() {
+        return mTransitions;
+    }
+
+    /**
+     * @return The number of transitions, for which the next level was not prefetched in time.
+     */
+    protected long getLateTransitions() {
+        return mLateTransitions;
+    }
+
+    /**
+     * @return The sum of the times in nanoseconds, which the late transitions waited for their level.
+     */
+    protected long getWaitNanos() {
+        return mWaitNanos;
+    }
+}
@@ -0,0 +1,78 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+/**
+ * Represents a problem of a level file, which is found by the LevelLinter.
+ *
+ * @author Stefan Constantin
+ */
+public final class LevelProblem {
+
+    private String mError;
+    private String mSection;
+    private int mIndex;
+    private int mLineNumber;
+
+
+    /**
+     * Creates a new level problem.
+     *
+     * @param error      The error, one of the errors of GameConstants, e.g. GameConstants.ERROR_BORDER_POSITION.
+     * @param section    The name of the section of the JSON file, e.g. "Borderpoints", or null for the whole file.
+     * @param index      The index of the point in the section or -1 if the problem concerns the whole section.
+     * @param lineNumber The line of the JSON file, where the problem is found, or -1 if it is unknown.
+     */
+    public LevelProblem(String error, String section, int index, int lineNumber) {
+        this.mError = error;
+        this.mSection = section;
+        this.mIndex = index;
+        this.mLineNumber = lineNumber;
+    }
+
+    public String getError() {
+        return mError;
+    }
+
+    public String getSection() {
+        return mSection;
+    }
+
+    public int getIndex() {
+        return mIndex;
+    }
+
+    public int getLineNumber() {
+        return mLineNumber;
+    }
+
+    /**
+     * @return The error and the point, e.g. "JSON_ERROR_BORDER_POSITION Borderpoints[3]", without the line.
+     */
+    @Override
+    public String toString() {
+        StringBuilder problem = new StringBuilder(mError);
+        if (mSection != null) {
+            problem.append(' ').append(mSection);
+            if (mIndex >= 0) {
+                problem.append('[').append(mIndex).append(']');
+            }
+        }
+        return problem.toString();
+    }
+}
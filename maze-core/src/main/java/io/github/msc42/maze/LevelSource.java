@@ -0,0 +1,50 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Represents a source of level files.
+ * The game asks it for the JSON file of every level it loads, so the game engine does not depend
+ * on where the levels are stored.
+ *
+ * @author Stefan Constantin
+ */
+public interface LevelSource {
+
+    /**
+     * Opens the JSON file of a level.
+     *
+     * @param levelNumber The number of the level, starting with 1.
+     * @return The content of the JSON file, the caller closes the stream.
+     * @throws FileNotFoundException If there is no level with this number.
+     * @throws IOException           If the level exists, but cannot be read.
+     */
+    InputStream openLevel(int levelNumber) throws IOException;
+
+    /**
+     * Opens the JSON file of the level, which is displayed after the last level.
+     *
+     * @return The content of the JSON file, the caller closes the stream.
+     * @throws IOException If the level cannot be read.
+     */
+    InputStream openEnd() throws IOException;
+}
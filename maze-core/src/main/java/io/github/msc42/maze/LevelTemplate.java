@@ -0,0 +1,97 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+/**
+ * Represents the immutable result of reading and validating a level, it is kept in a LevelCache.
+ * Every game gets its own copy of the level (instantiate), because the game changes the cells and the points.
+ *
+ * @author Stefan Constantin
+ */
+final class LevelTemplate {
+
+    // object headers and references, it is only an estimation
+    private static final int OVERHEAD_BYTES = 16;
+
+    private boolean mEnd;
+    private int mDifficulty;
+    private CellLayers mCells;
+    private HeroPoint mHero;
+    private EnemyPoint[] mEnemies;
+    private long mEstimatedBytes;
+
+
+    /**
+     * Creates a new level template.
+     *
+     * @param level A level, which is read, but not played yet.
+     */
+    protected LevelTemplate(Level level) {
+        mEnd = level.isEnd();
+        mDifficulty = level.getDifficulty();
+        // the points of the level are copied, because they are played
+        mCells = new CellLayers(level.getCells());
+        mHero = copy(level.getHero(), null);
+        mEnemies = copy(level.getDynamicPoints());
+
+        mEstimatedBytes = OVERHEAD_BYTES + mCells.getEstimatedBytes();
+        if (mHero != null) {
+            mEstimatedBytes += OVERHEAD_BYTES + 9 * 4;
+        }
+        for (EnemyPoint enemy : mEnemies) {
+            mEstimatedBytes += 3 * OVERHEAD_BYTES + 9 * 4 + 2 * 4 * enemy.getStepX().length;
+        }
+    }
+
+    /**
+     * @return The estimated number of bytes, which the template occupies in memory.
+     */
+    protected long getEstimatedBytes() {
+        return mEstimatedBytes;
+    }
+
+    /**
+     * Creates a level, which can be played.
+     *
+     * @param game The game of the level.
+     * @return A new level, which shares only the immutable steps of the enemy points with the template.
+     */
+    protected Level instantiate(Game game) {
+        return new Level(game, mDifficulty, mEnd, new CellLayers(mCells), copy(mHero, game), copy(mEnemies));
+    }
+
+    private static HeroPoint copy(HeroPoint hero, Game game) {
+        if (hero == null) {
+            return null;
+        }
+        return new HeroPoint(hero.getStartX(), hero.getStartY(), hero.getStepX(), hero.getStepY(), game);
+    }
+
+    /**
+     * Copies enemy points, which have not done a step yet.
+     */
+    private static EnemyPoint[] copy(EnemyPoint[] enemies) {
+        EnemyPoint[] copies = new EnemyPoint[enemies.length];
+        for (int i = 0; i < enemies.length; i++) {
+            EnemyPoint enemy = enemies[i];
+            copies[i] = new EnemyPoint(enemy.getX(), enemy.getY(), enemy.getStepX(), enemy.getStepY(),
+                    enemy.getStepInterval());
+        }
+        return copies;
+    }
+}
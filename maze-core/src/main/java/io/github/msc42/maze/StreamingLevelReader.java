@@ -0,0 +1,445 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents the streaming reader of the JSON files of the levels, it adds the points to a level while
+ * the tokens are read, so neither the file content nor a DOM is held in memory.
+ * <p/>
+ * The sections of a JSON file can be in any order, but the errors are thrown in the order,
+ * in which the DOM reader of Level checks the sections: hero point, next level points, teleport points,
+ * border points, the checks of the static points and enemy points. Therefore the first error of every section
+ * is kept until the whole file is read, a syntax error anywhere in the file is thrown with GameConstants.ERROR_JSON
+ * like with the DOM reader.
+ * <p/>
+ * The LevelLinter uses the reader to collect every error of a file with its location instead of only the first.
+ *
+ * @author Stefan Constantin
+ */
+final class StreamingLevelReader {
+
+    private static final int NEXT_LEVEL_POINTS = 0;
+    private static final int TELEPORT_POINTS = 1;
+    private static final int BORDER_POINTS = 2;
+    private static final int HERO_POINT = 3;
+    private static final int ENEMY_POINTS = 4;
+
+    private static final String[] SECTION_IDS = {Level.JSON_NEXTLEVELPOINTS_ID, Level.JSON_TELEPORTPOINTS_ID,
+            Level.JSON_BORDERPOINTS_ID, Level.JSON_HEROPOINT_ID, Level.JSON_ENEMYPOINTS_ID};
+
+    // the bit of the found values, which marks an invalid value
+    private static final int INVALID = 1 << 30;
+
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int STEP_X = 2;
+    private static final int STEP_Y = 3;
+    private static final int DESTINATION_X = 2;
+    private static final int DESTINATION_Y = 3;
+    private static final int STEP_INTERVAL = 2;
+
+    private static final String[] HERO_NAMES = {Level.JSON_X_AXIS_ID, Level.JSON_Y_AXIS_ID,
+            Level.JSON_X_AXIS_STEP_ID, Level.JSON_Y_AXIS_STEP_ID};
+    private static final String[] POINT_NAMES = {Level.JSON_X_AXIS_ID, Level.JSON_Y_AXIS_ID};
+    private static final String[] TELEPORT_NAMES = {Level.JSON_X_AXIS_ID, Level.JSON_Y_AXIS_ID,
+            Level.JSON_X_AXIS_DESTINATION_ID, Level.JSON_Y_AXIS_DESTINATION_ID};
+    private static final String[] ENEMY_NAMES = {Level.JSON_X_AXIS_START_ID, Level.JSON_Y_AXIS_START_ID,
+            Level.JSON_STEP_INTERVAL_ID};
+
+    private JsonPullReader mReader;
+    private Level mLevel;
+
+    // the first error of every section
+    private String[] mErrors = new String[SECTION_IDS.length];
+    private boolean mHasHero = false;
+    private boolean mHasNextLevelPoints = false;
+
+    private int[] mValues = new int[4];
+    private int[] mStepX = new int[16];
+    private int[] mStepY = new int[16];
+
+    // only if the file is linted: all problems, the hero point and the teleport destinations with their lines
+    private List<LevelProblem> mProblems;
+    private int[] mHeroLocation;
+    private List<int[]> mTeleportLocations;
+
+
+    private StreamingLevelReader(Reader reader, Level level, boolean lint) {
+        this.mReader = new JsonPullReader(reader);
+        this.mLevel = level;
+        if (lint) {
+            mProblems = new ArrayList<>();
+            mTeleportLocations = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Reads a JSON file and adds its points to a level.
+     *
+     * @param reader The JSON file, it is not closed.
+     * @param level  The level, which is empty, isEnd() must be set.
+     * @throws InvalidLevelException If the JSON file is malformed or breaks a rule of the levels.
+     * @throws IOException           If the JSON file cannot be read.
+     */
+    protected static void read(Reader reader, Level level) throws InvalidLevelException, IOException {
+        StreamingLevelReader levelReader = new StreamingLevelReader(reader, level, false);
+        levelReader.readSections();
+        levelReader.throwFirstError();
+    }
+
+    /**
+     * Reads a JSON file like read(Reader, Level), but it collects every error instead of throwing the first.
+     *
+     * @return The problems of the file in the order, in which they are found, it is empty if the level is valid.
+     * @throws IOException If the JSON file cannot be read.
+     */
+    protected static List<LevelProblem> lint(Reader reader, Level level) throws IOException {
+        StreamingLevelReader levelReader = new StreamingLevelReader(reader, level, true);
+        try {
+            levelReader.readSections();
+        } catch (InvalidLevelException e) {
+            // only a syntax error is thrown, the rest of the file cannot be read
+            levelReader.mProblems.add(new LevelProblem(e.getMessage(), null, -1, levelReader.mReader.getLineNumber()));
+            return levelReader.mProblems;
+        }
+        levelReader.lintStaticPoints();
+        return levelReader.mProblems;
+    }
+
+    private void readSections() throws InvalidLevelException, IOException {
+        mReader.beginObject();
+        while (mReader.hasNext()) {
+            String name = mReader.nextName();
+            if (Level.JSON_BORDERPOINTS_ID.equals(name)) {
+                readPoints(BORDER_POINTS);
+            } else if (mLevel.isEnd()) {
+                mReader.skipValue();
+            } else if (Level.JSON_HEROPOINT_ID.equals(name)) {
+                readHero();
+            } else if (Level.JSON_NEXTLEVELPOINTS_ID.equals(name)) {
+                readPoints(NEXT_LEVEL_POINTS);
+            } else if (Level.JSON_TELEPORTPOINTS_ID.equals(name)) {
+                readPoints(TELEPORT_POINTS);
+            } else if (Level.JSON_ENEMYPOINTS_ID.equals(name)) {
+                readEnemies();
+            } else {
+                mReader.skipValue();
+            }
+        }
+        mReader.endObject();
+
+        if (!mLevel.isEnd() && !mHasHero) {
+            fail(HERO_POINT, GameConstants.ERROR_HERO, -1, -1);
+        }
+        if (!mLevel.isEnd() && !mHasNextLevelPoints) {
+            fail(NEXT_LEVEL_POINTS, GameConstants.ERROR_NEXT, -1, -1);
+        }
+    }
+
+    private void throwFirstError() throws InvalidLevelException {
+        if (mLevel.isEnd()) {
+            throwIfError(mErrors[BORDER_POINTS]);
+            return;
+        }
+
+        //order is the order of the DOM reader
+        throwIfError(mErrors[HERO_POINT]);
+        throwIfError(mErrors[NEXT_LEVEL_POINTS]);
+        throwIfError(mErrors[TELEPORT_POINTS]);
+        throwIfError(mErrors[BORDER_POINTS]);
+        mLevel.checkStaticPoints();
+        throwIfError(mErrors[ENEMY_POINTS]);
+    }
+
+    /**
+     * Reports every teleport destination and the hero point on a border point like Level.checkStaticPoints().
+     */
+    private void lintStaticPoints() {
+        CellLayers cells = mLevel.getCells();
+        for (int[] teleport : mTeleportLocations) {
+            if (cells.has(CellLayers.BORDER, teleport[0], teleport[1])) {
+                fail(TELEPORT_POINTS, GameConstants.ERROR_TELEPORT_POSITION, teleport[2], teleport[3]);
+            }
+        }
+        if (mHeroLocation != null && cells.has(CellLayers.BORDER, mHeroLocation[0], mHeroLocation[1])) {
+            fail(HERO_POINT, GameConstants.ERROR_HERO_POSITION, -1, mHeroLocation[2]);
+        }
+    }
+
+    private void fail(int section, String error, int index, int lineNumber) {
+        if (mProblems != null) {
+            mProblems.add(new LevelProblem(error, SECTION_IDS[section], index, lineNumber));
+        }
+        if (mErrors[section] == null) {
+            mErrors[section] = error;
+        }
+    }
+
+    /**
+     * @return true if the rest of a section is skipped, because the section has an error and only the first
+     * error is needed.
+     */
+    private boolean hasFailed(int section) {
+        return mProblems == null && mErrors[section] != null;
+    }
+
+    private void readHero() throws InvalidLevelException, IOException {
+        mHasHero = true;
+        int lineNumber = mReader.getLineNumber();
+        if (mReader.peek() != JsonPullReader.BEGIN_OBJECT) {
+            mReader.skipValue();
+            fail(HERO_POINT, GameConstants.ERROR_HERO, -1, lineNumber);
+            return;
+        }
+
+        int found = 0;
+        mReader.beginObject();
+        while (mReader.hasNext()) {
+            found |= readValue(indexOf(mReader.nextName(), HERO_NAMES));
+        }
+        mReader.endObject();
+
+        if (!hasAll(found, 4)) {
+            fail(HERO_POINT, GameConstants.ERROR_HERO, -1, lineNumber);
+            return;
+        }
+        try {
+            mLevel.setHero(mValues[X], mValues[Y], mValues[STEP_X], mValues[STEP_Y]);
+            if (mProblems != null) {
+                mHeroLocation = new int[]{mValues[X], mValues[Y], lineNumber};
+            }
+        } catch (InvalidLevelException e) {
+            fail(HERO_POINT, e.getMessage(), -1, lineNumber);
+        }
+    }
+
+    private void readPoints(int type) throws InvalidLevelException, IOException {
+        String formatError;
+        if (type == NEXT_LEVEL_POINTS) {
+            formatError = GameConstants.ERROR_NEXT;
+            mHasNextLevelPoints = true;
+        } else if (type == TELEPORT_POINTS) {
+            formatError = GameConstants.ERROR_TELEPORT;
+        } else {
+            formatError = GameConstants.ERROR_BORDER;
+        }
+
+        if (mReader.peek() != JsonPullReader.BEGIN_ARRAY) {
+            int lineNumber = mReader.getLineNumber();
+            mReader.skipValue();
+            // only the next level points are not optional
+            if (type == NEXT_LEVEL_POINTS) {
+                fail(type, formatError, -1, lineNumber);
+            }
+            return;
+        }
+
+        mReader.beginArray();
+        for (int index = 0; mReader.hasNext(); index++) {
+            int lineNumber = mReader.getLineNumber();
+            if (hasFailed(type) || mReader.peek() != JsonPullReader.BEGIN_OBJECT) {
+                mReader.skipValue();
+                if (!hasFailed(type)) {
+                    fail(type, formatError, index, lineNumber);
+                }
+                continue;
+            }
+
+            int found = 0;
+            String[] names = type == TELEPORT_POINTS ? TELEPORT_NAMES : POINT_NAMES;
+            mReader.beginObject();
+            while (mReader.hasNext()) {
+                found |= readValue(indexOf(mReader.nextName(), names));
+            }
+            mReader.endObject();
+
+            if (!hasAll(found, names.length)) {
+                fail(type, formatError, index, lineNumber);
+                continue;
+            }
+            try {
+                if (type == NEXT_LEVEL_POINTS) {
+                    mLevel.addNextLevelPoint(mValues[X], mValues[Y]);
+                } else if (type == TELEPORT_POINTS) {
+                    mLevel.addTeleportPoint(mValues[X], mValues[Y], mValues[DESTINATION_X], mValues[DESTINATION_Y]);
+                    if (mProblems != null) {
+                        mTeleportLocations.add(new int[]{mValues[DESTINATION_X], mValues[DESTINATION_Y], index,
+                                lineNumber});
+                    }
+                } else {
+                    mLevel.addBorderPoint(mValues[X], mValues[Y]);
+                }
+            } catch (InvalidLevelException e) {
+                fail(type, e.getMessage(), index, lineNumber);
+            }
+        }
+        mReader.endArray();
+    }
+
+    private void readEnemies() throws InvalidLevelException, IOException {
+        if (mReader.peek() != JsonPullReader.BEGIN_ARRAY) {
+            // enemy points are only optional
+            mReader.skipValue();
+            return;
+        }
+
+        mReader.beginArray();
+        for (int index = 0; mReader.hasNext(); index++) {
+            int lineNumber = mReader.getLineNumber();
+            if (hasFailed(ENEMY_POINTS) || mReader.peek() != JsonPullReader.BEGIN_OBJECT) {
+                mReader.skipValue();
+                if (!hasFailed(ENEMY_POINTS)) {
+                    fail(ENEMY_POINTS, GameConstants.ERROR_ENEMIES, index, lineNumber);
+                }
+                continue;
+            }
+
+            int found = 0;
+            int stepXLength = -1;
+            int stepYLength = -1;
+            mReader.beginObject();
+            while (mReader.hasNext()) {
+                String name = mReader.nextName();
+                if (Level.JSON_X_AXIS_STEP_ID.equals(name)) {
+                    stepXLength = readSteps(true);
+                } else if (Level.JSON_Y_AXIS_STEP_ID.equals(name)) {
+                    stepYLength = readSteps(false);
+                } else {
+                    found |= readValue(indexOf(name, ENEMY_NAMES));
+                }
+            }
+            mReader.endObject();
+
+            if (!hasAll(found, ENEMY_NAMES.length) || stepXLength < 0 || stepYLength < 0) {
+                fail(ENEMY_POINTS, GameConstants.ERROR_ENEMIES, index, lineNumber);
+                continue;
+            }
+            try {
+                mLevel.addEnemyPoint(mValues[X], mValues[Y], Arrays.copyOf(mStepX, stepXLength),
+                        Arrays.copyOf(mStepY, stepYLength), mValues[STEP_INTERVAL]);
+            } catch (InvalidLevelException e) {
+                fail(ENEMY_POINTS, e.getMessage(), index, lineNumber);
+            }
+        }
+        mReader.endArray();
+    }
+
+    /**
+     * Reads the steps of an enemy point into mStepX or mStepY.
+     *
+     * @return The number of steps or -1 if the steps are not an array of integers.
+     */
+    private int readSteps(boolean xAxis) throws InvalidLevelException, IOException {
+        if (mReader.peek() != JsonPullReader.BEGIN_ARRAY) {
+            mReader.skipValue();
+            return -1;
+        }
+
+        int length = 0;
+        boolean valid = true;
+        mReader.beginArray();
+        while (mReader.hasNext()) {
+            int[] steps = xAxis ? mStepX : mStepY;
+            if (length == steps.length) {
+                steps = Arrays.copyOf(steps, 2 * length);
+                if (xAxis) {
+                    mStepX = steps;
+                } else {
+                    mStepY = steps;
+                }
+            }
+            try {
+                steps[length++] = readInt();
+            } catch (NumberFormatException e) {
+                valid = false;
+            }
+        }
+        mReader.endArray();
+        return valid ? length : -1;
+    }
+
+    /**
+     * Reads an integer into mValues.
+     *
+     * @param index The index in mValues or -1 if the value is not needed and only skipped.
+     * @return The bit of the index if the value is read, INVALID if it is needed, but it is not an integer.
+     */
+    private int readValue(int index) throws InvalidLevelException, IOException {
+        if (index < 0) {
+            mReader.skipValue();
+            return 0;
+        }
+        try {
+            mValues[index] = readInt();
+            return 1 << index;
+        } catch (NumberFormatException e) {
+            return INVALID;
+        }
+    }
+
+    /**
+     * Reads an integer like JSONObject.getInt(), so strings of integers are accepted
+     * and the fraction of numbers is cut off.
+     *
+     * @throws NumberFormatException If the value is not an integer, the value is skipped.
+     */
+    private int readInt() throws InvalidLevelException, IOException {
+        int peeked = mReader.peek();
+        if (peeked == JsonPullReader.STRING) {
+            return Integer.parseInt(mReader.nextText());
+        } else if (peeked != JsonPullReader.LITERAL) {
+            mReader.skipValue();
+            throw new NumberFormatException("no integer");
+        }
+
+        String literal = mReader.nextText();
+        char first = literal.charAt(0);
+        if ((first < '0' || first > '9') && first != '-') {
+            return Integer.parseInt(literal);
+        }
+        if (literal.indexOf('.') >= 0 || literal.indexOf('e') >= 0 || literal.indexOf('E') >= 0) {
+            return (int) Double.parseDouble(literal);
+        }
+        return (int) Long.parseLong(literal);
+    }
+
+    private static int indexOf(String name, String[] names) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hasAll(int found, int count) {
+        return found == (1 << count) - 1;
+    }
+
+    private static void throwIfError(String error) throws InvalidLevelException {
+        if (error != null) {
+            throw new InvalidLevelException(error);
+        }
+    }
+}
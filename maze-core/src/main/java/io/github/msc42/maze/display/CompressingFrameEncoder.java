@@ -0,0 +1,83 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+/**
+ * Represents an encoder, which compresses the frames of another encoder with a codec.
+ * The format of the compressed frames is described in DisplayProtocol.
+ *
+ * @author Stefan Constantin
+ */
+public final class CompressingFrameEncoder implements FrameEncoder {
+
+    protected static final int HEADER_SIZE = 3;
+
+    private FrameEncoder mFrameEncoder;
+    private FrameCodec mCodec;
+    private byte mCodecId;
+
+    private byte[] mFrame;
+
+
+    /**
+     * Creates a new compressing frame encoder.
+     *
+     * @param frameEncoder   The encoder, whose frames are compressed.
+     * @param codec          The codec.
+     * @param codecId        The id of the codec in the protocol, e.g. DisplayProtocol.CODEC_RLE.
+     * @param maxFrameLength The maximal length of a frame of the other encoder (at most 65535).
+     */
+    public CompressingFrameEncoder(FrameEncoder frameEncoder, FrameCodec codec, byte codecId, int maxFrameLength) {
+        this.mFrameEncoder = frameEncoder;
+        this.mCodec = codec;
+        this.mCodecId = codecId;
+        mFrame = new byte[HEADER_SIZE + maxFrameLength];
+    }
+
+    @Override
+    public int encode(byte[] ledMatrix) {
+        int length = mFrameEncoder.encode(ledMatrix);
+        if (length == 0) {
+            return 0;
+        }
+
+        byte[] frame = mFrameEncoder.getFrame();
+        int compressedLength = mCodec.compress(frame, length, mFrame, HEADER_SIZE, length - 1);
+        if (compressedLength < 0) {
+            mFrame[0] = DisplayProtocol.CODEC_STORED;
+            System.arraycopy(frame, 0, mFrame, HEADER_SIZE, length);
+            compressedLength = length;
+        } else {
+            mFrame[0] = mCodecId;
+        }
+        mFrame[1] = (byte) (compressedLength >>> 8);
+        mFrame[2] = (byte) compressedLength;
+
+        return HEADER_SIZE + compressedLength;
+    }
+
+    @Override
+    public byte[] getFrame() {
+        return mFrame;
+    }
+
+    @Override
+    public void reset() {
+        mFrameEncoder.reset();
+    }
+}
@@ -0,0 +1,162 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+/**
+ * Represents the encoder of the frame mode DisplayProtocol.FRAME_MODE_DELTA.
+ * It sends only the changed row spans of a frame and nothing if a frame has not changed.
+ * It sends a key frame (the whole frame) after a reset, every key frame interval frames
+ * and if the delta frame would not be smaller than the key frame.
+ * The pixels are packed with the negotiated pixel format, a pixel counts as changed
+ * only if the display shows another value.
+ *
+ * @author Stefan Constantin
+ */
+public final class DeltaFrameEncoder implements FrameEncoder {
+
+    private static final int SPAN_HEADER_SIZE = 3;
+    private static final int DELTA_HEADER_SIZE = 3;
+
+    private int mWidth;
+    private int mHeight;
+    private int mKeyFrameInterval;
+    private PixelFormat mPixelFormat;
+
+    // unchanged pixels between two changed pixels are sent if they are cheaper than a new span
+    private int mMaxGap;
+
+    private byte[] mPrevious;
+    private byte[] mFrame;
+    private int mFramesSinceKeyFrame;
+    private boolean mKeyFrameRequired = true;
+
+
+    /**
+     * Creates a new delta frame encoder, which sends one byte per pixel.
+     *
+     * @param width            The width of the display (at most 255).
+     * @param height           The height of the display (at most 255).
+     * @param keyFrameInterval The number of frames after which a key frame is sent, 0 means never.
+     */
+    public DeltaFrameEncoder(int width, int height, int keyFrameInterval) {
+        this(width, height, keyFrameInterval, PixelFormat.BYTE);
+    }
+
+    /**
+     * Creates a new delta frame encoder.
+     *
+     * @param width            The width of the display (at most 255).
+     * @param height           The height of the display (at most 255).
+     * @param keyFrameInterval The number of frames after which a key frame is sent, 0 means never.
+     * @param pixelFormat      The format of the pixels.
+     */
+    public DeltaFrameEncoder(int width, int height, int keyFrameInterval, PixelFormat pixelFormat) {
+        this.mWidth = width;
+        this.mHeight = height;
+        this.mKeyFrameInterval = keyFrameInterval;
+        this.mPixelFormat = pixelFormat;
+        mMaxGap = SPAN_HEADER_SIZE * 8 / pixelFormat.getBitsPerPixel();
+        mPrevious = new byte[width * height];
+        mFrame = new byte[1 + pixelFormat.packedLength(width * height)];
+    }
+
+    @Override
+    public int encode(byte[] ledMatrix) {
+        mFramesSinceKeyFrame++;
+        if (mKeyFrameRequired || (mKeyFrameInterval > 0 && mFramesSinceKeyFrame >= mKeyFrameInterval)) {
+            return encodeKeyFrame(ledMatrix);
+        }
+
+        int length = encodeDeltaFrame(ledMatrix);
+        if (length < 0) {
+            return encodeKeyFrame(ledMatrix);
+        }
+        return length;
+    }
+
+    @Override
+    public byte[] getFrame() {
+        return mFrame;
+    }
+
+    @Override
+    public void reset() {
+        mKeyFrameRequired = true;
+    }
+
+    private int encodeKeyFrame(byte[] ledMatrix) {
+        mFrame[0] = DisplayProtocol.FRAME_TYPE_KEY;
+        int length = 1 + mPixelFormat.pack(ledMatrix, 0, mPrevious.length, mFrame, 1);
+        for (int i = 0; i < mPrevious.length; i++) {
+            mPrevious[i] = mPixelFormat.quantize(ledMatrix[i]);
+        }
+        mFramesSinceKeyFrame = 0;
+        mKeyFrameRequired = false;
+        return length;
+    }
+
+    // returns -1 if the delta frame would not be smaller than a key frame
+    private int encodeDeltaFrame(byte[] ledMatrix) {
+        int position = DELTA_HEADER_SIZE;
+        int spans = 0;
+
+        for (int y = 0; y < mHeight; y++) {
+            int rowStart = y * mWidth;
+            int x = 0;
+            while (x < mWidth) {
+                if (mPixelFormat.quantize(ledMatrix[rowStart + x]) == mPrevious[rowStart + x]) {
+                    x++;
+                    continue;
+                }
+
+                int spanStart = x;
+                int spanEnd = x + 1;
+                for (int i = x + 1; i < mWidth && i - spanEnd <= mMaxGap; i++) {
+                    if (mPixelFormat.quantize(ledMatrix[rowStart + i]) != mPrevious[rowStart + i]) {
+                        spanEnd = i + 1;
+                    }
+                }
+
+                int spanLength = spanEnd - spanStart;
+                if (position + SPAN_HEADER_SIZE + mPixelFormat.packedLength(spanLength) >= mFrame.length) {
+                    return -1;
+                }
+
+                mFrame[position++] = (byte) spanStart;
+                mFrame[position++] = (byte) y;
+                mFrame[position++] = (byte) spanLength;
+                position += mPixelFormat.pack(ledMatrix, rowStart + spanStart, spanLength, mFrame, position);
+                for (int i = rowStart + spanStart; i < rowStart + spanEnd; i++) {
+                    mPrevious[i] = mPixelFormat.quantize(ledMatrix[i]);
+                }
+                spans++;
+
+                x = spanEnd;
+            }
+        }
+
+        if (spans == 0) {
+            return 0;
+        }
+
+        mFrame[0] = DisplayProtocol.FRAME_TYPE_DELTA;
+        mFrame[1] = (byte) (spans >>> 8);
+        mFrame[2] = (byte) spans;
+        return position;
+    }
+}
@@ -0,0 +1,125 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+/**
+ * Represents what the app learned about a display by probing it: the protocol version, which it accepted,
+ * and how long it needed after connecting. The app starts the next connections with these values instead of
+ * probing again, until they are older than a maximal age, so that a display, which got a firmware update
+ * or was not ready only once, is probed again.
+ * It is stored as a short string (see encode and decode), e.g. per address of a Bluetooth display.
+ *
+ * @author Stefan Constantin
+ */
+public final class DisplayCapabilities {
+
+    private static final String SEPARATOR = ",";
+    private static final int FIELDS = 3;
+
+    private byte mProtocolVersion;
+    private int mSettleMillis;
+    private long mProbeTime;
+
+
+    /**
+     * Creates new display capabilities.
+     *
+     * @param protocolVersion The protocol version, which the display accepted.
+     * @param settleMillis    The time in milliseconds, which the display needs after connecting until
+     *                        it reads the handshake, 0 if it is ready immediately.
+     * @param probeTime       The time (System.currentTimeMillis()), when the values were probed.
+     */
+    public DisplayCapabilities(byte protocolVersion, int settleMillis, long probeTime) {
+        this.mProtocolVersion = protocolVersion;
+        this.mSettleMillis = settleMillis;
+        this.mProbeTime = probeTime;
+    }
+
+    /**
+     * Creates the capabilities after an accepted handshake.
+     *
+     * @param handshake    The handshake after an accepted response.
+     * @param settleMillis The time, which the display needed after connecting.
+     * @param previous     The capabilities, with which the connection was started, or null.
+     * @param now          The current time (System.currentTimeMillis()).
+     * @return The capabilities, they keep the probe time of the previous ones if they did not change,
+     * so that using the stored values does not extend their age.
+     */
+    public static DisplayCapabilities of(DisplayHandshake handshake, int settleMillis, DisplayCapabilities previous,
+                                         long now) {
+        boolean unchanged = previous != null && previous.mProtocolVersion == handshake.getProtocolVersion()
+                && previous.mSettleMillis == settleMillis;
+        return new DisplayCapabilities(handshake.getProtocolVersion(), settleMillis,
+                unchanged ? previous.mProbeTime : now);
+    }
+
+    /**
+     * @param now    The current time (System.currentTimeMillis()).
+     * @param maxAge The maximal age in milliseconds.
+     * @return true if the display has to be probed again.
+     */
+    public boolean isExpired(long now, long maxAge) {
+        return now - mProbeTime >= maxAge || now < mProbeTime;
+    }
+
+    /**
+     * @return The capabilities as string, e.g. "1,1000,1476700000000".
+     */
+    public String encode() {
+        return mProtocolVersion + SEPARATOR + mSettleMillis + SEPARATOR + mProbeTime;
+    }
+
+    /**
+     * Reads capabilities, which were written by encode.
+     *
+     * @param encoded The string or null.
+     * @return The capabilities or null if the string is null or malformed (e.g. of an older version of the app).
+     */
+    public static DisplayCapabilities decode(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+
+        String[] fields = encoded.split(SEPARATOR);
+        if (fields.length != FIELDS) {
+            return null;
+        }
+
+        try {
+            return new DisplayCapabilities(Byte.parseByte(fields[0]), Integer.parseInt(fields[1]),
+                    Long.parseLong(fields[2]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public byte getProtocolVersion() {
+        return mProtocolVersion;
+    }
+
+    /**
+     * @return The time in milliseconds, which the display needs after connecting, 0 if it is ready immediately.
+     */
+    public int getSettleMillis() {
+        return mSettleMillis;
+    }
+
+    public long getProbeTime() {
+        return mProbeTime;
+    }
+}
@@ -0,0 +1,194 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Represents the handshake of the DisplayProtocol, the request of the app and the response of the display.
+ * The app creates the request and reads the response with readResponse, a display (e.g. the
+ * LoopbackDisplayTransport) reads the request with readRequest and answers it with writeResponse.
+ *
+ * @author Stefan Constantin
+ */
+public final class DisplayHandshake {
+
+    private byte mProtocolVersion;
+    private int mWidth;
+    private int mHeight;
+    private byte mColorMode;
+    private String mAppName;
+    private int mFrameModes;
+
+    private int mMaxFramesPerSecond;
+    private int mAcceptedFrameModes;
+
+
+    /**
+     * Creates a new handshake request.
+     *
+     * @param protocolVersion The protocol version, which the app wants to use.
+     * @param width           The width of the frames.
+     * @param height          The height of the frames.
+     * @param colorMode       The color mode of the display.
+     * @param appName         The name of the app, at most 127 bytes.
+     * @param frameModes      The frame modes, which the app supports (bit mask), they are sent from version 2 on.
+     */
+    public DisplayHandshake(byte protocolVersion, int width, int height, byte colorMode, String appName,
+                            int frameModes) {
+        this.mProtocolVersion = protocolVersion;
+        this.mWidth = width;
+        this.mHeight = height;
+        this.mColorMode = colorMode;
+        this.mAppName = appName;
+        this.mFrameModes = protocolVersion >= DisplayProtocol.VERSION_2 ? frameModes : 0;
+    }
+
+    /**
+     * @return The bytes of the request, which the app sends to the display.
+     */
+    public byte[] getRequest() {
+        byte[] appName = mAppName.getBytes();
+        int frameModesLength = mProtocolVersion >= DisplayProtocol.VERSION_2 ? 1 : 0;
+        byte[] request = new byte[5 + appName.length + frameModesLength];
+        request[0] = mProtocolVersion;
+        request[1] = (byte) mWidth;
+        request[2] = (byte) mHeight;
+        request[3] = mColorMode;
+        request[4] = (byte) appName.length;
+        System.arraycopy(appName, 0, request, 5, appName.length);
+        if (frameModesLength > 0) {
+            request[request.length - 1] = (byte) mFrameModes;
+        }
+        return request;
+    }
+
+    /**
+     * Reads the response of the display, afterwards getMaxFramesPerSecond() and getAcceptedFrameModes()
+     * return the negotiated values.
+     *
+     * @param inputStream The stream from the display.
+     * @return false if the display does not accept the request.
+     * @throws IOException If the stream ends before the accepted frame modes.
+     */
+    public boolean readResponse(InputStream inputStream) throws IOException {
+        int status = inputStream.read();
+        int maxFramesPerSecond = inputStream.read();
+
+        if (status != DisplayProtocol.HANDSHAKE_STATUS_OKAY) {
+            return false;
+        }
+
+        int frameModes = 0;
+        if (mProtocolVersion >= DisplayProtocol.VERSION_2) {
+            frameModes = inputStream.read();
+            if (frameModes < 0) {
+                throw new IOException();
+            }
+            // the display must not accept a frame mode, which was not offered
+            frameModes &= mFrameModes;
+        }
+
+        mMaxFramesPerSecond = maxFramesPerSecond;
+        mAcceptedFrameModes = frameModes;
+        return true;
+    }
+
+    /**
+     * Reads the request of an app, it is used by a display.
+     *
+     * @param inputStream The stream from the app.
+     * @return The request.
+     * @throws java.io.EOFException If the stream ends before the request.
+     */
+    public static DisplayHandshake readRequest(InputStream inputStream) throws IOException {
+        DataInputStream dataInputStream = new DataInputStream(inputStream);
+        byte protocolVersion = dataInputStream.readByte();
+        int width = dataInputStream.readUnsignedByte();
+        int height = dataInputStream.readUnsignedByte();
+        byte colorMode = dataInputStream.readByte();
+        byte[] appName = new byte[dataInputStream.readUnsignedByte()];
+        dataInputStream.readFully(appName);
+        int frameModes = protocolVersion >= DisplayProtocol.VERSION_2 ? dataInputStream.readUnsignedByte() : 0;
+        return new DisplayHandshake(protocolVersion, width, height, colorMode, new String(appName), frameModes);
+    }
+
+    /**
+     * Writes the response of a display.
+     *
+     * @param outputStream       The stream to the app.
+     * @param status             DisplayProtocol.HANDSHAKE_STATUS_OKAY or an error.
+     * @param maxFramesPerSecond The maximal frames per second of the display.
+     * @param protocolVersion    The protocol version of the request.
+     * @param frameModes         The accepted frame modes, they are sent only if the request is accepted and
+     *                           its version is at least 2.
+     */
+    public static void writeResponse(OutputStream outputStream, byte status, int maxFramesPerSecond,
+                                     byte protocolVersion, int frameModes) throws IOException {
+        boolean sendFrameModes = status == DisplayProtocol.HANDSHAKE_STATUS_OKAY
+                && protocolVersion >= DisplayProtocol.VERSION_2;
+        byte[] response = sendFrameModes ? new byte[]{status, (byte) maxFramesPerSecond, (byte) frameModes}
+                : new byte[]{status, (byte) maxFramesPerSecond};
+        outputStream.write(response);
+        outputStream.flush();
+    }
+
+    public byte getProtocolVersion() {
+        return mProtocolVersion;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public byte getColorMode() {
+        return mColorMode;
+    }
+
+    public String getAppName() {
+        return mAppName;
+    }
+
+    /**
+     * @return The frame modes, which the app offers.
+     */
+    public int getFrameModes() {
+        return mFrameModes;
+    }
+
+    /**
+     * @return The maximal frames per second of the display after an accepted response.
+     */
+    public int getMaxFramesPerSecond() {
+        return mMaxFramesPerSecond;
+    }
+
+    /**
+     * @return The frame modes, which the display accepted, after an accepted response.
+     */
+    public int getAcceptedFrameModes() {
+        return mAcceptedFrameModes;
+    }
+}
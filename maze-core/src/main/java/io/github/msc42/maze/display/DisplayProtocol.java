@@ -0,0 +1,110 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+/**
+ * Represents the constants of the protocol of the Bluetooth LED display.
+ * <p/>
+ * Version 1 (http://www.teco.edu/wp-content/uploads/2014/10/teco_led_matrix_protocol.pdf):<br/>
+ * handshake: version, width, height, color mode, length of the app name, app name<br/>
+ * response: status (0 is okay), maximal frames per second of the display<br/>
+ * (see DisplayHandshake)<br/>
+ * frame: width * height bytes, one byte per pixel (index = x + y * width)
+ * <p/>
+ * Version 2 extends version 1:<br/>
+ * handshake: the handshake of version 1, frame modes, which the app supports (bit mask)<br/>
+ * response: the response of version 1, frame modes, which the display accepts (subset of the offered ones)<br/>
+ * A display, which does not support version 2, answers the handshake with an error status,
+ * then the app connects again with version 1.
+ * <p/>
+ * Frame mode FRAME_MODE_DELTA: every frame starts with a frame type<br/>
+ * FRAME_TYPE_KEY: width * height bytes like a frame of version 1<br/>
+ * FRAME_TYPE_DELTA: number of spans (2 bytes, big endian), then every span:
+ * x, y, number of pixels n, n bytes (the changed pixels x to x + n - 1 of row y)<br/>
+ * The app sends nothing if a frame has not changed and sends a key frame regularly for resynchronization.
+ * <p/>
+ * Frame modes FRAME_MODE_RLE and FRAME_MODE_LZ (codecs): every frame (with or without frame type) is compressed
+ * and starts with a header: codec (CODEC_STORED if the compression did not make the frame smaller),
+ * length of the compressed frame (2 bytes, big endian)<br/>
+ * The display accepts at most one codec, if it accepts several ones, the app uses the first one of
+ * LZ, RLE (see codecOf).
+ * <p/>
+ * Frame modes FRAME_MODE_PACKED_2BPP and FRAME_MODE_PACKED_1BPP (pixel formats): the pixels of a key frame
+ * and of every span are packed with 2 respectively 1 bit per pixel, every span and the key frame
+ * are filled up to whole bytes (see PixelFormat)<br/>
+ * The display accepts at most one pixel format, if it accepts both, the app uses 2 bits per pixel
+ * (see pixelFormatOf).
+ *
+ * @author Stefan Constantin
+ */
+public final class DisplayProtocol {
+
+    public static final byte VERSION_1 = 1;
+    public static final byte VERSION_2 = 2;
+
+    public static final byte HANDSHAKE_STATUS_OKAY = 0;
+    // every other status is an error, e.g. the display does not support the protocol version or the size
+    public static final byte HANDSHAKE_STATUS_UNSUPPORTED = 1;
+
+    public static final int FRAME_MODE_DELTA = 1;
+    public static final int FRAME_MODE_RLE = 2;
+    public static final int FRAME_MODE_LZ = 4;
+    public static final int FRAME_MODE_PACKED_2BPP = 8;
+    public static final int FRAME_MODE_PACKED_1BPP = 16;
+
+    public static final byte FRAME_TYPE_KEY = 0;
+    public static final byte FRAME_TYPE_DELTA = 1;
+
+    public static final byte CODEC_STORED = 0;
+    public static final byte CODEC_RLE = 1;
+    public static final byte CODEC_LZ = 2;
+
+
+    private DisplayProtocol() {
+    }
+
+    /**
+     * Returns the codec, which is used for the negotiated frame modes.
+     *
+     * @param frameModes The frame modes, which the display accepted.
+     * @return CODEC_LZ, CODEC_RLE or CODEC_STORED if the frames are not compressed.
+     */
+    public static byte codecOf(int frameModes) {
+        if ((frameModes & FRAME_MODE_LZ) != 0) {
+            return CODEC_LZ;
+        } else if ((frameModes & FRAME_MODE_RLE) != 0) {
+            return CODEC_RLE;
+        }
+        return CODEC_STORED;
+    }
+
+    /**
+     * Returns the pixel format, which is used for the negotiated frame modes.
+     *
+     * @param frameModes The frame modes, which the display accepted.
+     * @return PixelFormat.PACKED_2BPP, PixelFormat.PACKED_1BPP or PixelFormat.BYTE if the pixels are not packed.
+     */
+    public static PixelFormat pixelFormatOf(int frameModes) {
+        if ((frameModes & FRAME_MODE_PACKED_2BPP) != 0) {
+            return PixelFormat.PACKED_2BPP;
+        } else if ((frameModes & FRAME_MODE_PACKED_1BPP) != 0) {
+            return PixelFormat.PACKED_1BPP;
+        }
+        return PixelFormat.BYTE;
+    }
+}
@@ -0,0 +1,64 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import java.io.IOException;
+
+/**
+ * Represents the link to an LED display, e.g. Bluetooth (RFCOMM), TCP or an in-process loopback.
+ * The game connects, does the handshake and writes the encoded frames, if a write fails,
+ * it closes the transport and connects again.
+ * A transport is used by one thread at a time.
+ *
+ * @author Stefan Constantin
+ */
+public interface DisplayTransport {
+
+    /**
+     * Opens the connection to the display, a closed transport can be connected again.
+     *
+     * @throws IOException If the connection cannot be established.
+     */
+    void connect() throws IOException;
+
+    /**
+     * Sends the request of a handshake and reads the response of the display.
+     *
+     * @param handshake The handshake, it contains the negotiated values after an accepted response.
+     * @return false if the display does not accept the request.
+     * @throws IOException If the connection is lost.
+     */
+    boolean handshake(DisplayHandshake handshake) throws IOException;
+
+    /**
+     * Writes encoded frames to the display.
+     *
+     * @throws IOException If the connection is lost, then the transport has to be closed and connected again.
+     */
+    void write(byte[] data, int offset, int length) throws IOException;
+
+    /**
+     * @return false if the transport is not connected or the connection is known to be lost.
+     */
+    boolean isConnected();
+
+    /**
+     * Closes the connection, the exceptions of closing are ignored.
+     */
+    void close();
+}
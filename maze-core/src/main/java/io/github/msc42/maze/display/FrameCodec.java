@@ -0,0 +1,51 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+/**
+ * Represents a lossless compression of frames.
+ * A codec reuses its internal state, so that compressing does not allocate memory.
+ *
+ * @author Stefan Constantin
+ */
+public interface FrameCodec {
+
+    /**
+     * Compresses data.
+     *
+     * @param input     The data to compress.
+     * @param length    The length of the data.
+     * @param output    The buffer for the compressed data.
+     * @param offset    The position of the compressed data in the buffer.
+     * @param maxLength The maximal length of the compressed data.
+     * @return The length of the compressed data or -1 if it would be longer than maxLength.
+     */
+    int compress(byte[] input, int length, byte[] output, int offset, int maxLength);
+
+    /**
+     * Decompresses data.
+     *
+     * @param input  The compressed data.
+     * @param offset The position of the compressed data.
+     * @param length The length of the compressed data.
+     * @param output The buffer for the decompressed data.
+     * @return The length of the decompressed data.
+     * @throws InvalidFrameException If the data is corrupted or does not fit into the output buffer.
+     */
+    int decompress(byte[] input, int offset, int length, byte[] output) throws InvalidFrameException;
+}
@@ -0,0 +1,177 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Represents the reference decoder of the frames, which the app sends to the display.
+ * It reads the frames of the negotiated protocol version and frame modes from a stream
+ * and holds the current content of the display.
+ *
+ * @author Stefan Constantin
+ */
+public class FrameDecoder {
+
+    private int mWidth;
+    private int mHeight;
+    private byte mProtocolVersion;
+    private int mFrameModes;
+
+    private byte[] mLedMatrix;
+    private boolean mKeyFrameReceived = false;
+
+    private PixelFormat mPixelFormat = PixelFormat.BYTE;
+    private byte[] mPackedPixels;
+
+    private byte mCodecId;
+    private FrameCodec mCodec;
+    private byte[] mCompressedFrame;
+    private byte[] mDecompressedFrame;
+
+
+    /**
+     * Creates a new frame decoder.
+     *
+     * @param width           The width of the display.
+     * @param height          The height of the display.
+     * @param protocolVersion The negotiated protocol version.
+     * @param frameModes      The negotiated frame modes (bit mask).
+     */
+    public FrameDecoder(int width, int height, byte protocolVersion, int frameModes) {
+        this.mWidth = width;
+        this.mHeight = height;
+        this.mProtocolVersion = protocolVersion;
+        this.mFrameModes = frameModes;
+        mLedMatrix = new byte[width * height];
+
+        if (protocolVersion >= DisplayProtocol.VERSION_2) {
+            mPixelFormat = DisplayProtocol.pixelFormatOf(frameModes);
+            mPackedPixels = new byte[mPixelFormat.packedLength(width * height)];
+
+            mCodecId = DisplayProtocol.codecOf(frameModes);
+            mCodec = FrameEncoders.createCodec(mCodecId);
+            if (mCodec != null) {
+                mCompressedFrame = new byte[FrameEncoders.maxFrameLength(width, height)];
+                mDecompressedFrame = new byte[FrameEncoders.maxFrameLength(width, height)];
+            }
+        }
+    }
+
+    /**
+     * @return The current content of the display, one byte per pixel (index = x + y * width).
+     */
+    public byte[] getLedMatrix() {
+        return mLedMatrix;
+    }
+
+    /**
+     * Reads the next frame from a stream and applies it to the content of the display.
+     *
+     * @param inputStream The stream of the frames.
+     * @throws EOFException         If the stream ends before the frame.
+     * @throws InvalidFrameException If the frame violates the protocol.
+     * @throws IOException
+     */
+    public void readFrame(InputStream inputStream) throws IOException {
+        DataInputStream dataInputStream = new DataInputStream(inputStream);
+
+        if (mCodec == null) {
+            readUncompressedFrame(dataInputStream);
+            return;
+        }
+
+        byte codecId = dataInputStream.readByte();
+        int length = dataInputStream.readUnsignedShort();
+        if (length > mCompressedFrame.length) {
+            throw new InvalidFrameException("compressed frame too long");
+        }
+        dataInputStream.readFully(mCompressedFrame, 0, length);
+
+        int decompressedLength;
+        if (codecId == DisplayProtocol.CODEC_STORED) {
+            System.arraycopy(mCompressedFrame, 0, mDecompressedFrame, 0, length);
+            decompressedLength = length;
+        } else if (codecId == mCodecId) {
+            decompressedLength = mCodec.decompress(mCompressedFrame, 0, length, mDecompressedFrame);
+        } else {
+            throw new InvalidFrameException("codec " + codecId + " was not negotiated");
+        }
+
+        ByteArrayInputStream decompressedInputStream = new ByteArrayInputStream(mDecompressedFrame, 0,
+                decompressedLength);
+        try {
+            readUncompressedFrame(new DataInputStream(decompressedInputStream));
+        } catch (EOFException e) {
+            throw new InvalidFrameException("decompressed frame too short", e);
+        }
+        if (decompressedInputStream.available() > 0) {
+            throw new InvalidFrameException("decompressed frame too long");
+        }
+    }
+
+    private void readUncompressedFrame(DataInputStream dataInputStream) throws IOException {
+        if (mProtocolVersion < DisplayProtocol.VERSION_2 || (mFrameModes & DisplayProtocol.FRAME_MODE_DELTA) == 0) {
+            readPixels(dataInputStream, 0, mLedMatrix.length);
+            mKeyFrameReceived = true;
+            return;
+        }
+
+        byte frameType = dataInputStream.readByte();
+        switch (frameType) {
+            case DisplayProtocol.FRAME_TYPE_KEY:
+                readPixels(dataInputStream, 0, mLedMatrix.length);
+                mKeyFrameReceived = true;
+                break;
+            case DisplayProtocol.FRAME_TYPE_DELTA:
+                if (!mKeyFrameReceived) {
+                    throw new InvalidFrameException("delta frame before the first key frame");
+                }
+                readDeltaFrame(dataInputStream);
+                break;
+            default:
+                throw new InvalidFrameException("unknown frame type " + frameType);
+        }
+    }
+
+    private void readDeltaFrame(DataInputStream dataInputStream) throws IOException {
+        int spans = dataInputStream.readUnsignedShort();
+        for (int i = 0; i < spans; i++) {
+            int x = dataInputStream.readUnsignedByte();
+            int y = dataInputStream.readUnsignedByte();
+            int length = dataInputStream.readUnsignedByte();
+            if (y >= mHeight || x + length > mWidth) {
+                throw new InvalidFrameException("span out of the display");
+            }
+            readPixels(dataInputStream, x + y * mWidth, length);
+        }
+    }
+
+    private void readPixels(DataInputStream dataInputStream, int offset, int count) throws IOException {
+        if (mPixelFormat == PixelFormat.BYTE) {
+            dataInputStream.readFully(mLedMatrix, offset, count);
+        } else {
+            dataInputStream.readFully(mPackedPixels, 0, mPixelFormat.packedLength(count));
+            mPixelFormat.unpack(mPackedPixels, 0, mLedMatrix, offset, count);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+/**
+ * Represents an encoder, which converts the frames of the game into the frames, which are sent to the display.
+ * An encoder reuses its buffer, so that encoding does not allocate memory.
+ *
+ * @author Stefan Constantin
+ */
+public interface FrameEncoder {
+
+    /**
+     * Encodes a frame.
+     *
+     * @param ledMatrix The values of every pixel of the matrix.
+     * @return The number of bytes of the encoded frame in getFrame(), 0 if nothing has to be sent.
+     */
+    int encode(byte[] ledMatrix);
+
+    /**
+     * @return The buffer, which contains the last encoded frame, it is overwritten by the next call of encode.
+     */
+    byte[] getFrame();
+
+    /**
+     * Forgets the frames encoded so far, the next frame is encoded completely.
+     * It has to be called if the display lost its state, e.g. after a reconnection.
+     */
+    void reset();
+}
@@ -0,0 +1,86 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+/**
+ * Creates the encoders and codecs for the negotiated protocol version and frame modes.
+ *
+ * @author Stefan Constantin
+ */
+public final class FrameEncoders {
+
+    private FrameEncoders() {
+    }
+
+    /**
+     * Creates the encoder for the negotiated protocol version and frame modes.
+     *
+     * @param protocolVersion  The negotiated protocol version.
+     * @param frameModes       The frame modes, which the display accepted.
+     * @param width            The width of the display.
+     * @param height           The height of the display.
+     * @param keyFrameInterval The number of frames after which a key frame is sent (frame mode delta).
+     * @return The encoder.
+     */
+    public static FrameEncoder create(byte protocolVersion, int frameModes, int width, int height,
+                                      int keyFrameInterval) {
+        if (protocolVersion < DisplayProtocol.VERSION_2) {
+            return new RawFrameEncoder(width, height);
+        }
+
+        PixelFormat pixelFormat = DisplayProtocol.pixelFormatOf(frameModes);
+        FrameEncoder frameEncoder;
+        if ((frameModes & DisplayProtocol.FRAME_MODE_DELTA) != 0) {
+            frameEncoder = new DeltaFrameEncoder(width, height, keyFrameInterval, pixelFormat);
+        } else {
+            frameEncoder = new RawFrameEncoder(width, height, pixelFormat);
+        }
+
+        byte codec = DisplayProtocol.codecOf(frameModes);
+        if (codec != DisplayProtocol.CODEC_STORED) {
+            frameEncoder = new CompressingFrameEncoder(frameEncoder, createCodec(codec), codec,
+                    maxFrameLength(width, height));
+        }
+
+        return frameEncoder;
+    }
+
+    /**
+     * @return The maximal length of an uncompressed frame of protocol version 2.
+     */
+    public static int maxFrameLength(int width, int height) {
+        return 1 + width * height;
+    }
+
+    /**
+     * Creates a codec.
+     *
+     * @param codec The id of the codec in the protocol, e.g. DisplayProtocol.CODEC_RLE.
+     * @return The codec or null if the id is unknown.
+     */
+    public static FrameCodec createCodec(byte codec) {
+        switch (codec) {
+            case DisplayProtocol.CODEC_RLE:
+                return new RunLengthCodec();
+            case DisplayProtocol.CODEC_LZ:
+                return new LzCodec();
+            default:
+                return null;
+        }
+    }
+}
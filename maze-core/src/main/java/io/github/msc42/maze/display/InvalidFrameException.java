@@ -15,41 +15,29 @@
 // You should have received a copy of the GNU General Public License
 // along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
 
-package io.github.msc42.maze;
+package io.github.msc42.maze.display;
+
+import java.io.IOException;
 
 /**
- * Represents a teleport point.
+ * Represents an exception, which is thrown if a received frame violates the display protocol.
  *
  * @author Stefan Constantin
  */
-class TeleportPoint implements Point {
-
-    private int mDestinationX;
-    private int mDestinationY;
+public class InvalidFrameException extends IOException {
 
+    private static final long serialVersionUID = 1L;
 
-    /**
-     * Creates a new teleport point.
-     *
-     * @param destinationX The x coordinate of the destination.
-     * @param destinationY The y coordinate of the destination.
-     */
-    protected TeleportPoint(int destinationX, int destinationY) {
-        this.mDestinationX = destinationX;
-        this.mDestinationY = destinationY;
-    }
 
-    @Override
-    public byte getPixelValue() {
-        return GameConstants.LED_THREE_QUARTER;
+    public InvalidFrameException() {
+        super();
     }
 
-    protected int getDestinationX() {
-        return mDestinationX;
+    public InvalidFrameException(String message) {
+        super(message);
     }
 
-
-    protected int getDestinationY() {
-        return mDestinationY;
+    public InvalidFrameException(String message, Throwable cause) {
+        super(message, cause);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Represents an in-process display, which is connected without a radio or a network.
+ * It answers the handshake like a display, which supports the protocol up to a version and some frame modes,
+ * and decodes every written frame with the FrameDecoder, so the whole pipeline of a game is run and measured
+ * on any machine.
+ * <p/>
+ * A write must contain whole frames (the game writes one frame per write). disconnect() simulates a lost link.
+ *
+ * @author Stefan Constantin
+ */
+public class LoopbackDisplayTransport implements DisplayTransport {
+
+    private int mWidth;
+    private int mHeight;
+    private byte mMaxProtocolVersion;
+    private int mFrameModes;
+    private int mMaxFramesPerSecond;
+
+    private volatile boolean mConnected = false;
+    private volatile boolean mLinkLost = false;
+    private FrameDecoder mFrameDecoder;
+    private volatile long mReceivedFrames = 0;
+    private volatile long mReceivedBytes = 0;
+    private int mConnections = 0;
+
+
+    /**
+     * Creates a new loopback transport, it is not connected.
+     *
+     * @param width              The width of the display.
+     * @param height             The height of the display.
+     * @param maxProtocolVersion The highest protocol version, which the display supports.
+     * @param frameModes         The frame modes, which the display supports (bit mask).
+     * @param maxFramesPerSecond The maximal frames per second of the display.
+     */
+    public LoopbackDisplayTransport(int width, int height, byte maxProtocolVersion, int frameModes,
+                                    int maxFramesPerSecond) {
+        this.mWidth = width;
+        this.mHeight = height;
+        this.mMaxProtocolVersion = maxProtocolVersion;
+        this.mFrameModes = frameModes;
+        this.mMaxFramesPerSecond = maxFramesPerSecond;
+    }
+
+    @Override
+    public void connect() throws IOException {
+        mFrameDecoder = null;
+        mLinkLost = false;
+        mConnected = true;
+        mConnections++;
+    }
+
+    @Override
+    public boolean handshake(DisplayHandshake handshake) throws IOException {
+        checkConnected();
+        DisplayHandshake request = DisplayHandshake.readRequest(new ByteArrayInputStream(handshake.getRequest()));
+
+        boolean supported = request.getProtocolVersion() <= mMaxProtocolVersion && request.getWidth() == mWidth
+                && request.getHeight() == mHeight;
+        int frameModes = request.getFrameModes() & mFrameModes;
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        DisplayHandshake.writeResponse(response, supported ? DisplayProtocol.HANDSHAKE_STATUS_OKAY
+                : DisplayProtocol.HANDSHAKE_STATUS_UNSUPPORTED, mMaxFramesPerSecond, request.getProtocolVersion(),
+                frameModes);
+        if (supported) {
+            mFrameDecoder = new FrameDecoder(mWidth, mHeight, request.getProtocolVersion(), frameModes);
+        }
+
+        return handshake.readResponse(new ByteArrayInputStream(response.toByteArray()));
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        checkConnected();
+        if (mFrameDecoder == null) {
+            throw new InvalidFrameException("frame before the handshake");
+        }
+
+        ByteArrayInputStream frames = new ByteArrayInputStream(data, offset, length);
+        while (frames.available() > 0) {
+            mFrameDecoder.readFrame(frames);
+            mReceivedFrames++;
+        }
+        mReceivedBytes += length;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return mConnected;
+    }
+
+    @Override
+    public void close() {
+        mConnected = false;
+    }
+
+    /**
+     * Simulates a lost link, the next write fails, but isConnected() returns true until the transport is closed
+     * like a socket, whose peer has gone.
+     */
+    public void disconnect() {
+        mLinkLost = true;
+    }
+
+    /**
+     * @return The current content of the display, one byte per pixel, or null before the handshake.
+     */
+    public byte[] getLedMatrix() {
+        FrameDecoder frameDecoder = mFrameDecoder;
+        return frameDecoder == null ? null : frameDecoder.getLedMatrix();
+    }
+
+    public long getReceivedFrames() {
+        return mReceivedFrames;
+    }
+
+    public long getReceivedBytes() {
+        return mReceivedBytes;
+    }
+
+    /**
+     * @return The number of calls of connect().
+     */
+    public int getConnections() {
+        return mConnections;
+    }
+
+    private void checkConnected() throws IOException {
+        if (!mConnected || mLinkLost) {
+            throw new IOException("not connected");
+        }
+    }
+}
@@ -0,0 +1,154 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import java.util.Arrays;
+
+/**
+ * Represents a small LZ77 codec (LZSS).
+ * The compressed data consists of groups of up to eight items, every group starts with a flag byte.
+ * Bit i (least significant bit first) of the flag byte describes item i:
+ * 0 is a literal byte, 1 is a match of two bytes, which copies length bytes from offset bytes before:
+ * (offset - 1) >> 4, ((offset - 1) & 0xF) << 4 | (length - MIN_MATCH)<br/>
+ * Matches can overlap the copied bytes, so repeated rows and runs are both compressed.
+ *
+ * @author Stefan Constantin
+ */
+public final class LzCodec implements FrameCodec {
+
+    private static final int MIN_MATCH = 3;
+    private static final int MAX_MATCH = MIN_MATCH + 15;
+    private static final int MAX_OFFSET = 4096;
+    private static final int HASH_BITS = 12;
+
+    // last position of every hash of three bytes
+    private int[] mHead = new int[1 << HASH_BITS];
+
+    @Override
+    public int compress(byte[] input, int length, byte[] output, int offset, int maxLength) {
+        Arrays.fill(mHead, -1);
+
+        int in = 0;
+        int out = offset;
+        int end = offset + maxLength;
+
+        while (in < length) {
+            if (out >= end) {
+                return -1;
+            }
+            int flagPosition = out++;
+            int flags = 0;
+
+            for (int bit = 0; bit < 8 && in < length; bit++) {
+                int matchLength = 0;
+                int matchOffset = 0;
+
+                if (in + MIN_MATCH <= length) {
+                    int hash = hash(input, in);
+                    int candidate = mHead[hash];
+                    mHead[hash] = in;
+
+                    if (candidate >= 0 && in - candidate <= MAX_OFFSET) {
+                        matchLength = matchLength(input, candidate, in, length);
+                        matchOffset = in - candidate;
+                    }
+                    if (in > 0) {
+                        int runLength = matchLength(input, in - 1, in, length);
+                        if (runLength > matchLength) {
+                            matchLength = runLength;
+                            matchOffset = 1;
+                        }
+                    }
+                }
+
+                if (matchLength >= MIN_MATCH) {
+                    if (out + 2 > end) {
+                        return -1;
+                    }
+                    flags |= 1 << bit;
+                    output[out++] = (byte) ((matchOffset - 1) >>> 4);
+                    output[out++] = (byte) (((matchOffset - 1) & 0xF) << 4 | (matchLength - MIN_MATCH));
+                    for (int i = in + 1; i < in + matchLength && i + MIN_MATCH <= length; i++) {
+                        mHead[hash(input, i)] = i;
+                    }
+                    in += matchLength;
+                } else {
+                    if (out >= end) {
+                        return -1;
+                    }
+                    output[out++] = input[in++];
+                }
+            }
+
+            output[flagPosition] = (byte) flags;
+        }
+
+        return out - offset;
+    }
+
+    private static int hash(byte[] input, int position) {
+        int bytes = (input[position] & 0xFF) << 16 | (input[position + 1] & 0xFF) << 8 | (input[position + 2] & 0xFF);
+        return (bytes * 0x9E3779B1) >>> (32 - HASH_BITS);
+    }
+
+    private static int matchLength(byte[] input, int candidate, int position, int length) {
+        int matchLength = 0;
+        while (matchLength < MAX_MATCH && position + matchLength < length
+                && input[candidate + matchLength] == input[position + matchLength]) {
+            matchLength++;
+        }
+        return matchLength;
+    }
+
+    @Override
+    public int decompress(byte[] input, int offset, int length, byte[] output) throws InvalidFrameException {
+        int in = offset;
+        int end = offset + length;
+        int out = 0;
+
+        while (in < end) {
+            int flags = input[in++] & 0xFF;
+
+            for (int bit = 0; bit < 8 && in < end; bit++) {
+                if ((flags & (1 << bit)) != 0) {
+                    if (in + 2 > end) {
+                        throw new InvalidFrameException("truncated LZ match");
+                    }
+                    int first = input[in++] & 0xFF;
+                    int second = input[in++] & 0xFF;
+                    int matchOffset = (first << 4 | second >>> 4) + 1;
+                    int matchLength = (second & 0xF) + MIN_MATCH;
+                    if (matchOffset > out || out + matchLength > output.length) {
+                        throw new InvalidFrameException("corrupted LZ match");
+                    }
+                    for (int i = 0; i < matchLength; i++) {
+                        output[out] = output[out - matchOffset];
+                        out++;
+                    }
+                } else {
+                    if (out >= output.length) {
+                        throw new InvalidFrameException("corrupted LZ literal");
+                    }
+                    output[out++] = input[in++];
+                }
+            }
+        }
+
+        return out;
+    }
+}
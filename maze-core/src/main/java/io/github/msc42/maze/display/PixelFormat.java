@@ -0,0 +1,167 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import io.github.msc42.maze.GameConstants;
+
+/**
+ * Represents the format of the pixels in a frame, which is sent to the display.
+ * The packed formats store several pixels in one byte (the first pixel in the most significant bits)
+ * as index into a palette of LED values of GameConstants. A value, which is not in the palette,
+ * is sent as the nearest value of the palette, but a pixel, which is on, is never sent as LED_OUT.
+ *
+ * @author Stefan Constantin
+ */
+public final class PixelFormat {
+
+    /**
+     * One byte per pixel, the value is sent unchanged.
+     */
+    public static final PixelFormat BYTE = new PixelFormat(8, null);
+
+    /**
+     * Two bits per pixel, it shows all values, which the game uses.
+     */
+    public static final PixelFormat PACKED_2BPP = new PixelFormat(2, new byte[]{GameConstants.LED_OUT,
+            GameConstants.LED_HALF, GameConstants.LED_THREE_QUARTER, GameConstants.LED_MAX});
+
+    /**
+     * One bit per pixel, every pixel is either out or on.
+     */
+    public static final PixelFormat PACKED_1BPP = new PixelFormat(1, new byte[]{GameConstants.LED_OUT,
+            GameConstants.LED_MAX});
+
+    private int mBitsPerPixel;
+    private int mPixelsPerByte;
+    private byte[] mPalette;
+
+    // index into the palette and the sent value of every value (index = value & 0xFF)
+    private byte[] mIndices = new byte[256];
+    private byte[] mValues = new byte[256];
+
+
+    private PixelFormat(int bitsPerPixel, byte[] palette) {
+        this.mBitsPerPixel = bitsPerPixel;
+        this.mPixelsPerByte = 8 / bitsPerPixel;
+        this.mPalette = palette;
+
+        for (int value = 0; value < 256; value++) {
+            int index = palette == null ? value : nearestIndex(palette, value);
+            mIndices[value] = (byte) index;
+            mValues[value] = palette == null ? (byte) value : palette[index];
+        }
+    }
+
+    private static int nearestIndex(byte[] palette, int value) {
+        int nearestIndex = 0;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < palette.length; i++) {
+            int paletteValue = palette[i] & 0xFF;
+            if (value != 0 && paletteValue == 0) {
+                continue;
+            }
+            int distance = Math.abs(paletteValue - value);
+            if (distance < nearestDistance) {
+                nearestIndex = i;
+                nearestDistance = distance;
+            }
+        }
+        return nearestIndex;
+    }
+
+    /**
+     * @return The number of bits of a pixel (1, 2 or 8).
+     */
+    public int getBitsPerPixel() {
+        return mBitsPerPixel;
+    }
+
+    /**
+     * @param value The value of a pixel.
+     * @return The value, which the display shows for the value.
+     */
+    public byte quantize(byte value) {
+        return mValues[value & 0xFF];
+    }
+
+    /**
+     * @param pixels The number of pixels.
+     * @return The number of bytes of the packed pixels.
+     */
+    public int packedLength(int pixels) {
+        return (pixels + mPixelsPerByte - 1) / mPixelsPerByte;
+    }
+
+    /**
+     * Packs pixels, the last byte is filled up with zero bits.
+     *
+     * @param pixels       The values of the pixels.
+     * @param offset       The index of the first pixel.
+     * @param count        The number of pixels.
+     * @param output       The buffer for the packed pixels.
+     * @param outputOffset The index of the first byte in output.
+     * @return The number of bytes written to output.
+     */
+    public int pack(byte[] pixels, int offset, int count, byte[] output, int outputOffset) {
+        if (mPalette == null) {
+            System.arraycopy(pixels, offset, output, outputOffset, count);
+            return count;
+        }
+
+        int position = outputOffset;
+        int current = 0;
+        int pixelsInCurrent = 0;
+        for (int i = offset; i < offset + count; i++) {
+            current = (current << mBitsPerPixel) | mIndices[pixels[i] & 0xFF];
+            pixelsInCurrent++;
+            if (pixelsInCurrent == mPixelsPerByte) {
+                output[position++] = (byte) current;
+                current = 0;
+                pixelsInCurrent = 0;
+            }
+        }
+        if (pixelsInCurrent > 0) {
+            output[position++] = (byte) (current << (mBitsPerPixel * (mPixelsPerByte - pixelsInCurrent)));
+        }
+
+        return position - outputOffset;
+    }
+
+    /**
+     * Unpacks pixels, which were packed by pack.
+     *
+     * @param input       The packed pixels.
+     * @param inputOffset The index of the first byte in input.
+     * @param pixels      The buffer for the values of the pixels.
+     * @param offset      The index of the first pixel.
+     * @param count       The number of pixels.
+     */
+    public void unpack(byte[] input, int inputOffset, byte[] pixels, int offset, int count) {
+        if (mPalette == null) {
+            System.arraycopy(input, inputOffset, pixels, offset, count);
+            return;
+        }
+
+        int mask = (1 << mBitsPerPixel) - 1;
+        for (int i = 0; i < count; i++) {
+            int packed = input[inputOffset + i / mPixelsPerByte];
+            int shift = 8 - mBitsPerPixel * (i % mPixelsPerByte + 1);
+            pixels[offset + i] = mPalette[(packed >> shift) & mask];
+        }
+    }
+}
@@ -0,0 +1,69 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+/**
+ * Represents the encoder of protocol version 1, it sends every frame completely.
+ * In protocol version 2 it packs the pixels of the frame with the negotiated pixel format.
+ *
+ * @author Stefan Constantin
+ */
+public final class RawFrameEncoder implements FrameEncoder {
+
+    private int mPixels;
+    private PixelFormat mPixelFormat;
+    private byte[] mFrame;
+
+
+    /**
+     * Creates a new raw frame encoder, which sends one byte per pixel.
+     *
+     * @param width  The width of the display.
+     * @param height The height of the display.
+     */
+    public RawFrameEncoder(int width, int height) {
+        this(width, height, PixelFormat.BYTE);
+    }
+
+    /**
+     * Creates a new raw frame encoder.
+     *
+     * @param width       The width of the display.
+     * @param height      The height of the display.
+     * @param pixelFormat The format of the pixels.
+     */
+    public RawFrameEncoder(int width, int height, PixelFormat pixelFormat) {
+        this.mPixels = width * height;
+        this.mPixelFormat = pixelFormat;
+        mFrame = new byte[pixelFormat.packedLength(mPixels)];
+    }
+
+    @Override
+    public int encode(byte[] ledMatrix) {
+        return mPixelFormat.pack(ledMatrix, 0, mPixels, mFrame, 0);
+    }
+
+    @Override
+    public byte[] getFrame() {
+        return mFrame;
+    }
+
+    @Override
+    public void reset() {
+    }
+}
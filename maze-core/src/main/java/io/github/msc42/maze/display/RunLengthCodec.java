@@ -0,0 +1,105 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+/**
+ * Represents the run-length codec (PackBits).
+ * A header byte h is followed by h + 1 literal bytes if 0 <= h <= 127
+ * or by one byte, which is repeated 1 - h times, if -127 <= h <= -1 (h = -128 is ignored).
+ * Mazes consist of long runs of unlit pixels and border pixels, therefore this is cheap and effective.
+ *
+ * @author Stefan Constantin
+ */
+public final class RunLengthCodec implements FrameCodec {
+
+    private static final int MAX_RUN = 128;
+    private static final int MIN_RUN = 3;
+
+    @Override
+    public int compress(byte[] input, int length, byte[] output, int offset, int maxLength) {
+        int in = 0;
+        int out = offset;
+        int end = offset + maxLength;
+
+        while (in < length) {
+            int run = 1;
+            while (in + run < length && run < MAX_RUN && input[in + run] == input[in]) {
+                run++;
+            }
+
+            if (run >= MIN_RUN) {
+                if (out + 2 > end) {
+                    return -1;
+                }
+                output[out++] = (byte) (1 - run);
+                output[out++] = input[in];
+                in += run;
+            } else {
+                int start = in;
+                while (in < length && in - start < MAX_RUN && !isRun(input, in, length)) {
+                    in++;
+                }
+                int count = in - start;
+                if (out + 1 + count > end) {
+                    return -1;
+                }
+                output[out++] = (byte) (count - 1);
+                System.arraycopy(input, start, output, out, count);
+                out += count;
+            }
+        }
+
+        return out - offset;
+    }
+
+    private static boolean isRun(byte[] input, int position, int length) {
+        return position + MIN_RUN <= length && input[position] == input[position + 1]
+                && input[position] == input[position + 2];
+    }
+
+    @Override
+    public int decompress(byte[] input, int offset, int length, byte[] output) throws InvalidFrameException {
+        int in = offset;
+        int end = offset + length;
+        int out = 0;
+
+        while (in < end) {
+            int header = input[in++];
+            if (header >= 0) {
+                int count = header + 1;
+                if (in + count > end || out + count > output.length) {
+                    throw new InvalidFrameException("corrupted run-length literal");
+                }
+                System.arraycopy(input, in, output, out, count);
+                in += count;
+                out += count;
+            } else if (header != -MAX_RUN) {
+                int count = 1 - header;
+                if (in >= end || out + count > output.length) {
+                    throw new InvalidFrameException("corrupted run-length run");
+                }
+                byte value = input[in++];
+                for (int i = 0; i < count; i++) {
+                    output[out++] = value;
+                }
+            }
+        }
+
+        return out;
+    }
+}
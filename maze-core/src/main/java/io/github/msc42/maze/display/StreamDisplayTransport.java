@@ -0,0 +1,139 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+
+/**
+ * Represents a transport, whose connection provides an input stream and an output stream, e.g. a socket.
+ * The subclass opens the connection in connect() and sets its streams with setStreams.
+ * <p/>
+ * The handshake can wait for the response with a timeout, so that a display, which is not ready
+ * after connecting and drops the request, is detected without waiting a fixed time before every handshake.
+ * The timeout is probed with InputStream.available(), because not every stream (e.g. of a Bluetooth socket)
+ * supports a read timeout.
+ *
+ * @author Stefan Constantin
+ */
+public abstract class StreamDisplayTransport implements DisplayTransport {
+
+    // in milliseconds
+    private static final int RESPONSE_POLL_INTERVAL = 2;
+
+    private InputStream mInputStream;
+    private OutputStream mOutputStream;
+    private int mResponseTimeout = 0;
+
+
+    /**
+     * Sets the streams of the opened connection.
+     */
+    protected final void setStreams(InputStream inputStream, OutputStream outputStream) {
+        this.mInputStream = inputStream;
+        this.mOutputStream = outputStream;
+    }
+
+    /**
+     * @param responseTimeout The maximal time in milliseconds between the request of the handshake and
+     *                        the first byte of the response, 0 means no timeout.
+     */
+    public final void setResponseTimeout(int responseTimeout) {
+        this.mResponseTimeout = responseTimeout;
+    }
+
+    /**
+     * Closes the connection, the streams are already closed.
+     */
+    protected abstract void closeConnection();
+
+    /**
+     * @throws SocketTimeoutException If the display does not respond within the response timeout,
+     *                                the connection has to be established again, because the display
+     *                                may receive the request later and take the next bytes as response.
+     */
+    @Override
+    public boolean handshake(DisplayHandshake handshake) throws IOException {
+        OutputStream outputStream = getOutputStream();
+        outputStream.write(handshake.getRequest());
+        outputStream.flush();
+        if (mResponseTimeout > 0) {
+            awaitResponse();
+        }
+        return handshake.readResponse(mInputStream);
+    }
+
+    /**
+     * Waits for the first byte of the response. An interrupt does not abort the handshake (e.g. the app
+     * interrupts its threads when it is resumed right after the start), it is deferred until the response
+     * arrived or the timeout elapsed.
+     */
+    private void awaitResponse() throws IOException {
+        long deadline = System.nanoTime() + mResponseTimeout * 1000000L;
+        boolean interrupted = false;
+        try {
+            while (mInputStream.available() == 0) {
+                if (System.nanoTime() - deadline >= 0) {
+                    throw new SocketTimeoutException("no handshake response within " + mResponseTimeout + " ms");
+                }
+                try {
+                    Thread.sleep(RESPONSE_POLL_INTERVAL);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        getOutputStream().write(data, offset, length);
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (mOutputStream != null) {
+                mOutputStream.close();
+            }
+        } catch (IOException e) {
+        }
+        try {
+            if (mInputStream != null) {
+                mInputStream.close();
+            }
+        } catch (IOException e) {
+        }
+        setStreams(null, null);
+
+        closeConnection();
+    }
+
+    private OutputStream getOutputStream() throws IOException {
+        if (mOutputStream == null) {
+            throw new IOException("not connected");
+        }
+        return mOutputStream;
+    }
+}
@@ -0,0 +1,84 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Represents the transport to a network-attached LED display (or a display emulator), which speaks
+ * the DisplayProtocol over TCP. Nagle's algorithm is disabled, so that every frame is sent immediately.
+ *
+ * @author Stefan Constantin
+ */
+public class TcpDisplayTransport extends StreamDisplayTransport {
+
+    private String mHost;
+    private int mPort;
+    private int mConnectTimeout;
+
+    private Socket mSocket;
+
+
+    /**
+     * Creates a new TCP transport, it is not connected.
+     *
+     * @param host           The host of the display.
+     * @param port           The port of the display.
+     * @param connectTimeout The timeout of connecting in milliseconds, 0 means no timeout.
+     */
+    public TcpDisplayTransport(String host, int port, int connectTimeout) {
+        this.mHost = host;
+        this.mPort = port;
+        this.mConnectTimeout = connectTimeout;
+    }
+
+    @Override
+    public void connect() throws IOException {
+        close();
+
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(mHost, mPort), mConnectTimeout);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        mSocket = socket;
+        setStreams(socket.getInputStream(), socket.getOutputStream());
+    }
+
+    @Override
+    public boolean isConnected() {
+        Socket socket = mSocket;
+        return socket != null && socket.isConnected() && !socket.isClosed();
+    }
+
+    @Override
+    protected void closeConnection() {
+        if (mSocket != null) {
+            try {
+                mSocket.close();
+            } catch (IOException e) {
+            }
+            mSocket = null;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+/**
+ * Represents the hand-over of the frames from the game to the sender of the frames.
+ * It has three buffers: the producer copies a frame into its buffer and publishes it by swapping it with
+ * the ready buffer, the consumer takes the ready buffer by swapping it with its buffer.
+ * So the producer is never blocked by the consumer and the consumer never reads a frame, which is written.
+ * If the consumer has not taken the ready frame, a new published frame replaces it (the stale frame is dropped).
+ * <p/>
+ * A frame can carry the time of the oldest input, which it contains, for measuring the latency from the input
+ * to the display. If a frame is dropped, its input time is passed on to the frame, which replaces it.
+ *
+ * @author Stefan Constantin
+ */
+public final class TripleFrameBuffer {
+
+    private byte[] mProducerBuffer;
+    private byte[] mReadyBuffer;
+    private byte[] mConsumerBuffer;
+
+    private long mReadyInputTimestamp = 0;
+    private long mTakenInputTimestamp = 0;
+
+    private boolean mReadyFrameAvailable = false;
+    private boolean mClosed = false;
+    private long mPublishedFrames = 0;
+    private long mDroppedFrames = 0;
+
+
+    /**
+     * Creates a new triple frame buffer.
+     *
+     * @param frameLength The number of bytes of a frame.
+     */
+    public TripleFrameBuffer(int frameLength) {
+        mProducerBuffer = new byte[frameLength];
+        mReadyBuffer = new byte[frameLength];
+        mConsumerBuffer = new byte[frameLength];
+    }
+
+    /**
+     * Publishes a frame without input.
+     *
+     * @param frame The frame, it has frameLength bytes.
+     */
+    public void publish(byte[] frame) {
+        publish(frame, 0);
+    }
+
+    /**
+     * Publishes a frame, it is copied, so the caller can change the frame afterwards.
+     * A frame, which is published after the buffer was closed, is dropped.
+     *
+     * @param frame          The frame, it has frameLength bytes.
+     * @param inputTimestamp The time (System.nanoTime()) of the oldest input in the frame, 0 if it has no input.
+     */
+    public void publish(byte[] frame, long inputTimestamp) {
+        System.arraycopy(frame, 0, mProducerBuffer, 0, mProducerBuffer.length);
+
+        synchronized (this) {
+            if (mClosed) {
+                return;
+            }
+
+            byte[] buffer = mReadyBuffer;
+            mReadyBuffer = mProducerBuffer;
+            mProducerBuffer = buffer;
+
+            if (mReadyFrameAvailable) {
+                mDroppedFrames++;
+                if (mReadyInputTimestamp != 0 && (inputTimestamp == 0 || mReadyInputTimestamp - inputTimestamp < 0)) {
+                    inputTimestamp = mReadyInputTimestamp;
+                }
+            }
+            mReadyInputTimestamp = inputTimestamp;
+            mReadyFrameAvailable = true;
+            mPublishedFrames++;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Waits until a new frame is published and takes it.
+     *
+     * @return The newest published frame, it is valid until the next call of take,
+     * or null if the buffer was closed or the waiting thread was interrupted.
+     */
+    public synchronized byte[] take() {
+        while (!mReadyFrameAvailable && !mClosed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+
+        if (!mReadyFrameAvailable) {
+            return null;
+        }
+
+        byte[] buffer = mConsumerBuffer;
+        mConsumerBuffer = mReadyBuffer;
+        mReadyBuffer = buffer;
+        mReadyFrameAvailable = false;
+        mTakenInputTimestamp = mReadyInputTimestamp;
+        mReadyInputTimestamp = 0;
+
+        return mConsumerBuffer;
+    }
+
+    /**
+     * @return The input time of the frame, which was returned by the last take, 0 if it has no input.
+     * It may only be called by the consumer.
+     */
+    public long getTakenInputTimestamp() {
+        return mTakenInputTimestamp;
+    }
+
+    /**
+     * Closes the buffer, a waiting consumer is woken up, a frame, which is not taken, is dropped.
+     */
+    public synchronized void close() {
+        mClosed = true;
+        mReadyFrameAvailable = false;
+        notifyAll();
+    }
+
+    /**
+     * @return The number of published frames.
+     */
+    public synchronized long getPublishedFrames() {
+        return mPublishedFrames;
+    }
+
+    /**
+     * @return The number of published frames, which were replaced by a newer frame before they were taken.
+     */
+    public synchronized long getDroppedFrames() {
+        return mDroppedFrames;
+    }
+}
@@ -0,0 +1,410 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.headless;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Locale;
+
+import io.github.msc42.maze.GameConstants;
+import io.github.msc42.maze.display.DisplayHandshake;
+import io.github.msc42.maze.display.DisplayProtocol;
+import io.github.msc42.maze.display.FrameDecoder;
+import io.github.msc42.maze.display.InvalidFrameException;
+
+/**
+ * Represents an emulator of the LED display, which accepts an app over TCP (e.g. the TcpDisplayTransport),
+ * so the sending path can be tested and benchmarked without a Bluetooth LED display.
+ * It answers the handshake of the DisplayProtocol (version 1 and, if it is enabled, version 2 with frame modes),
+ * decodes every frame and records the arrival time of the frames.
+ * <p/>
+ * Faults are injected while it runs: a bandwidth limit (the frames are read not faster than the bandwidth,
+ * so the sender is slowed down by the full socket buffers), a latency (the handshake response is delayed
+ * and a frame arrives latency after it is read), a disconnect after a number of frames, an immediate disconnect
+ * and an outage, during which connections are refused.
+ * <p/>
+ * One app is connected at a time like with a Bluetooth display.
+ * <p/>
+ * Usage: DisplayEmulator port [maxProtocolVersion] [bytesPerSecond] [latencyMillis] [disconnectAfterFrames]
+ *
+ * @author Stefan Constantin
+ */
+public final class DisplayEmulator {
+
+    public static final int DEFAULT_MAX_FRAMES_PER_SECOND = 60;
+    public static final int ALL_FRAME_MODES = DisplayProtocol.FRAME_MODE_DELTA | DisplayProtocol.FRAME_MODE_RLE
+            | DisplayProtocol.FRAME_MODE_LZ | DisplayProtocol.FRAME_MODE_PACKED_2BPP
+            | DisplayProtocol.FRAME_MODE_PACKED_1BPP;
+
+    // the number of arrival times, which are kept
+    private static final int ARRIVALS_CAPACITY = 1 << 16;
+    // small socket buffers, so that a bandwidth limit slows the sender down soon
+    private static final int RECEIVE_BUFFER_SIZE = 4096;
+
+    private int mWidth;
+    private int mHeight;
+    private byte mMaxProtocolVersion;
+    private int mFrameModes;
+    private int mMaxFramesPerSecond;
+
+    private volatile int mBytesPerSecond = 0;
+    private volatile int mLatencyMillis = 0;
+    private volatile int mDisconnectAfterFrames = 0;
+    private volatile boolean mOutage = false;
+
+    private ServerSocket mServerSocket;
+    private Thread mThread;
+    private volatile boolean mRunning = false;
+    private volatile Socket mSocket;
+    private volatile byte[] mLedMatrix;
+
+    private long[] mArrivals = new long[ARRIVALS_CAPACITY];
+    private long mFrames = 0;
+    private volatile long mBytes = 0;
+    private volatile int mConnections = 0;
+    private volatile int mRefusedConnections = 0;
+    private volatile int mInvalidFrames = 0;
+    private long mNextReadNanos;
+
+
+    /**
+     * Creates a new display emulator with the size of the game, it is started by start().
+     *
+     * @param maxProtocolVersion The highest protocol version, which the display supports.
+     * @param frameModes         The frame modes, which the display supports from version 2 on (bit mask).
+     * @param maxFramesPerSecond The maximal frames per second, which the display sends in the handshake response.
+     */
+    public DisplayEmulator(byte maxProtocolVersion, int frameModes, int maxFramesPerSecond) {
+        this(GameConstants.WIDTH, GameConstants.HEIGHT, maxProtocolVersion, frameModes, maxFramesPerSecond);
+    }
+
+    public DisplayEmulator(int width, int height, byte maxProtocolVersion, int frameModes, int maxFramesPerSecond) {
+        this.mWidth = width;
+        this.mHeight = height;
+        this.mMaxProtocolVersion = maxProtocolVersion;
+        this.mFrameModes = frameModes;
+        this.mMaxFramesPerSecond = maxFramesPerSecond;
+    }
+
+    /**
+     * Listens on the loopback interface and accepts apps in a new thread.
+     *
+     * @param port The port, 0 for any free port (see getPort()).
+     */
+    public void start(int port) throws IOException {
+        mServerSocket = new ServerSocket();
+        mServerSocket.setReceiveBufferSize(RECEIVE_BUFFER_SIZE);
+        mServerSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        mRunning = true;
+        mThread = new Thread("DisplayEmulator") {
+            @Override
+            public void run() {
+                acceptApps();
+            }
+        };
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    /**
+     * Disconnects the app and stops listening.
+     */
+    public void stop() {
+        mRunning = false;
+        try {
+            mServerSocket.close();
+        } catch (IOException e) {
+        }
+        disconnect();
+        try {
+            mThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() {
+        return mServerSocket.getLocalPort();
+    }
+
+    /**
+     * @param bytesPerSecond The bandwidth of the link, 0 means unlimited.
+     */
+    public void setBandwidth(int bytesPerSecond) {
+        mBytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * @param latencyMillis The latency of the link in milliseconds.
+     */
+    public void setLatency(int latencyMillis) {
+        mLatencyMillis = latencyMillis;
+    }
+
+    /**
+     * @param frames The number of frames, after which a connection is closed, 0 means never.
+     */
+    public void setDisconnectAfterFrames(int frames) {
+        mDisconnectAfterFrames = frames;
+    }
+
+    /**
+     * @param outage true if connections are refused (they are accepted and closed immediately).
+     */
+    public void setOutage(boolean outage) {
+        mOutage = outage;
+    }
+
+    /**
+     * Closes the connection to the app immediately.
+     */
+    public void disconnect() {
+        Socket socket = mSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    private void acceptApps() {
+        while (mRunning) {
+            Socket socket;
+            try {
+                socket = mServerSocket.accept();
+            } catch (IOException e) {
+                // the server socket is closed by stop()
+                continue;
+            }
+
+            if (mOutage) {
+                mRefusedConnections++;
+                closeQuietly(socket);
+                continue;
+            }
+
+            mConnections++;
+            mSocket = socket;
+            try {
+                serve(socket);
+            } catch (InvalidFrameException e) {
+                mInvalidFrames++;
+            } catch (IOException e) {
+                // the app or disconnect() closed the connection
+            } finally {
+                mSocket = null;
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    private void serve(Socket socket) throws IOException {
+        CountingInputStream inputStream = new CountingInputStream(new BufferedInputStream(socket.getInputStream()));
+        DisplayHandshake request = DisplayHandshake.readRequest(inputStream);
+        sleepNanos(mLatencyMillis * 1000000L);
+
+        boolean supported = request.getProtocolVersion() <= mMaxProtocolVersion && request.getWidth() == mWidth
+                && request.getHeight() == mHeight;
+        int frameModes = request.getFrameModes() & mFrameModes;
+        DisplayHandshake.writeResponse(socket.getOutputStream(), supported ? DisplayProtocol.HANDSHAKE_STATUS_OKAY
+                : DisplayProtocol.HANDSHAKE_STATUS_UNSUPPORTED, mMaxFramesPerSecond, request.getProtocolVersion(),
+                frameModes);
+        if (!supported) {
+            return;
+        }
+
+        FrameDecoder frameDecoder = new FrameDecoder(mWidth, mHeight, request.getProtocolVersion(), frameModes);
+        mLedMatrix = frameDecoder.getLedMatrix();
+        mNextReadNanos = System.nanoTime();
+        int framesOfConnection = 0;
+        while (true) {
+            long bytesBefore = inputStream.getCount();
+            frameDecoder.readFrame(inputStream);
+            long length = inputStream.getCount() - bytesBefore;
+
+            long arrival = System.nanoTime() + mLatencyMillis * 1000000L;
+            synchronized (this) {
+                mArrivals[(int) (mFrames % ARRIVALS_CAPACITY)] = arrival;
+                mFrames++;
+            }
+            mBytes += length;
+            throttle(length);
+
+            framesOfConnection++;
+            int disconnectAfterFrames = mDisconnectAfterFrames;
+            if (disconnectAfterFrames > 0 && framesOfConnection >= disconnectAfterFrames) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits until the link has transmitted the read bytes with the bandwidth.
+     */
+    private void throttle(long bytes) {
+        int bytesPerSecond = mBytesPerSecond;
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        mNextReadNanos = Math.max(mNextReadNanos, now) + bytes * 1000000000L / bytesPerSecond;
+        sleepNanos(mNextReadNanos - now);
+    }
+
+    private static void sleepNanos(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(nanos / 1000000, (int) (nanos % 1000000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+        }
+    }
+
+    /**
+     * @return The number of received frames.
+     */
+    public synchronized long getFrames() {
+        return mFrames;
+    }
+
+    /**
+     * @return The arrival times (System.nanoTime()) of the last received frames (at most 65536), the oldest first.
+     */
+    public synchronized long[] getArrivals() {
+        int count = (int) Math.min(mFrames, ARRIVALS_CAPACITY);
+        long[] arrivals = new long[count];
+        for (int i = 0; i < count; i++) {
+            arrivals[i] = mArrivals[(int) ((mFrames - count + i) % ARRIVALS_CAPACITY)];
+        }
+        return arrivals;
+    }
+
+    /**
+     * @return The number of received bytes of the frames (without the handshakes).
+     */
+    public long getBytes() {
+        return mBytes;
+    }
+
+    /**
+     * @return The number of accepted connections (without the refused ones during an outage).
+     */
+    public int getConnections() {
+        return mConnections;
+    }
+
+    public int getRefusedConnections() {
+        return mRefusedConnections;
+    }
+
+    /**
+     * @return The number of frames, which violated the protocol, the connection is closed after such a frame.
+     */
+    public int getInvalidFrames() {
+        return mInvalidFrames;
+    }
+
+    /**
+     * @return The current content of the display, one byte per pixel, or null before the first handshake.
+     */
+    public byte[] getLedMatrix() {
+        return mLedMatrix;
+    }
+
+    /**
+     * Represents a stream, which counts the read bytes.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long mCount = 0;
+
+
+        private CountingInputStream(InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                mCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                mCount += read;
+            }
+            return read;
+        }
+
+        private long getCount() {
+            return mCount;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: DisplayEmulator port [maxProtocolVersion] [bytesPerSecond] [latencyMillis] "
+                    + "[disconnectAfterFrames]");
+            System.exit(1);
+        }
+
+        byte maxProtocolVersion = args.length > 1 ? Byte.parseByte(args[1]) : DisplayProtocol.VERSION_1;
+        DisplayEmulator emulator = new DisplayEmulator(maxProtocolVersion, ALL_FRAME_MODES,
+                DEFAULT_MAX_FRAMES_PER_SECOND);
+        emulator.setBandwidth(args.length > 2 ? Integer.parseInt(args[2]) : 0);
+        emulator.setLatency(args.length > 3 ? Integer.parseInt(args[3]) : 0);
+        emulator.setDisconnectAfterFrames(args.length > 4 ? Integer.parseInt(args[4]) : 0);
+        emulator.start(Integer.parseInt(args[0]));
+        System.out.println("listening on port " + emulator.getPort());
+
+        long frames = 0;
+        long bytes = 0;
+        while (true) {
+            Thread.sleep(1000);
+            long currentFrames = emulator.getFrames();
+            long currentBytes = emulator.getBytes();
+            System.out.println(String.format(Locale.ENGLISH,
+                    "connections: %d, frames/s: %d, bytes/s: %d, frames: %d, invalid frames: %d",
+                    emulator.getConnections(), currentFrames - frames, currentBytes - bytes, currentFrames,
+                    emulator.getInvalidFrames()));
+            frames = currentFrames;
+            bytes = currentBytes;
+        }
+    }
+}
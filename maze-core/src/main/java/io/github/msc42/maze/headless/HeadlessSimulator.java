@@ -0,0 +1,197 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+
+import io.github.msc42.maze.FileLevelSource;
+import io.github.msc42.maze.Game;
+import io.github.msc42.maze.InvalidLevelException;
+import io.github.msc42.maze.LevelSource;
+
+/**
+ * Represents a driver, which runs the game without a display and without a player as fast as possible.
+ * It measures the steps per second and the memory usage of the game engine.
+ * <p/>
+ * Usage: HeadlessSimulator levelDirectory [steps] [difficulty] [idle|random] [seed]
+ *
+ * @author Stefan Constantin
+ */
+public final class HeadlessSimulator {
+
+    public static final String MOVES_IDLE = "idle";
+    public static final String MOVES_RANDOM = "random";
+
+    private static final int DEFAULT_STEPS = 10000000;
+    private static final int DEFAULT_DIFFICULTY = 3;
+    private static final long DEFAULT_SEED = 42;
+    private static final int WARM_UP_STEPS = 100000;
+
+    // the player can only move in these directions (accelerometer and touchscreen buttons)
+    private static final int[] PLAYER_MOVES = {Game.NO_MOVE, Game.UP, Game.RIGHT, Game.DOWN, Game.LEFT};
+
+    private LevelSource mLevelSource;
+    private int mDifficulty;
+    private boolean mRandomMoves;
+    private long mSeed;
+
+
+    /**
+     * Creates a new headless simulator.
+     *
+     * @param levelSource The source of the levels.
+     * @param difficulty  The difficulty of the game.
+     * @param randomMoves true if the hero point does random moves, false if it does not move.
+     * @param seed        The seed of the random moves.
+     */
+    public HeadlessSimulator(LevelSource levelSource, int difficulty, boolean randomMoves, long seed) {
+        this.mLevelSource = levelSource;
+        this.mDifficulty = difficulty;
+        this.mRandomMoves = randomMoves;
+        this.mSeed = seed;
+    }
+
+    /**
+     * Runs a new game for the given number of steps.
+     *
+     * @param steps The number of steps.
+     * @return The measured values of the run.
+     * @throws InvalidLevelException
+     * @throws IOException
+     */
+    public Result run(int steps) throws InvalidLevelException, IOException {
+        // the moves are computed before the measurement, so that the random generator is not measured
+        int[] moves = new int[Math.min(steps, 1 << 16)];
+        Random random = new Random(mSeed);
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = mRandomMoves ? PLAYER_MOVES[random.nextInt(PLAYER_MOVES.length)] : Game.NO_MOVE;
+        }
+
+        long usedMemoryBefore = usedMemory();
+
+        Game game = new Game(mLevelSource, mDifficulty);
+        int checksum = 0;
+
+        long timeStart = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            byte[] ledMatrix = game.doStep(moves[i % moves.length]);
+            checksum += ledMatrix[i % ledMatrix.length];
+        }
+        long duration = System.nanoTime() - timeStart;
+
+        long usedMemoryAfter = usedMemory();
+
+        return new Result(steps, duration, usedMemoryAfter - usedMemoryBefore, game.getCurrentLevelNumber(),
+                checksum);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        // one garbage collection does not always collect everything
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws InvalidLevelException, IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: HeadlessSimulator levelDirectory [steps] [difficulty] ["
+                    + MOVES_IDLE + "|" + MOVES_RANDOM + "] [seed]");
+            System.exit(1);
+        }
+
+        File levelDirectory = new File(args[0]);
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_STEPS;
+        int difficulty = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DIFFICULTY;
+        boolean randomMoves = args.length > 3 && MOVES_RANDOM.equals(args[3]);
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_SEED;
+
+        HeadlessSimulator simulator = new HeadlessSimulator(new FileLevelSource(levelDirectory), difficulty,
+                randomMoves, seed);
+
+        simulator.run(Math.min(steps, WARM_UP_STEPS));
+        Result result = simulator.run(steps);
+
+        System.out.println(String.format(Locale.ENGLISH, "steps:          %d", result.getSteps()));
+        System.out.println(String.format(Locale.ENGLISH, "duration:       %.3f s", result.getDurationNanos() / 1e9));
+        System.out.println(String.format(Locale.ENGLISH, "steps/s:        %.0f", result.getStepsPerSecond()));
+        System.out.println(String.format(Locale.ENGLISH, "ns/step:        %.1f", result.getNanosPerStep()));
+        System.out.println(String.format(Locale.ENGLISH, "retained bytes: %d", result.getRetainedBytes()));
+        System.out.println(String.format(Locale.ENGLISH, "last level:     %d", result.getLastLevelNumber()));
+        System.out.println(String.format(Locale.ENGLISH, "checksum:       %d", result.getChecksum()));
+    }
+
+    /**
+     * Represents the measured values of a run of the headless simulator.
+     */
+    public static final class Result {
+
+        private long mSteps;
+        private long mDurationNanos;
+        private long mRetainedBytes;
+        private int mLastLevelNumber;
+        private int mChecksum;
+
+
+        private Result(long steps, long durationNanos, long retainedBytes, int lastLevelNumber, int checksum) {
+            this.mSteps = steps;
+            this.mDurationNanos = durationNanos;
+            this.mRetainedBytes = retainedBytes;
+            this.mLastLevelNumber = lastLevelNumber;
+            this.mChecksum = checksum;
+        }
+
+        public long getSteps() {
+            return mSteps;
+        }
+
+        public long getDurationNanos() {
+            return mDurationNanos;
+        }
+
+        public double getStepsPerSecond() {
+            return mDurationNanos == 0 ? 0 : mSteps * 1e9 / mDurationNanos;
+        }
+
+        public double getNanosPerStep() {
+            return mSteps == 0 ? 0 : mDurationNanos / (double) mSteps;
+        }
+
+        /**
+         * @return The heap memory, which the game occupies after the run (measured after a garbage collection).
+         */
+        public long getRetainedBytes() {
+            return mRetainedBytes;
+        }
+
+        public int getLastLevelNumber() {
+            return mLastLevelNumber;
+        }
+
+        /**
+         * @return A checksum over the sent frames, which prevents that the JIT compiler eliminates the run.
+         */
+        public int getChecksum() {
+            return mChecksum;
+        }
+    }
+}
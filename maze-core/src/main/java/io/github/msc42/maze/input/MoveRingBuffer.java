@@ -0,0 +1,192 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.input;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a lock-free single producer single consumer queue of moves with a fixed capacity.
+ * Every move is stored with the time at which it was offered. The moves are stored as primitive ints,
+ * so offer and poll neither allocate memory nor throw exceptions.
+ * <p/>
+ * At most one thread may offer at a time (several producers have to synchronize among themselves)
+ * and at most one thread may poll at a time, offer and poll can run concurrently.
+ * If the queue is full, the overflow policy decides, which move is discarded.
+ *
+ * @author Stefan Constantin
+ */
+public final class MoveRingBuffer {
+
+    /**
+     * Is returned by poll if the queue is empty, it is not a valid move.
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * Represents the policies for offering a move to a full queue.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The offered move is discarded.
+         */
+        DROP_NEWEST,
+        /**
+         * The oldest move in the queue is discarded, so that the offered move fits in the queue.
+         */
+        DROP_OLDEST
+    }
+
+    private int mCapacity;
+    private int mMask;
+    private OverflowPolicy mOverflowPolicy;
+
+    private int[] mMoves;
+    private long[] mTimestamps;
+
+    // the index of the next move to poll, it is only advanced by compareAndSet,
+    // because the producer advances it with OverflowPolicy.DROP_OLDEST
+    private final AtomicLong mHead = new AtomicLong();
+    // the index of the next move to offer, it is only written by the producer
+    private final AtomicLong mTail = new AtomicLong();
+
+    private volatile long mDroppedMoves = 0;
+    private long mLastPolledTimestamp = 0;
+
+
+    /**
+     * Creates a new move ring buffer.
+     *
+     * @param capacity       The maximal number of moves in the queue (1 <= capacity <= 2^30).
+     * @param overflowPolicy The policy for offering a move to a full queue.
+     */
+    public MoveRingBuffer(int capacity, OverflowPolicy overflowPolicy) {
+        this.mCapacity = capacity;
+        this.mOverflowPolicy = overflowPolicy;
+
+        int length = Integer.highestOneBit(capacity);
+        if (length < capacity) {
+            length <<= 1;
+        }
+        mMask = length - 1;
+        mMoves = new int[length];
+        mTimestamps = new long[length];
+    }
+
+    /**
+     * Offers a move, the time of the offer is System.nanoTime().
+     *
+     * @param move The move, e.g. Game.UP (0 <= move).
+     * @return true if the move was added, false if it was discarded.
+     */
+    public boolean offer(int move) {
+        return offer(move, System.nanoTime());
+    }
+
+    /**
+     * Offers a move.
+     *
+     * @param move           The move, e.g. Game.UP (0 <= move).
+     * @param timestampNanos The time of the move (System.nanoTime()).
+     * @return true if the move was added, false if it was discarded.
+     */
+    public boolean offer(int move, long timestampNanos) {
+        long tail = mTail.get();
+
+        long head = mHead.get();
+        while (tail - head >= mCapacity) {
+            if (mOverflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                mDroppedMoves++;
+                return false;
+            }
+            if (mHead.compareAndSet(head, head + 1)) {
+                mDroppedMoves++;
+                break;
+            }
+            // the consumer polled a move in the meantime
+            head = mHead.get();
+        }
+
+        int index = (int) tail & mMask;
+        mMoves[index] = move;
+        mTimestamps[index] = timestampNanos;
+        mTail.lazySet(tail + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest move.
+     *
+     * @return The oldest move or EMPTY if the queue is empty.
+     */
+    public int poll() {
+        while (true) {
+            long head = mHead.get();
+            if (head >= mTail.get()) {
+                return EMPTY;
+            }
+
+            int index = (int) head & mMask;
+            int move = mMoves[index];
+            long timestamp = mTimestamps[index];
+            // fails if the producer discarded the move (OverflowPolicy.DROP_OLDEST) and maybe overwrote it
+            if (mHead.compareAndSet(head, head + 1)) {
+                mLastPolledTimestamp = timestamp;
+                return move;
+            }
+        }
+    }
+
+    /**
+     * @return The time (System.nanoTime()) at which the move, which was returned by the last poll, was offered.
+     * It may only be called by the consumer.
+     */
+    public long getLastPolledTimestamp() {
+        return mLastPolledTimestamp;
+    }
+
+    /**
+     * Removes all moves, it may only be called by the consumer.
+     */
+    public void clear() {
+        while (poll() != EMPTY) {
+        }
+    }
+
+    /**
+     * @return The number of moves in the queue, it is only a snapshot if other threads use the queue.
+     */
+    public int size() {
+        long head = mHead.get();
+        long tail = mTail.get();
+        return (int) Math.max(0, Math.min(mCapacity, tail - head));
+    }
+
+    /**
+     * @return The maximal number of moves in the queue.
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * @return The number of moves, which were discarded, because the queue was full.
+     */
+    public long getDroppedMoves() {
+        return mDroppedMoves;
+    }
+}
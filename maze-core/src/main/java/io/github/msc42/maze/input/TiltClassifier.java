@@ -0,0 +1,142 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.input;
+
+/**
+ * Represents the classifier, which derives the tilt direction from the acceleration of the device.
+ * <p/>
+ * The acceleration is smoothed by a low-pass filter (exponential moving average), components below the dead zone
+ * are ignored. A direction is entered if the filtered acceleration along its axis exceeds the enter threshold
+ * and is the dominant component, it is left not until the acceleration falls below the lower exit threshold.
+ * So a tilt near the threshold does not flap between a direction and NONE.
+ * <p/>
+ * The directions are the indices 0 (+x), 1 (-y), 2 (-x) and 3 (+y). All state is kept in primitive fields,
+ * so classifying does not allocate memory.
+ *
+ * @author Stefan Constantin
+ */
+public final class TiltClassifier {
+
+    public static final int NONE = -1;
+
+    private float mEnterThreshold;
+    private float mExitThreshold;
+    private float mDeadZone;
+    private float mSmoothing;
+
+    private boolean mFilterInitialized = false;
+    private float mFilteredX;
+    private float mFilteredY;
+    private int mDirection = NONE;
+
+
+    /**
+     * Creates a new tilt classifier.
+     *
+     * @param enterThreshold The acceleration in m/s^2, from which a direction is entered.
+     * @param exitThreshold  The acceleration in m/s^2, below which a direction is left (exitThreshold <= enterThreshold).
+     * @param deadZone       The acceleration in m/s^2, below which a component is ignored.
+     * @param smoothing      The weight of a new value in the low-pass filter (0 < smoothing <= 1, 1 means no filter).
+     */
+    public TiltClassifier(float enterThreshold, float exitThreshold, float deadZone, float smoothing) {
+        this.mEnterThreshold = enterThreshold;
+        this.mExitThreshold = exitThreshold;
+        this.mDeadZone = deadZone;
+        this.mSmoothing = smoothing;
+    }
+
+    /**
+     * Classifies the next value of the acceleration sensor.
+     *
+     * @param x The acceleration along the x axis in m/s^2.
+     * @param y The acceleration along the y axis in m/s^2.
+     * @return The current direction (0 to 3) or NONE.
+     */
+    public int classify(float x, float y) {
+        if (mFilterInitialized) {
+            mFilteredX += mSmoothing * (x - mFilteredX);
+            mFilteredY += mSmoothing * (y - mFilteredY);
+        } else {
+            mFilteredX = x;
+            mFilteredY = y;
+            mFilterInitialized = true;
+        }
+
+        int dominantDirection = dominantDirection();
+        float dominantTilt = tiltAlong(dominantDirection);
+
+        if (mDirection != NONE && tiltAlong(mDirection) >= mExitThreshold
+                && (dominantDirection == mDirection || dominantTilt < mEnterThreshold)) {
+            // the current direction is kept until another direction is entered
+            return mDirection;
+        }
+
+        mDirection = dominantTilt > mEnterThreshold ? dominantDirection : NONE;
+        return mDirection;
+    }
+
+    private int dominantDirection() {
+        if (Math.abs(mFilteredX) >= Math.abs(mFilteredY)) {
+            return mFilteredX >= 0 ? 0 : 2;
+        }
+        return mFilteredY >= 0 ? 3 : 1;
+    }
+
+    private float tiltAlong(int direction) {
+        float tilt;
+        switch (direction) {
+            case 0:
+                tilt = mFilteredX;
+                break;
+            case 1:
+                tilt = -mFilteredY;
+                break;
+            case 2:
+                tilt = -mFilteredX;
+                break;
+            case 3:
+                tilt = mFilteredY;
+                break;
+            default:
+                return 0;
+        }
+        return tilt < mDeadZone ? 0 : tilt;
+    }
+
+    /**
+     * @return The current direction (0 to 3) or NONE.
+     */
+    public int getDirection() {
+        return mDirection;
+    }
+
+    /**
+     * @return The filtered acceleration along the axis of the current direction, 0 if the direction is NONE.
+     */
+    public float getTilt() {
+        return tiltAlong(mDirection);
+    }
+
+    /**
+     * Forgets the filtered values and the current direction.
+     */
+    public void reset() {
+        mFilterInitialized = false;
+        mDirection = NONE;
+    }
+}
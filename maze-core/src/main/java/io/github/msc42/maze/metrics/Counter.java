@@ -15,23 +15,29 @@
 // You should have received a copy of the GNU General Public License
 // along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
 
-package io.github.msc42.maze;
+package io.github.msc42.maze.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Represents a border point.
+ * Represents a lock-free counter of a MetricsRegistry.
  *
  * @author Stefan Constantin
  */
-class BorderPoint implements Point {
+public final class Counter {
+
+    private final AtomicLong mValue = new AtomicLong();
+
+
+    public void increment() {
+        mValue.incrementAndGet();
+    }
 
-    /**
-     * Creates a new border point.
-     */
-    protected BorderPoint() {
+    public void add(long delta) {
+        mValue.addAndGet(delta);
     }
 
-    @Override
-    public byte getPixelValue() {
-        return GameConstants.LED_HALF;
+    public long get() {
+        return mValue.get();
     }
-}
\ No newline at end of file
+}
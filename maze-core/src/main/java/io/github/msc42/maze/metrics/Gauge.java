@@ -15,23 +15,18 @@
 // You should have received a copy of the GNU General Public License
 // along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
 
-package io.github.msc42.maze;
+package io.github.msc42.maze.metrics;
 
 /**
- * Represents a next level point.
+ * Represents a value of a MetricsRegistry, which is read when the metrics are dumped,
+ * e.g. a counter, which is kept by another class.
  *
  * @author Stefan Constantin
  */
-class NextLevelPoint implements Point {
+public interface Gauge {
 
     /**
-     * Creates a new next level point.
+     * @return The current value, it is called by the thread, which dumps the metrics.
      */
-    protected NextLevelPoint() {
-    }
-
-    @Override
-    public byte getPixelValue() {
-        return GameConstants.LED_THREE_QUARTER;
-    }
+    long getValue();
 }
@@ -0,0 +1,148 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.metrics;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Represents the latency histograms of the stages, which a move passes from the input to the display:
+ * <p/>
+ * STAGE_SENSOR_TO_ENQUEUE: from the sensor event to the offer to the move queue (only tilt moves)<br/>
+ * STAGE_QUEUE_WAIT: from the offer to the poll by the game thread<br/>
+ * STAGE_TICK: the steps of the game in a tick<br/>
+ * STAGE_ENCODE: the encoding of a frame<br/>
+ * STAGE_WRITE: the writing of an encoded frame<br/>
+ * STAGE_INPUT_TO_WRITE: from the offer of a move to the end of the writing of the first frame,
+ * which contains the move
+ *
+ * @author Stefan Constantin
+ */
+public final class InputLatencyMetrics {
+
+    public static final int STAGE_SENSOR_TO_ENQUEUE = 0;
+    public static final int STAGE_QUEUE_WAIT = 1;
+    public static final int STAGE_TICK = 2;
+    public static final int STAGE_ENCODE = 3;
+    public static final int STAGE_WRITE = 4;
+    public static final int STAGE_INPUT_TO_WRITE = 5;
+
+    private static final String[] STAGE_NAMES = {"sensor->enqueue", "queue wait", "tick", "encode", "write",
+            "input->write"};
+    private static final String[] METRIC_NAMES = {"latency.sensorToEnqueue", "latency.queueWait", "tick.duration",
+            "frame.encodeDuration", "frame.writeDuration", "latency.inputToWrite"};
+
+    private LatencyHistogram[] mHistograms = new LatencyHistogram[STAGE_NAMES.length];
+
+
+    /**
+     * Creates new input latency metrics, which are not part of a registry.
+     */
+    public InputLatencyMetrics() {
+        for (int i = 0; i < mHistograms.length; i++) {
+            mHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Creates new input latency metrics and registers their histograms as duration histograms,
+     * e.g. tick.duration and latency.inputToWrite.
+     *
+     * @param metricsRegistry The registry.
+     */
+    public InputLatencyMetrics(MetricsRegistry metricsRegistry) {
+        for (int i = 0; i < mHistograms.length; i++) {
+            mHistograms[i] = metricsRegistry.durationHistogram(METRIC_NAMES[i]);
+        }
+    }
+
+    /**
+     * @return The number of stages.
+     */
+    public int getStages() {
+        return mHistograms.length;
+    }
+
+    /**
+     * @param stage The stage, e.g. STAGE_QUEUE_WAIT.
+     * @return The name of the stage.
+     */
+    public String getStageName(int stage) {
+        return STAGE_NAMES[stage];
+    }
+
+    /**
+     * @param stage The stage, e.g. STAGE_QUEUE_WAIT.
+     * @return The histogram of the stage.
+     */
+    public LatencyHistogram getHistogram(int stage) {
+        return mHistograms[stage];
+    }
+
+    /**
+     * Records the latency of a stage.
+     *
+     * @param stage The stage, e.g. STAGE_QUEUE_WAIT.
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(int stage, long nanos) {
+        mHistograms[stage].record(nanos);
+    }
+
+    /**
+     * Removes all recorded latencies.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : mHistograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Writes a table of all stages (count, mean, percentiles and maximum in milliseconds).
+     *
+     * @param appendable The destination of the table.
+     * @throws IOException If the destination can not be written.
+     */
+    public void dump(Appendable appendable) throws IOException {
+        appendable.append(String.format(Locale.ENGLISH, "%-16s %8s %8s %8s %8s %8s %8s%n",
+                "stage", "count", "mean", "p50", "p90", "p99", "max"));
+        for (int i = 0; i < mHistograms.length; i++) {
+            LatencyHistogram histogram = mHistograms[i];
+            appendable.append(String.format(Locale.ENGLISH, "%-16s %8d %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                    STAGE_NAMES[i], histogram.getCount(), toMillis(histogram.getMean()),
+                    toMillis(histogram.getPercentile(50)), toMillis(histogram.getPercentile(90)),
+                    toMillis(histogram.getPercentile(99)), toMillis(histogram.getMax())));
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        try {
+            dump(stringBuilder);
+        } catch (IOException e) {
+            // a StringBuilder does not throw an IOException
+        }
+        return stringBuilder.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+}
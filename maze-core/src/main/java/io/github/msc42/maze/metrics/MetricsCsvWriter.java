@@ -0,0 +1,71 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Represents the writer of periodic CSV snapshots of a MetricsRegistry.
+ * The header is written before the first snapshot and again if metrics were registered in the meantime.
+ *
+ * @author Stefan Constantin
+ */
+public final class MetricsCsvWriter {
+
+    private MetricsRegistry mMetricsRegistry;
+    private Writer mWriter;
+    private int mHeaderColumns = -1;
+
+
+    /**
+     * Creates a new metrics CSV writer.
+     *
+     * @param metricsRegistry The registry.
+     * @param writer          The destination of the snapshots, it is flushed after every snapshot.
+     */
+    public MetricsCsvWriter(MetricsRegistry metricsRegistry, Writer writer) {
+        this.mMetricsRegistry = metricsRegistry;
+        this.mWriter = writer;
+    }
+
+    /**
+     * Writes a snapshot of the current values of all metrics.
+     *
+     * @param timeMillis The time of the snapshot (System.currentTimeMillis()).
+     * @throws IOException If the destination can not be written.
+     */
+    public void writeSnapshot(long timeMillis) throws IOException {
+        int columns = mMetricsRegistry.getCsvColumns();
+        if (columns != mHeaderColumns) {
+            mMetricsRegistry.writeCsvHeader(mWriter);
+            mHeaderColumns = columns;
+        }
+        mMetricsRegistry.writeCsvRow(mWriter, timeMillis);
+        mWriter.flush();
+    }
+
+    /**
+     * Closes the destination.
+     *
+     * @throws IOException If the destination can not be closed.
+     */
+    public void close() throws IOException {
+        mWriter.close();
+    }
+}
@@ -0,0 +1,210 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Represents the registry of the metrics of the game loop and the sender: counters, gauges and histograms.
+ * The metrics are registered once at the beginning, updating them does neither lock nor allocate memory.
+ * The registry can be dumped as text and written as CSV snapshots (see MetricsCsvWriter).
+ *
+ * @author Stefan Constantin
+ */
+public final class MetricsRegistry {
+
+    private static final int COUNTER = 0;
+    private static final int GAUGE = 1;
+    private static final int HISTOGRAM = 2;
+    private static final int DURATION_HISTOGRAM = 3;
+
+    private static final String[] HISTOGRAM_COLUMNS = {"count", "mean", "p50", "p90", "p99", "max"};
+
+    private static final class Metric {
+        String mName;
+        int mType;
+        Counter mCounter;
+        Gauge mGauge;
+        LatencyHistogram mHistogram;
+    }
+
+    private final List<Metric> mMetrics = new ArrayList<>();
+
+
+    private synchronized Metric register(String name, int type) {
+        for (Metric metric : mMetrics) {
+            if (metric.mName.equals(name)) {
+                throw new IllegalArgumentException("metric " + name + " is already registered");
+            }
+        }
+
+        Metric metric = new Metric();
+        metric.mName = name;
+        metric.mType = type;
+        mMetrics.add(metric);
+        return metric;
+    }
+
+    /**
+     * Registers a counter.
+     *
+     * @param name The unique name of the metric.
+     * @return The counter.
+     */
+    public Counter counter(String name) {
+        Metric metric = register(name, COUNTER);
+        metric.mCounter = new Counter();
+        return metric.mCounter;
+    }
+
+    /**
+     * Registers a gauge.
+     *
+     * @param name  The unique name of the metric.
+     * @param gauge The gauge.
+     */
+    public void gauge(String name, Gauge gauge) {
+        register(name, GAUGE).mGauge = gauge;
+    }
+
+    /**
+     * Registers a histogram of values, e.g. sizes in bytes.
+     *
+     * @param name The unique name of the metric.
+     * @return The histogram.
+     */
+    public LatencyHistogram histogram(String name) {
+        Metric metric = register(name, HISTOGRAM);
+        metric.mHistogram = new LatencyHistogram();
+        return metric.mHistogram;
+    }
+
+    /**
+     * Registers a histogram of durations in nanoseconds, they are dumped in milliseconds.
+     *
+     * @param name The unique name of the metric.
+     * @return The histogram.
+     */
+    public LatencyHistogram durationHistogram(String name) {
+        Metric metric = register(name, DURATION_HISTOGRAM);
+        metric.mHistogram = new LatencyHistogram();
+        return metric.mHistogram;
+    }
+
+    /**
+     * Writes all metrics as text, one metric per line.
+     *
+     * @param appendable The destination.
+     * @throws IOException If the destination can not be written.
+     */
+    public synchronized void dump(Appendable appendable) throws IOException {
+        for (Metric metric : mMetrics) {
+            switch (metric.mType) {
+                case COUNTER:
+                    appendable.append(String.format(Locale.ENGLISH, "%-28s %d%n", metric.mName,
+                            metric.mCounter.get()));
+                    break;
+                case GAUGE:
+                    appendable.append(String.format(Locale.ENGLISH, "%-28s %d%n", metric.mName,
+                            metric.mGauge.getValue()));
+                    break;
+                default:
+                    LatencyHistogram histogram = metric.mHistogram;
+                    String unit = metric.mType == DURATION_HISTOGRAM ? " ms" : "";
+                    appendable.append(String.format(Locale.ENGLISH,
+                            "%-28s count=%d mean=%s%s p50=%s p90=%s p99=%s max=%s%n", metric.mName,
+                            histogram.getCount(), format(metric, histogram.getMean()), unit,
+                            format(metric, histogram.getPercentile(50)), format(metric, histogram.getPercentile(90)),
+                            format(metric, histogram.getPercentile(99)), format(metric, histogram.getMax())));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return The number of columns of a CSV row (without the time).
+     */
+    public synchronized int getCsvColumns() {
+        int columns = 0;
+        for (Metric metric : mMetrics) {
+            columns += metric.mType == COUNTER || metric.mType == GAUGE ? 1 : HISTOGRAM_COLUMNS.length;
+        }
+        return columns;
+    }
+
+    /**
+     * Writes the CSV header: time, then one column per counter and gauge and six columns per histogram.
+     *
+     * @param appendable The destination.
+     * @throws IOException If the destination can not be written.
+     */
+    public synchronized void writeCsvHeader(Appendable appendable) throws IOException {
+        appendable.append("time");
+        for (Metric metric : mMetrics) {
+            if (metric.mType == COUNTER || metric.mType == GAUGE) {
+                appendable.append(',').append(metric.mName);
+            } else {
+                for (String column : HISTOGRAM_COLUMNS) {
+                    appendable.append(',').append(metric.mName).append('.').append(column);
+                }
+            }
+        }
+        appendable.append('\n');
+    }
+
+    /**
+     * Writes a CSV row with the current values of all metrics.
+     *
+     * @param appendable The destination.
+     * @param timeMillis The time of the snapshot (System.currentTimeMillis()).
+     * @throws IOException If the destination can not be written.
+     */
+    public synchronized void writeCsvRow(Appendable appendable, long timeMillis) throws IOException {
+        appendable.append(Long.toString(timeMillis));
+        for (Metric metric : mMetrics) {
+            switch (metric.mType) {
+                case COUNTER:
+                    appendable.append(',').append(Long.toString(metric.mCounter.get()));
+                    break;
+                case GAUGE:
+                    appendable.append(',').append(Long.toString(metric.mGauge.getValue()));
+                    break;
+                default:
+                    LatencyHistogram histogram = metric.mHistogram;
+                    appendable.append(',').append(Long.toString(histogram.getCount()))
+                            .append(',').append(format(metric, histogram.getMean()))
+                            .append(',').append(format(metric, histogram.getPercentile(50)))
+                            .append(',').append(format(metric, histogram.getPercentile(90)))
+                            .append(',').append(format(metric, histogram.getPercentile(99)))
+                            .append(',').append(format(metric, histogram.getMax()));
+                    break;
+            }
+        }
+        appendable.append('\n');
+    }
+
+    private static String format(Metric metric, long value) {
+        if (metric.mType == DURATION_HISTOGRAM) {
+            return String.format(Locale.ENGLISH, "%.3f", value / 1e6);
+        }
+        return Long.toString(value);
+    }
+}
@@ -0,0 +1,54 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.timing;
+
+/**
+ * Represents a monotonic clock with nanosecond resolution, which can be replaced in tests.
+ *
+ * @author Stefan Constantin
+ */
+public interface Clock {
+
+    /**
+     * The clock of the system (System.nanoTime and Thread.sleep).
+     */
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleep(long nanos) throws InterruptedException {
+            Thread.sleep(nanos / 1000000, (int) (nanos % 1000000));
+        }
+    };
+
+    /**
+     * @return The current time in nanoseconds, only differences between two values are meaningful.
+     */
+    long nanoTime();
+
+    /**
+     * Sleeps at least approximately the given time, it may wake up earlier.
+     *
+     * @param nanos The time to sleep in nanoseconds (0 < nanos).
+     * @throws InterruptedException If the thread was interrupted.
+     */
+    void sleep(long nanos) throws InterruptedException;
+}
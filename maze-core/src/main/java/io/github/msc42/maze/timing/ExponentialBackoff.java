@@ -0,0 +1,82 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.timing;
+
+import java.util.Random;
+
+/**
+ * Represents the delays between the attempts of a retry, e.g. of reconnecting to the display.
+ * The delay doubles after every attempt up to a maximum. A random part of the delay (the jitter) is removed,
+ * so that clients, which lost the connection at the same time, do not retry at the same time.
+ *
+ * @author Stefan Constantin
+ */
+public final class ExponentialBackoff {
+
+    private long mInitialDelayMillis;
+    private long mMaxDelayMillis;
+    private double mJitter;
+    private Random mRandom;
+
+    private long mDelayMillis;
+    private int mAttempts;
+
+
+    /**
+     * Creates a new exponential backoff.
+     *
+     * @param initialDelayMillis The delay before the first retry (0 < initialDelayMillis).
+     * @param maxDelayMillis     The maximal delay (initialDelayMillis <= maxDelayMillis).
+     * @param jitter             The maximal part of a delay, which is removed randomly (0 <= jitter <= 1).
+     * @param random             The source of the jitter.
+     */
+    public ExponentialBackoff(long initialDelayMillis, long maxDelayMillis, double jitter, Random random) {
+        this.mInitialDelayMillis = initialDelayMillis;
+        this.mMaxDelayMillis = maxDelayMillis;
+        this.mJitter = jitter;
+        this.mRandom = random;
+        reset();
+    }
+
+    /**
+     * Starts again with the initial delay, it has to be called after a successful attempt.
+     */
+    public void reset() {
+        mDelayMillis = mInitialDelayMillis;
+        mAttempts = 0;
+    }
+
+    /**
+     * Returns the delay before the next attempt and doubles the delay for the attempt after it.
+     *
+     * @return The delay in milliseconds, between (1 - jitter) * delay and delay.
+     */
+    public long nextDelayMillis() {
+        long delayMillis = mDelayMillis;
+        mDelayMillis = Math.min(mMaxDelayMillis, 2 * mDelayMillis);
+        mAttempts++;
+        return delayMillis - (long) (delayMillis * mJitter * mRandom.nextDouble());
+    }
+
+    /**
+     * @return The number of delays since the last reset.
+     */
+    public int getAttempts() {
+        return mAttempts;
+    }
+}
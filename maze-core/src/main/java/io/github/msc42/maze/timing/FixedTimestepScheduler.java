@@ -0,0 +1,128 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.timing;
+
+/**
+ * Represents a scheduler, which paces the ticks of the game with a fixed timestep.
+ * The deadlines of the ticks are absolute (start + n * period), so that the time, which a tick needs,
+ * and the inaccuracy of sleeping do not accumulate.
+ * If the caller is late, it gets the missed ticks to catch up, but at most maxTicksPerWakeUp,
+ * the other missed ticks are skipped. Both are counted.
+ *
+ * @author Stefan Constantin
+ */
+public final class FixedTimestepScheduler {
+
+    private long mPeriodNanos;
+    private int mMaxTicksPerWakeUp;
+    private Clock mClock;
+
+    private long mNextDeadline;
+    private long mTicks = 0;
+    private long mMissedDeadlines = 0;
+    private long mSkippedTicks = 0;
+
+
+    /**
+     * Creates a new fixed timestep scheduler, the first tick is due immediately.
+     *
+     * @param periodNanos       The time between two ticks in nanoseconds (0 < periodNanos).
+     * @param maxTicksPerWakeUp The maximal number of ticks, which are returned at once (1 <= maxTicksPerWakeUp).
+     * @param clock             The clock.
+     */
+    public FixedTimestepScheduler(long periodNanos, int maxTicksPerWakeUp, Clock clock) {
+        this.mPeriodNanos = periodNanos;
+        this.mMaxTicksPerWakeUp = maxTicksPerWakeUp;
+        this.mClock = clock;
+        reset();
+    }
+
+    /**
+     * Starts the deadlines again from now, the next tick is due immediately.
+     * It has to be called after a pause, otherwise the pause counts as missed ticks.
+     */
+    public void reset() {
+        mNextDeadline = mClock.nanoTime();
+    }
+
+    /**
+     * Waits until the next tick is due.
+     *
+     * @return The number of ticks, which the caller has to do now (1 to maxTicksPerWakeUp),
+     * 0 if the thread was interrupted while it was waiting.
+     */
+    public int awaitTicks() {
+        long now = mClock.nanoTime();
+        while (now - mNextDeadline < 0) {
+            try {
+                mClock.sleep(mNextDeadline - now);
+            } catch (InterruptedException e) {
+                return 0;
+            }
+            now = mClock.nanoTime();
+        }
+
+        long dueTicks = 1 + (now - mNextDeadline) / mPeriodNanos;
+        mNextDeadline += dueTicks * mPeriodNanos;
+        mMissedDeadlines += dueTicks - 1;
+
+        int ticks = (int) Math.min(dueTicks, mMaxTicksPerWakeUp);
+        mSkippedTicks += dueTicks - ticks;
+        mTicks += ticks;
+
+        return ticks;
+    }
+
+    /**
+     * Changes the time between two ticks, the next tick is due one new period after the deadline of the last tick.
+     *
+     * @param periodNanos The time between two ticks in nanoseconds (0 < periodNanos).
+     */
+    public void setPeriodNanos(long periodNanos) {
+        mNextDeadline += periodNanos - mPeriodNanos;
+        mPeriodNanos = periodNanos;
+    }
+
+    /**
+     * @return The time between two ticks in nanoseconds.
+     */
+    public long getPeriodNanos() {
+        return mPeriodNanos;
+    }
+
+    /**
+     * @return The number of ticks, which were returned by awaitTicks.
+     */
+    public long getTicks() {
+        return mTicks;
+    }
+
+    /**
+     * @return The number of ticks, which were not done in the period of their deadline (caught up or skipped).
+     */
+    public long getMissedDeadlines() {
+        return mMissedDeadlines;
+    }
+
+    /**
+     * @return The number of ticks, which were skipped, because more than maxTicksPerWakeUp ticks were due.
+     */
+    public long getSkippedTicks() {
+        return mSkippedTicks;
+    }
+}
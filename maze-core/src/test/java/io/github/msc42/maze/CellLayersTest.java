@@ -0,0 +1,84 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CellLayersTest {
+
+    @Test
+    public void layers_areIndependent() {
+        CellLayers cells = new CellLayers(100, 100);
+        cells.set(CellLayers.BORDER, 63, 0);
+        cells.set(CellLayers.NEXT_LEVEL, 64, 0);
+
+        assertTrue(cells.has(CellLayers.BORDER, 63, 0));
+        assertFalse(cells.has(CellLayers.BORDER, 64, 0));
+        assertFalse(cells.has(CellLayers.NEXT_LEVEL, 63, 0));
+        assertTrue(cells.has(CellLayers.NEXT_LEVEL, 64, 0));
+        assertFalse(cells.has(CellLayers.TELEPORT, 99, 99));
+    }
+
+    @Test
+    public void teleportDestination_firstTeleportPointOfCellWins() {
+        CellLayers cells = new CellLayers(24, 24);
+        cells.addTeleport(22, 5, 5, 13);
+        cells.addTeleport(1, 1, 2, 2);
+        cells.addTeleport(22, 5, 7, 7);
+        cells.addTeleport(3, 20, 4, 4);
+        cells.addTeleport(0, 0, 6, 6);
+
+        assertEquals(cells.index(5, 13), cells.getTeleportDestination(22, 5));
+        assertEquals(cells.index(2, 2), cells.getTeleportDestination(1, 1));
+        assertEquals(cells.index(4, 4), cells.getTeleportDestination(3, 20));
+        assertEquals(cells.index(6, 6), cells.getTeleportDestination(0, 0));
+        assertEquals(-1, cells.getTeleportDestination(2, 2));
+    }
+
+    @Test
+    public void enemyPoints_areCountedPerCell() {
+        CellLayers cells = new CellLayers(24, 24);
+        cells.addEnemy(4, 4);
+        cells.addEnemy(4, 4);
+
+        assertFalse(cells.removeEnemy(4, 4));
+        assertTrue(cells.has(CellLayers.ENEMY, 4, 4));
+        assertTrue(cells.removeEnemy(4, 4));
+        assertFalse(cells.has(CellLayers.ENEMY, 4, 4));
+
+        cells.set(CellLayers.BORDER, 5, 5);
+        cells.addEnemy(5, 5);
+        assertFalse(cells.removeEnemy(5, 5));
+    }
+
+    @Test
+    public void pixelValue_followsPriorityOfPoints() {
+        CellLayers cells = new CellLayers(24, 24);
+        cells.set(CellLayers.BORDER, 1, 1);
+        cells.addEnemy(1, 1);
+        cells.addEnemy(2, 2);
+
+        assertEquals(CellLayers.BORDER_PIXEL_VALUE, cells.getPixelValue(1, 1));
+        assertEquals(CellLayers.ENEMY_PIXEL_VALUE, cells.getPixelValue(2, 2));
+        assertEquals(GameConstants.LED_OUT, cells.getPixelValue(3, 3));
+    }
+}
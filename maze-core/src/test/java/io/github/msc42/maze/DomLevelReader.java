@@ -0,0 +1,212 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import static io.github.msc42.maze.Level.JSON_BORDERPOINTS_ID;
+import static io.github.msc42.maze.Level.JSON_ENEMYPOINTS_ID;
+import static io.github.msc42.maze.Level.JSON_HEROPOINT_ID;
+import static io.github.msc42.maze.Level.JSON_NEXTLEVELPOINTS_ID;
+import static io.github.msc42.maze.Level.JSON_STEP_INTERVAL_ID;
+import static io.github.msc42.maze.Level.JSON_TELEPORTPOINTS_ID;
+import static io.github.msc42.maze.Level.JSON_X_AXIS_DESTINATION_ID;
+import static io.github.msc42.maze.Level.JSON_X_AXIS_ID;
+import static io.github.msc42.maze.Level.JSON_X_AXIS_START_ID;
+import static io.github.msc42.maze.Level.JSON_X_AXIS_STEP_ID;
+import static io.github.msc42.maze.Level.JSON_Y_AXIS_DESTINATION_ID;
+import static io.github.msc42.maze.Level.JSON_Y_AXIS_ID;
+import static io.github.msc42.maze.Level.JSON_Y_AXIS_START_ID;
+import static io.github.msc42.maze.Level.JSON_Y_AXIS_STEP_ID;
+
+/**
+ * Reads a level like the former reader of the game: the whole JSON file is read into a string and parsed
+ * into a DOM of org.json. It is the reference, with which the StreamingLevelReader is compared in the tests
+ * and in the LevelLoadBenchmark.
+ */
+final class DomLevelReader {
+
+    private DomLevelReader() {
+    }
+
+    /**
+     * Reads and validates a level from its JSON file like Level.fromJSON(InputStream, boolean).
+     *
+     * @param inputStream The content of the JSON file, it is closed.
+     * @param end         true if it is the level, which is displayed after the last level.
+     * @return The level with the difficulty 0 and without a game.
+     */
+    static Level read(InputStream inputStream, boolean end) throws InvalidLevelException, IOException {
+        Level level = new Level(null, 0, end, new CellLayers(GameConstants.WIDTH, GameConstants.HEIGHT), null,
+                new EnemyPoint[0]);
+        addPoints(level, readJSONFromInputStream(inputStream));
+        return level;
+    }
+
+    private static void addPoints(Level level, String jsonFileContent) throws InvalidLevelException {
+        JSONObject jsonObject;
+        try {
+            jsonObject = new JSONObject(jsonFileContent);
+        } catch (JSONException e) {
+            throw new InvalidLevelException(GameConstants.ERROR_JSON);
+        }
+
+        if (!level.isEnd()) {
+            //order is important
+            addHero(level, jsonObject);
+
+            addNextLevelPoints(level, jsonObject);
+
+            addTeleportPoints(level, jsonObject);
+
+            addBorderPoints(level, jsonObject);
+
+            level.checkStaticPoints();
+
+            addEnemyPoints(level, jsonObject);
+        } else {
+            addBorderPoints(level, jsonObject);
+        }
+    }
+
+    private static String readJSONFromInputStream(InputStream inputStream) throws IOException {
+        String jsonFileContent = "";
+        BufferedReader bufferedReader = null;
+        try {
+            bufferedReader = new BufferedReader(new InputStreamReader(inputStream));
+
+            String line;
+            StringBuilder jsonFile = new StringBuilder();
+            while ((line = bufferedReader.readLine()) != null) {
+                jsonFile.append(line);
+            }
+            jsonFileContent = jsonFile.toString();
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+            }
+            if (bufferedReader != null) {
+                try {
+                    bufferedReader.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+        return jsonFileContent;
+    }
+
+    private static void addHero(Level level, JSONObject jsonObject) throws InvalidLevelException {
+        try {
+            JSONObject heroPoint = jsonObject.getJSONObject(JSON_HEROPOINT_ID);
+            level.setHero(heroPoint.getInt(JSON_X_AXIS_ID), heroPoint.getInt(JSON_Y_AXIS_ID),
+                    heroPoint.getInt(JSON_X_AXIS_STEP_ID), heroPoint.getInt(JSON_Y_AXIS_STEP_ID));
+        } catch (JSONException e) {
+            throw new InvalidLevelException(GameConstants.ERROR_HERO);
+        }
+    }
+
+    private static void addNextLevelPoints(Level level, JSONObject jsonObject) throws InvalidLevelException {
+        try {
+            JSONArray nextLevelPoints = jsonObject.getJSONArray(JSON_NEXTLEVELPOINTS_ID);
+
+            for (int i = 0; i < nextLevelPoints.length(); i++) {
+                JSONObject nextLevelPoint = nextLevelPoints.getJSONObject(i);
+                level.addNextLevelPoint(nextLevelPoint.getInt(JSON_X_AXIS_ID), nextLevelPoint.getInt(JSON_Y_AXIS_ID));
+            }
+        } catch (JSONException e) {
+            throw new InvalidLevelException(GameConstants.ERROR_NEXT);
+        }
+    }
+
+    private static void addTeleportPoints(Level level, JSONObject jsonObject) throws InvalidLevelException {
+        try {
+            JSONArray teleport = jsonObject.getJSONArray(JSON_TELEPORTPOINTS_ID);
+
+            try {
+                for (int i = 0; i < teleport.length(); i++) {
+                    JSONObject nextLevelPoint = teleport.getJSONObject(i);
+                    level.addTeleportPoint(nextLevelPoint.getInt(JSON_X_AXIS_ID), nextLevelPoint.getInt(JSON_Y_AXIS_ID),
+                            nextLevelPoint.getInt(JSON_X_AXIS_DESTINATION_ID),
+                            nextLevelPoint.getInt(JSON_Y_AXIS_DESTINATION_ID));
+                }
+            } catch (JSONException e) {
+                throw new InvalidLevelException(GameConstants.ERROR_TELEPORT);
+            }
+        } catch (JSONException e) {
+            // teleport points are only optional
+        }
+    }
+
+    private static void addBorderPoints(Level level, JSONObject jsonObject) throws InvalidLevelException {
+        try {
+            JSONArray borderPoints = jsonObject.getJSONArray(JSON_BORDERPOINTS_ID);
+
+            try {
+                for (int i = 0; i < borderPoints.length(); i++) {
+                    JSONObject borderPoint = borderPoints.getJSONObject(i);
+                    level.addBorderPoint(borderPoint.getInt(JSON_X_AXIS_ID), borderPoint.getInt(JSON_Y_AXIS_ID));
+                }
+            } catch (JSONException e) {
+                throw new InvalidLevelException(GameConstants.ERROR_BORDER);
+            }
+        } catch (JSONException e) {
+            // border points are only optional
+        }
+    }
+
+    private static void addEnemyPoints(Level level, JSONObject jsonObject) throws InvalidLevelException {
+        try {
+            JSONArray enemies = jsonObject.getJSONArray(JSON_ENEMYPOINTS_ID);
+
+            try {
+                for (int i = 0; i < enemies.length(); i++) {
+                    JSONObject enemy = enemies.getJSONObject(i);
+                    int startX = enemy.getInt(JSON_X_AXIS_START_ID);
+                    int startY = enemy.getInt(JSON_Y_AXIS_START_ID);
+                    int stepIntervall = enemy.getInt(JSON_STEP_INTERVAL_ID);
+
+                    JSONArray stepXJSONArray = enemy.getJSONArray(JSON_X_AXIS_STEP_ID);
+                    int[] stepX = new int[stepXJSONArray.length()];
+                    for (int j = 0; j < stepXJSONArray.length(); j++) {
+                        stepX[j] = stepXJSONArray.getInt(j);
+                    }
+
+                    JSONArray stepYJSONArray = enemy.getJSONArray(JSON_Y_AXIS_STEP_ID);
+                    int[] stepY = new int[stepYJSONArray.length()];
+                    for (int j = 0; j < stepYJSONArray.length(); j++) {
+                        stepY[j] = stepYJSONArray.getInt(j);
+                    }
+
+                    level.addEnemyPoint(startX, startY, stepX, stepY, stepIntervall);
+                }
+            } catch (JSONException e) {
+                throw new InvalidLevelException(GameConstants.ERROR_ENEMIES);
+            }
+        } catch (JSONException e) {
+            // enemy points are only optional
+        }
+    }
+}
@@ -0,0 +1,77 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that a turn of the game does not allocate memory on the JVM.
+ * It requires a JVM, which counts the allocated bytes per thread (HotSpot).
+ */
+public class GameAllocationTest {
+
+    private static final int WARM_UP_TURNS = 200000;
+    private static final int MEASURED_TURNS = 100000;
+
+    // a closed path near the start position, the hero point moves, hits borders and enemy points
+    private static final int[] MOVES = {Game.RIGHT, Game.RIGHT, Game.DOWN, Game.DOWN, Game.NO_MOVE,
+            Game.LEFT, Game.LEFT, Game.UP, Game.UP, Game.NO_MOVE};
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assume.assumeTrue(sunThreadMXBean.isThreadAllocatedMemorySupported());
+        sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+        return sunThreadMXBean;
+    }
+
+    private static long runTurns(Game game, int turns) throws Exception {
+        long checksum = 0;
+        for (int i = 0; i < turns; i++) {
+            checksum += game.doStep(MOVES[i % MOVES.length])[i % (GameConstants.WIDTH * GameConstants.HEIGHT)];
+        }
+        return checksum;
+    }
+
+    @Test
+    public void doStep_allocatesNothing() throws Exception {
+        com.sun.management.ThreadMXBean threadMXBean = threadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        Game game = new Game(TestLevels.bundled(), 0);
+        runTurns(game, WARM_UP_TURNS);
+
+        // the measurement itself can allocate memory
+        long overheadStart = threadMXBean.getThreadAllocatedBytes(threadId);
+        long overhead = threadMXBean.getThreadAllocatedBytes(threadId) - overheadStart;
+
+        long allocatedStart = threadMXBean.getThreadAllocatedBytes(threadId);
+        runTurns(game, MEASURED_TURNS);
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedStart - overhead;
+
+        assertEquals(1, game.getCurrentLevelNumber());
+        assertEquals(0, allocated);
+    }
+}
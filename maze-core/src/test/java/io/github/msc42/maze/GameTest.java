@@ -0,0 +1,80 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameTest {
+
+    private static int count(byte[] ledMatrix, byte pixelValue) {
+        int count = 0;
+        for (byte b : ledMatrix) {
+            if (b == pixelValue) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void firstLevel_isLoadedFromLevelSource() throws Exception {
+        Game game = new Game(TestLevels.bundled(), 3);
+        byte[] ledMatrix = game.doStep(Game.NO_MOVE);
+
+        assertEquals(1, game.getCurrentLevelNumber());
+        assertEquals(GameConstants.WIDTH * GameConstants.HEIGHT, ledMatrix.length);
+        assertEquals(1, count(ledMatrix, GameConstants.LED_MAX));
+    }
+
+    @Test
+    public void doStep_neverDuplicatesHeroPoint() throws Exception {
+        Game game = new Game(TestLevels.bundled(), 0);
+        int[] moves = {Game.RIGHT, Game.DOWN, Game.LEFT, Game.UP, Game.NO_MOVE};
+        for (int i = 0; i < 10000; i++) {
+            byte[] ledMatrix = game.doStep(moves[(i / 7) % moves.length]);
+            assertEquals(GameConstants.WIDTH * GameConstants.HEIGHT, ledMatrix.length);
+            assertTrue(count(ledMatrix, GameConstants.LED_MAX) <= 1);
+        }
+    }
+
+    @Test
+    public void missingLevel_loadsEndLevel() throws Exception {
+        final LevelSource bundledLevels = TestLevels.bundled();
+        Game game = new Game(new LevelSource() {
+            @Override
+            public InputStream openLevel(int levelNumber) throws IOException {
+                throw new FileNotFoundException();
+            }
+
+            @Override
+            public InputStream openEnd() throws IOException {
+                return bundledLevels.openEnd();
+            }
+        }, 3);
+        byte[] ledMatrix = game.doStep(Game.RIGHT);
+
+        assertEquals(0, count(ledMatrix, GameConstants.LED_MAX));
+    }
+}
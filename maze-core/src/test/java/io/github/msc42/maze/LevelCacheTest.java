@@ -0,0 +1,124 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LevelCacheTest {
+
+    private static final int[] MOVES = {Game.RIGHT, Game.DOWN, Game.LEFT, Game.UP, Game.NO_MOVE};
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private static void copy(File source, File destination) throws IOException {
+        InputStream inputStream = new FileInputStream(source);
+        OutputStream outputStream = new FileOutputStream(destination);
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
+            outputStream.close();
+        }
+    }
+
+    @Test
+    public void cachedLevels_playLikeReadLevels() throws Exception {
+        LevelCache levelCache = new LevelCache(1024 * 1024);
+        Game firstGame = new Game(TestLevels.bundled(), 1, null, levelCache);
+        for (int i = 0; i < 1000; i++) {
+            firstGame.doStep(MOVES[(i / 5) % MOVES.length]);
+        }
+        assertEquals(0, levelCache.getHits());
+        assertEquals(1, levelCache.getMisses());
+
+        // the played level does not change the cached template
+        Game cachedGame = new Game(TestLevels.bundled(), 1, null, levelCache);
+        Game game = new Game(TestLevels.bundled(), 1);
+        for (int i = 0; i < 1000; i++) {
+            int move = MOVES[(i / 5) % MOVES.length];
+            assertArrayEquals(game.doStep(move), cachedGame.doStep(move));
+        }
+        assertEquals(1, levelCache.getHits());
+
+        // another difficulty is another level
+        new Game(TestLevels.bundled(), 2, null, levelCache);
+        assertEquals(2, levelCache.getMisses());
+        assertEquals(2, levelCache.getSize());
+    }
+
+    @Test
+    public void modifiedLevel_isReadAgain() throws Exception {
+        File directory = mTemporaryFolder.getRoot();
+        File levelFile = new File(directory, GameConstants.LEVEL_FILE_NAME_PREFIX + 1
+                + GameConstants.LEVEL_FILE_EXTENSION);
+        copy(new File(TestLevels.directory(), levelFile.getName()), levelFile);
+        copy(new File(TestLevels.directory(), GameConstants.END_LEVEL_FILE_NAME),
+                new File(directory, GameConstants.END_LEVEL_FILE_NAME));
+
+        LevelCache levelCache = new LevelCache(1024 * 1024);
+        new Game(new FileLevelSource(directory), 3, null, levelCache);
+        new Game(new FileLevelSource(directory), 3, null, levelCache);
+        assertEquals(1, levelCache.getHits());
+
+        assertTrue(levelFile.setLastModified(levelFile.lastModified() - 10000));
+        new Game(new FileLevelSource(directory), 3, null, levelCache);
+        assertEquals(1, levelCache.getHits());
+        assertEquals(2, levelCache.getMisses());
+    }
+
+    @Test
+    public void leastRecentlyUsedLevel_isEvicted() throws Exception {
+        LevelCache unlimitedCache = new LevelCache(Long.MAX_VALUE);
+        new Game(TestLevels.bundled(), 0, null, unlimitedCache);
+        long levelBytes = unlimitedCache.getBytes();
+        assertTrue(levelBytes > 0);
+
+        LevelCache levelCache = new LevelCache(2 * levelBytes);
+        new Game(TestLevels.bundled(), 0, null, levelCache);
+        new Game(TestLevels.bundled(), 1, null, levelCache);
+        new Game(TestLevels.bundled(), 0, null, levelCache);
+        new Game(TestLevels.bundled(), 2, null, levelCache);
+
+        assertEquals(1, levelCache.getEvictions());
+        assertEquals(2, levelCache.getSize());
+        assertTrue(levelCache.getBytes() <= 2 * levelBytes);
+        // difficulty 1 was the least recently used level
+        new Game(TestLevels.bundled(), 0, null, levelCache);
+        assertEquals(2, levelCache.getHits());
+        new Game(TestLevels.bundled(), 1, null, levelCache);
+        assertEquals(2, levelCache.getHits());
+    }
+}
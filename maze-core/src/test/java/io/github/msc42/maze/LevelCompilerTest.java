@@ -0,0 +1,100 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LevelCompilerTest {
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File compileBundledLevels() throws Exception {
+        File packFile = new File(mTemporaryFolder.getRoot(), GameConstants.LEVEL_PACK_FILE_NAME);
+        LevelCompiler.compileDirectory(TestLevels.directory(), packFile);
+        return packFile;
+    }
+
+    @Test
+    public void compiledLevels_equalTheJSONLevels() throws Exception {
+        LevelPack levelPack = LevelPack.open(compileBundledLevels());
+        assertTrue(levelPack.getNumberOfLevels() >= 2);
+
+        LevelSource jsonLevels = TestLevels.bundled();
+        // the level after the last level is the end level
+        for (int levelNumber = 1; levelNumber <= levelPack.getNumberOfLevels() + 1; levelNumber++) {
+            TestLevels.assertSameLevel(new Level(levelNumber, jsonLevels, null, 2),
+                    new Level(levelNumber, levelPack, null, 2));
+        }
+
+        File jsonFile = new File(TestLevels.directory(), GameConstants.LEVEL_FILE_NAME_PREFIX + 1
+                + GameConstants.LEVEL_FILE_EXTENSION);
+        assertTrue(LevelCompiler.compile(jsonFile, false).length < jsonFile.length() / 10);
+    }
+
+    @Test
+    public void compiledLevels_playLikeTheJSONLevels() throws Exception {
+        Game jsonGame = new Game(TestLevels.bundled(), 1);
+        Game compiledGame = new Game(LevelPack.open(compileBundledLevels()), 1);
+        int[] moves = {Game.RIGHT, Game.DOWN, Game.LEFT, Game.UP, Game.NO_MOVE};
+        for (int i = 0; i < 5000; i++) {
+            int move = moves[(i / 5) % moves.length];
+            assertArrayEquals(jsonGame.doStep(move), compiledGame.doStep(move));
+        }
+    }
+
+    @Test
+    public void levelPack_findsEveryLevelByItsIndex() throws Exception {
+        byte[][] compiledLevels = new byte[300][];
+        for (int i = 0; i < compiledLevels.length; i++) {
+            compiledLevels[i] = LevelCompiler.compile(new File(TestLevels.directory(),
+                    GameConstants.LEVEL_FILE_NAME_PREFIX + (i % 2 + 1) + GameConstants.LEVEL_FILE_EXTENSION), false);
+        }
+        byte[] compiledEnd = LevelCompiler.compile(new File(TestLevels.directory(),
+                GameConstants.END_LEVEL_FILE_NAME), true);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        LevelPack.write(compiledLevels, compiledEnd, outputStream);
+
+        LevelPack levelPack = new LevelPack(ByteBuffer.wrap(outputStream.toByteArray()));
+        assertEquals(300, levelPack.getNumberOfLevels());
+        assertEquals(ByteBuffer.wrap(compiledLevels[254]), levelPack.getCompiledLevel(255));
+        assertEquals(ByteBuffer.wrap(compiledEnd), levelPack.getCompiledEnd());
+        assertTrue(new Level(301, levelPack, null, 0).isEnd());
+    }
+
+    @Test(expected = InvalidLevelException.class)
+    public void unknownVersion_isRejected() throws Exception {
+        byte[] compiledLevel = LevelCompiler.compile(new File(TestLevels.directory(),
+                GameConstants.END_LEVEL_FILE_NAME), true);
+        compiledLevel[4] = BinaryLevelFormat.VERSION + 1;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        LevelPack.write(new byte[0][], compiledLevel, outputStream);
+
+        new Level(1, new LevelPack(ByteBuffer.wrap(outputStream.toByteArray())), null, 0);
+    }
+}
@@ -0,0 +1,111 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LevelLinterTest {
+
+    private static final String INVALID_LEVEL = "{\n"
+            + "\"Heropoint\": {\"x\": 2, \"y\": 2, \"stepX\": 1, \"stepY\": 1},\n"
+            + "\"Nextlevelpoints\": [{\"x\": 20, \"y\": 20}, {\"x\": 24, \"y\": 20}],\n"
+            + "\"Teleportpoints\": [{\"x\": 3, \"y\": 3, \"destinationX\": 6, \"destinationY\": 6}],\n"
+            + "\"Borderpoints\": [\n"
+            + "{\"x\": 2, \"y\": 2},\n"
+            + "{\"x\": 6, \"y\": 6},\n"
+            + "{\"x\": -1, \"y\": 6},\n"
+            + "{\"x\": 7}\n"
+            + "],\n"
+            + "\"Enemypoints\": [{\"startX\": 5, \"startY\": 5, \"stepInterval\": 2, \"stepX\": [1], \"stepY\": [0]}]\n"
+            + "}\n";
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private static void write(File file, String content) throws Exception {
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(content.getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    @Test
+    public void lint_reportsEveryProblemWithItsLocation() throws Exception {
+        File file = mTemporaryFolder.newFile("Level1.json");
+        write(file, INVALID_LEVEL);
+
+        List<LevelProblem> problems = LevelLinter.lint(file, false);
+
+        assertEquals(6, problems.size());
+        assertEquals("JSON_ERROR_NEXT_POSITION Nextlevelpoints[1]", problems.get(0).toString());
+        assertEquals(3, problems.get(0).getLineNumber());
+        assertEquals("JSON_ERROR_BORDER_POSITION Borderpoints[2]", problems.get(1).toString());
+        assertEquals(8, problems.get(1).getLineNumber());
+        assertEquals("JSON_ERROR_BORDER Borderpoints[3]", problems.get(2).toString());
+        assertEquals(9, problems.get(2).getLineNumber());
+        assertEquals("JSON_ERROR_ENEMIES_POSITION Enemypoints[0]", problems.get(3).toString());
+        assertEquals("JSON_ERROR_TELEPORT_POSITION Teleportpoints[0]", problems.get(4).toString());
+        assertEquals("JSON_ERROR_HERO_POSITION Heropoint", problems.get(5).toString());
+        assertEquals(2, problems.get(5).getLineNumber());
+
+        write(file, "{\n\"Heropoint\": {\"x\": 2,\n\"y\" 2}}");
+        problems = LevelLinter.lint(file, false);
+        assertEquals(1, problems.size());
+        assertEquals(GameConstants.ERROR_JSON, problems.get(0).getError());
+        assertEquals(3, problems.get(0).getLineNumber());
+    }
+
+    @Test
+    public void lintDirectory_validatesAllFilesInParallel() throws Exception {
+        File directory = mTemporaryFolder.newFolder("levels");
+        File generated = new File(directory, "generated");
+        assertTrue(generated.mkdir());
+        for (int i = 1; i <= 100; i++) {
+            write(new File(generated, GameConstants.LEVEL_FILE_NAME_PREFIX + i + GameConstants.LEVEL_FILE_EXTENSION),
+                    i % 10 == 0 ? INVALID_LEVEL : "{\"Heropoint\": {\"x\": 1, \"y\": 1, \"stepX\": 1, \"stepY\": 1}, "
+                            + "\"Nextlevelpoints\": [{\"x\": 2, \"y\": 2}]}");
+        }
+        // a border point on the hero point does not matter in the end level
+        write(new File(directory, GameConstants.END_LEVEL_FILE_NAME), "{\"Borderpoints\": [{\"x\": 1, \"y\": 1}]}");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int problems = LevelLinter.lintDirectory(directory, 4, new PrintStream(output, true, "UTF-8"));
+
+        assertEquals(60, problems);
+        String report = output.toString("UTF-8");
+        assertTrue(report, report.contains("generated" + File.separator + "Level10.json:8: "
+                + "JSON_ERROR_BORDER_POSITION Borderpoints[2]" + System.lineSeparator()));
+        assertTrue(report, report.contains("101 files (10 invalid), 60 problems"));
+
+        assertEquals(0, LevelLinter.lintDirectory(TestLevels.directory(), 2,
+                new PrintStream(new ByteArrayOutputStream())));
+    }
+}
@@ -0,0 +1,147 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class LevelPrefetcherTest {
+
+    private static final int LEVELS = 3;
+
+    // the hero point reaches the next level point with one move to the right
+    private static final LevelSource SHORT_LEVELS = new LevelSource() {
+        @Override
+        public InputStream openLevel(int levelNumber) throws IOException {
+            if (levelNumber > LEVELS) {
+                throw new FileNotFoundException();
+            }
+            return open("{ \"Heropoint\": { \"x\": " + levelNumber + ", \"y\": 1, \"stepX\": 1, \"stepY\": 1 },"
+                    + " \"Nextlevelpoints\": [ { \"x\": " + (levelNumber + 1) + ", \"y\": 1 } ] }");
+        }
+
+        @Override
+        public InputStream openEnd() throws IOException {
+            return open("{ \"Borderpoints\": [ { \"x\": 0, \"y\": 0 } ] }");
+        }
+
+        private InputStream open(String level) {
+            return new ByteArrayInputStream(level.getBytes(Charset.forName("UTF-8")));
+        }
+    };
+
+    @Test
+    public void prefetchedLevels_playLikeLevelsReadWhenReached() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Game prefetchingGame = new Game(SHORT_LEVELS, 3, executor);
+            Game game = new Game(SHORT_LEVELS, 3);
+            for (int i = 0; i < 2 * LEVELS; i++) {
+                int move = i % 2 == 0 ? Game.RIGHT : Game.NO_MOVE;
+                assertArrayEquals(game.doStep(move), prefetchingGame.doStep(move));
+                assertEquals(game.getCurrentLevelNumber(), prefetchingGame.getCurrentLevelNumber());
+            }
+
+            assertEquals(LEVELS + 1, prefetchingGame.getCurrentLevelNumber());
+            assertEquals(LEVELS, prefetchingGame.getLevelTransitions());
+            // without an executor every transition waits for its level
+            assertEquals(LEVELS, game.getLateLevelTransitions());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void levelPrefetchedInTime_isNotLate() throws Exception {
+        final Thread testThread = Thread.currentThread();
+        Game game = new Game(SHORT_LEVELS, 3, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                // the level is read on another thread before it is needed
+                Thread thread = new Thread(command);
+                thread.start();
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    testThread.interrupt();
+                }
+            }
+        });
+        game.doStep(Game.RIGHT);
+        game.doStep(Game.NO_MOVE);
+
+        assertEquals(2, game.getCurrentLevelNumber());
+        assertEquals(1, game.getLevelTransitions());
+        assertEquals(0, game.getLateLevelTransitions());
+        assertEquals(0, game.getLevelTransitionWaitNanos());
+    }
+
+    @Test
+    public void otherLevelTaken_isReadAfterStalePrefetch() throws Exception {
+        final AtomicInteger readers = new AtomicInteger();
+        final AtomicBoolean overlapping = new AtomicBoolean();
+        LevelSource slowLevels = new LevelSource() {
+            @Override
+            public InputStream openLevel(int levelNumber) throws IOException {
+                if (readers.incrementAndGet() > 1) {
+                    overlapping.set(true);
+                }
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    readers.decrementAndGet();
+                }
+                return SHORT_LEVELS.openLevel(levelNumber);
+            }
+
+            @Override
+            public InputStream openEnd() throws IOException {
+                return SHORT_LEVELS.openEnd();
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Game game = new Game(SHORT_LEVELS, 3);
+            LevelPrefetcher prefetcher = new LevelPrefetcher(executor, slowLevels, game, 3, null);
+            prefetcher.prefetch(2);
+            Level level = prefetcher.take(3);
+
+            assertEquals(3, level.getHero().getX());
+            assertFalse(overlapping.get());
+            assertEquals(1, prefetcher.getLateTransitions());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamingLevelReaderTest {
+
+    private static final String HERO = "\"Heropoint\": {\"x\": 1, \"y\": 1, \"stepX\": 1, \"stepY\": 1}";
+    private static final String NEXT = "\"Nextlevelpoints\": [{\"x\": 20, \"y\": 20}]";
+    private static final String TELEPORT = "\"Teleportpoints\": [{\"x\": 3, \"y\": 3, \"destinationX\": 6, "
+            + "\"destinationY\": 6}]";
+    private static final String BORDER = "\"Borderpoints\": [{\"x\": 0, \"y\": 0}, {\"x\": 10, \"y\": 10}]";
+    private static final String ENEMY = "\"Enemypoints\": [{\"startX\": 5, \"startY\": 5, \"stepInterval\": 2, "
+            + "\"stepX\": [1, -1], \"stepY\": [0, 0]}]";
+
+    private static final String[] LEVELS = {
+            "{" + HERO + "," + NEXT + "," + TELEPORT + "," + BORDER + "," + ENEMY + "}",
+            // other order of the sections, unknown names and the lenient syntax of org.json
+            "{" + ENEMY + ";" + BORDER + "," + "\"comment\": {\"a\": [1, \"b\", null]}, " + TELEPORT + "," + NEXT
+                    + "," + HERO + ",}",
+            "{'Heropoint': {x: 1, y: 1.9, stepX: \"1\", stepY: 1}, Nextlevelpoints: [{\"x\": 2, \"y\": 2},]}",
+            // missing and wrong sections
+            "{" + NEXT + "}",
+            "{" + HERO + "}",
+            "{\"Heropoint\": [], " + NEXT + "}",
+            "{" + HERO + ", \"Nextlevelpoints\": 5}",
+            "{" + HERO + "," + NEXT + ", \"Borderpoints\": {}, \"Teleportpoints\": 1, \"Enemypoints\": null}",
+            // wrong values
+            "{\"Heropoint\": {\"x\": 1, \"y\": true, \"stepX\": 1, \"stepY\": 1}, " + NEXT + "}",
+            "{\"Heropoint\": {\"x\": 1, \"y\": 1, \"stepX\": 1}, " + NEXT + "}",
+            "{" + HERO + ", \"Nextlevelpoints\": [{\"x\": 1}]}",
+            "{" + HERO + ", \"Nextlevelpoints\": [5]}",
+            "{" + HERO + "," + NEXT + ", \"Teleportpoints\": [{\"x\": 3, \"y\": 3, \"destinationX\": \"a\", "
+                    + "\"destinationY\": 6}]}",
+            "{" + HERO + "," + NEXT + ", \"Borderpoints\": [{\"x\": 3, \"y\": []}]}",
+            "{" + HERO + "," + NEXT + ", \"Enemypoints\": [{\"startX\": 5, \"startY\": 5, \"stepInterval\": 2, "
+                    + "\"stepX\": [1, \"x\"], \"stepY\": [0, 0]}]}",
+            "{" + HERO + "," + NEXT + ", \"Enemypoints\": [{\"startX\": 5, \"startY\": 5, \"stepInterval\": 2, "
+                    + "\"stepX\": [1, -1]}]}",
+            // wrong positions
+            "{\"Heropoint\": {\"x\": 24, \"y\": 1, \"stepX\": 1, \"stepY\": 1}, " + NEXT + "}",
+            "{" + HERO + ", \"Nextlevelpoints\": [{\"x\": 5, \"y\": 5}, {\"x\": -1, \"y\": 5}, {\"x\": 5}]}",
+            "{" + HERO + "," + NEXT + ", \"Teleportpoints\": [{\"x\": 3, \"y\": 3, \"destinationX\": 6, "
+                    + "\"destinationY\": 24}]}",
+            "{" + HERO + "," + NEXT + ", \"Borderpoints\": [{\"x\": 30, \"y\": 3}]}",
+            "{" + HERO + "," + NEXT + ", \"Borderpoints\": [{\"x\": 1, \"y\": 1}]}",
+            "{" + HERO + "," + NEXT + "," + TELEPORT + ", \"Borderpoints\": [{\"x\": 6, \"y\": 6}]}",
+            "{" + HERO + "," + NEXT + ", \"Enemypoints\": [{\"startX\": 5, \"startY\": 5, \"stepInterval\": 2, "
+                    + "\"stepX\": [1, 1], \"stepY\": [0, 0]}]}",
+            // the first error in the order of the DOM reader is thrown, not the first error of the file
+            "{\"Enemypoints\": [1], \"Borderpoints\": [{\"x\": 1, \"y\": 1}], " + NEXT + ", \"Heropoint\": 1}",
+            "{\"Enemypoints\": [1], \"Borderpoints\": [{\"x\": 1, \"y\": 1}], " + NEXT + "," + HERO + "}",
+            // a syntax error after an error of a section
+            "{\"Heropoint\": 1, " + NEXT + ", \"Borderpoints\": [{\"x\": 1 \"y\": 1}]}",
+            "{" + HERO + "," + NEXT + ", \"Borderpoints\": [{\"x\": 1, \"y\": 2}]",
+            "{" + HERO + "," + NEXT + ", \"Borderpoints\": [{\"x\": \"1}]}",
+            "[" + HERO + "]",
+            "",
+    };
+
+
+    private static String readError(String level, boolean streaming, boolean end) throws Exception {
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(level.getBytes("UTF-8"));
+        try {
+            if (streaming) {
+                Level.fromJSON(inputStream, end);
+            } else {
+                DomLevelReader.read(inputStream, end);
+            }
+            return null;
+        } catch (InvalidLevelException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void streamedLevels_equalTheDOMLevels() throws Exception {
+        for (int levelNumber = 1; new File(TestLevels.directory(), GameConstants.LEVEL_FILE_NAME_PREFIX
+                + levelNumber + GameConstants.LEVEL_FILE_EXTENSION).exists(); levelNumber++) {
+            File file = new File(TestLevels.directory(), GameConstants.LEVEL_FILE_NAME_PREFIX + levelNumber
+                    + GameConstants.LEVEL_FILE_EXTENSION);
+            TestLevels.assertSameLevel(DomLevelReader.read(new FileInputStream(file), false),
+                    Level.fromJSON(new FileInputStream(file), false));
+        }
+        File end = new File(TestLevels.directory(), GameConstants.END_LEVEL_FILE_NAME);
+        TestLevels.assertSameLevel(DomLevelReader.read(new FileInputStream(end), true),
+                Level.fromJSON(new FileInputStream(end), true));
+
+        String level = LEVELS[0];
+        TestLevels.assertSameLevel(DomLevelReader.read(new ByteArrayInputStream(level.getBytes("UTF-8")), false),
+                Level.fromJSON(new ByteArrayInputStream(LEVELS[1].getBytes("UTF-8")), false));
+    }
+
+    @Test
+    public void streamedLevels_haveTheErrorsOfTheDOMLevels() throws Exception {
+        for (String level : LEVELS) {
+            assertEquals(level, readError(level, false, false), readError(level, true, false));
+            assertEquals(level, readError(level, false, true), readError(level, true, true));
+        }
+        assertEquals(GameConstants.ERROR_HERO_POSITION, readError(LEVELS[20], true, false));
+        assertEquals(GameConstants.ERROR_HERO, readError(LEVELS[23], true, false));
+        assertEquals(GameConstants.ERROR_HERO_POSITION, readError(LEVELS[24], true, false));
+        assertEquals(GameConstants.ERROR_JSON, readError(LEVELS[25], true, false));
+    }
+
+    @Test
+    public void commentedLevels_equalTheDOMLevelsWithoutComments() throws Exception {
+        // the org.json of Android skips comments, the org.json of the tests does not, so it reads the level without
+        String commented = "// a level\r\n{ # the hero\n" + HERO + ", /* the next\nlevel */ " + NEXT
+                + " /**/,//\n" + BORDER + "}";
+        String level = "{" + HERO + "," + NEXT + "," + BORDER + "}";
+        TestLevels.assertSameLevel(DomLevelReader.read(new ByteArrayInputStream(level.getBytes("UTF-8")), false),
+                Level.fromJSON(new ByteArrayInputStream(commented.getBytes("UTF-8")), false));
+
+        assertEquals(GameConstants.ERROR_JSON, readError("{" + HERO + ", /* " + NEXT + "}", true, false));
+        assertEquals(GameConstants.ERROR_JSON, readError("{" + HERO + ", / " + NEXT + "}", true, false));
+    }
+}
@@ -0,0 +1,68 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze;
+
+import java.io.File;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Provides the levels of the app to the tests.
+ * The directory is given by the system property "maze.levelDirectory" (set by the build).
+ */
+public final class TestLevels {
+
+    public static final String LEVEL_DIRECTORY_PROPERTY = "maze.levelDirectory";
+
+
+    private TestLevels() {
+    }
+
+    public static File directory() {
+        return new File(System.getProperty(LEVEL_DIRECTORY_PROPERTY, "../app/src/main/assets"));
+    }
+
+    public static LevelSource bundled() {
+        return new FileLevelSource(directory());
+    }
+
+    /**
+     * Asserts that two levels have the same cells and enemy points.
+     */
+    public static void assertSameLevel(Level expected, Level actual) {
+        assertEquals(expected.isEnd(), actual.isEnd());
+        for (int y = 0; y < GameConstants.HEIGHT; y++) {
+            for (int x = 0; x < GameConstants.WIDTH; x++) {
+                assertEquals(expected.getCells().getPixelValue(x, y), actual.getCells().getPixelValue(x, y));
+                assertEquals(expected.getCells().getTeleportDestination(x, y),
+                        actual.getCells().getTeleportDestination(x, y));
+            }
+        }
+        assertEquals(expected.getDynamicPoints().length, actual.getDynamicPoints().length);
+        for (int i = 0; i < expected.getDynamicPoints().length; i++) {
+            EnemyPoint expectedEnemy = expected.getDynamicPoints()[i];
+            EnemyPoint actualEnemy = actual.getDynamicPoints()[i];
+            assertEquals(expectedEnemy.getX(), actualEnemy.getX());
+            assertEquals(expectedEnemy.getY(), actualEnemy.getY());
+            assertEquals(expectedEnemy.getStepInterval(), actualEnemy.getStepInterval());
+            assertArrayEquals(expectedEnemy.getStepX(), actualEnemy.getStepX());
+            assertArrayEquals(expectedEnemy.getStepY(), actualEnemy.getStepY());
+        }
+    }
+}
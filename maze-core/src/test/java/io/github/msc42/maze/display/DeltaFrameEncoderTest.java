@@ -0,0 +1,128 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import io.github.msc42.maze.Game;
+import io.github.msc42.maze.GameConstants;
+import io.github.msc42.maze.TestLevels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeltaFrameEncoderTest {
+
+    private static final int WIDTH = GameConstants.WIDTH;
+    private static final int HEIGHT = GameConstants.HEIGHT;
+
+    private static void decode(FrameEncoder encoder, int length, FrameDecoder decoder) throws IOException {
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(encoder.getFrame(), 0, length);
+        decoder.readFrame(inputStream);
+        assertEquals(0, inputStream.available());
+    }
+
+    @Test
+    public void unchangedFrame_sendsNothing() {
+        DeltaFrameEncoder encoder = new DeltaFrameEncoder(WIDTH, HEIGHT, 0);
+        byte[] ledMatrix = new byte[WIDTH * HEIGHT];
+
+        assertEquals(1 + WIDTH * HEIGHT, encoder.encode(ledMatrix));
+        assertEquals(DisplayProtocol.FRAME_TYPE_KEY, encoder.getFrame()[0]);
+        assertEquals(0, encoder.encode(ledMatrix));
+    }
+
+    @Test
+    public void changedPixel_sendsOneSpan() {
+        DeltaFrameEncoder encoder = new DeltaFrameEncoder(WIDTH, HEIGHT, 0);
+        byte[] ledMatrix = new byte[WIDTH * HEIGHT];
+        encoder.encode(ledMatrix);
+
+        ledMatrix[5 + 7 * WIDTH] = GameConstants.LED_MAX;
+
+        assertEquals(3 + 3 + 1, encoder.encode(ledMatrix));
+        assertArrayEquals(new byte[]{DisplayProtocol.FRAME_TYPE_DELTA, 0, 1, 5, 7, 1, GameConstants.LED_MAX},
+                Arrays.copyOf(encoder.getFrame(), 7));
+    }
+
+    @Test
+    public void keyFrame_afterIntervalAndReset() {
+        DeltaFrameEncoder encoder = new DeltaFrameEncoder(WIDTH, HEIGHT, 3);
+        byte[] ledMatrix = new byte[WIDTH * HEIGHT];
+
+        assertEquals(1 + WIDTH * HEIGHT, encoder.encode(ledMatrix));
+        assertEquals(0, encoder.encode(ledMatrix));
+        assertEquals(0, encoder.encode(ledMatrix));
+        assertEquals(1 + WIDTH * HEIGHT, encoder.encode(ledMatrix));
+
+        encoder.reset();
+        assertEquals(1 + WIDTH * HEIGHT, encoder.encode(ledMatrix));
+    }
+
+    @Test
+    public void randomFrames_areDecodedExactly() throws IOException {
+        DeltaFrameEncoder encoder = new DeltaFrameEncoder(WIDTH, HEIGHT, 50);
+        FrameDecoder decoder = new FrameDecoder(WIDTH, HEIGHT, DisplayProtocol.VERSION_2,
+                DisplayProtocol.FRAME_MODE_DELTA);
+        Random random = new Random(42);
+        byte[] ledMatrix = new byte[WIDTH * HEIGHT];
+
+        for (int frame = 0; frame < 1000; frame++) {
+            int changes = random.nextInt(frame % 10 == 0 ? WIDTH * HEIGHT : 20);
+            for (int i = 0; i < changes; i++) {
+                ledMatrix[random.nextInt(ledMatrix.length)] = (byte) random.nextInt(256);
+            }
+
+            int length = encoder.encode(ledMatrix);
+            assertTrue(length <= 1 + WIDTH * HEIGHT);
+            if (length > 0) {
+                decode(encoder, length, decoder);
+            }
+            assertArrayEquals(ledMatrix, decoder.getLedMatrix());
+        }
+    }
+
+    @Test
+    public void gameFrames_areDecodedExactlyAndSmaller() throws Exception {
+        DeltaFrameEncoder encoder = new DeltaFrameEncoder(WIDTH, HEIGHT, 60);
+        FrameDecoder decoder = new FrameDecoder(WIDTH, HEIGHT, DisplayProtocol.VERSION_2,
+                DisplayProtocol.FRAME_MODE_DELTA);
+        Game game = new Game(TestLevels.bundled(), 0);
+        int[] moves = {Game.RIGHT, Game.DOWN, Game.LEFT, Game.UP, Game.NO_MOVE};
+        long sentBytes = 0;
+        int frames = 5000;
+
+        for (int i = 0; i < frames; i++) {
+            byte[] ledMatrix = game.doStep(moves[(i / 5) % moves.length]);
+            int length = encoder.encode(ledMatrix);
+            if (length > 0) {
+                decode(encoder, length, decoder);
+            }
+            sentBytes += length;
+            assertArrayEquals(ledMatrix, decoder.getLedMatrix());
+        }
+
+        assertTrue(sentBytes < frames * WIDTH * HEIGHT / 4);
+    }
+}
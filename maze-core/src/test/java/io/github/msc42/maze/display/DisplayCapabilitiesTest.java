@@ -0,0 +1,77 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import org.junit.Test;
+
+import io.github.msc42.maze.GameConstants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DisplayCapabilitiesTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private static DisplayHandshake acceptedHandshake(byte protocolVersion) throws Exception {
+        LoopbackDisplayTransport transport = new LoopbackDisplayTransport(GameConstants.WIDTH, GameConstants.HEIGHT,
+                protocolVersion, DisplayProtocol.FRAME_MODE_DELTA, 25);
+        transport.connect();
+        DisplayHandshake handshake = new DisplayHandshake(protocolVersion, GameConstants.WIDTH,
+                GameConstants.HEIGHT, (byte) 0, "test", DisplayProtocol.FRAME_MODE_DELTA);
+        assertTrue(transport.handshake(handshake));
+        return handshake;
+    }
+
+    @Test
+    public void capabilities_surviveEncoding() throws Exception {
+        DisplayCapabilities capabilities = DisplayCapabilities.decode(
+                DisplayCapabilities.of(acceptedHandshake(DisplayProtocol.VERSION_2), 1000, null, 5000).encode());
+
+        assertEquals(DisplayProtocol.VERSION_2, capabilities.getProtocolVersion());
+        assertEquals(1000, capabilities.getSettleMillis());
+        assertEquals(5000, capabilities.getProbeTime());
+    }
+
+    @Test
+    public void probeTime_isKeptOnlyForUnchangedValues() throws Exception {
+        DisplayCapabilities previous = new DisplayCapabilities(DisplayProtocol.VERSION_1, 1000, 5000);
+        DisplayHandshake handshake = acceptedHandshake(DisplayProtocol.VERSION_1);
+
+        assertEquals(5000, DisplayCapabilities.of(handshake, 1000, previous, 9000).getProbeTime());
+        assertEquals(9000, DisplayCapabilities.of(handshake, 0, previous, 9000).getProbeTime());
+        assertEquals(9000, DisplayCapabilities.of(acceptedHandshake(DisplayProtocol.VERSION_2), 1000, previous,
+                9000).getProbeTime());
+
+        assertFalse(previous.isExpired(5000 + DAY - 1, DAY));
+        assertTrue(previous.isExpired(5000 + DAY, DAY));
+        // the clock of the device was set back
+        assertTrue(previous.isExpired(4000, DAY));
+    }
+
+    @Test
+    public void decode_rejectsMalformedStrings() {
+        assertNull(DisplayCapabilities.decode(null));
+        assertNull(DisplayCapabilities.decode(""));
+        // written by a former version of the app
+        assertNull(DisplayCapabilities.decode("2,24,24,60,7,0"));
+        assertNull(DisplayCapabilities.decode("2,sixty,0"));
+    }
+}
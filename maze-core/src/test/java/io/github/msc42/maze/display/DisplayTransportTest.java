@@ -0,0 +1,149 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+
+import io.github.msc42.maze.GameConstants;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DisplayTransportTest {
+
+    private static final int WIDTH = GameConstants.WIDTH;
+    private static final int HEIGHT = GameConstants.HEIGHT;
+    private static final int FRAME_MODES = DisplayProtocol.FRAME_MODE_DELTA | DisplayProtocol.FRAME_MODE_LZ;
+
+    private static DisplayHandshake createHandshake(byte protocolVersion) {
+        return new DisplayHandshake(protocolVersion, WIDTH, HEIGHT, (byte) 0, "test", FRAME_MODES);
+    }
+
+    private static byte[] sendFrames(DisplayTransport transport, DisplayHandshake handshake, int frames)
+            throws IOException {
+        FrameEncoder encoder = FrameEncoders.create(handshake.getProtocolVersion(), handshake.getAcceptedFrameModes(),
+                WIDTH, HEIGHT, 10);
+        Random random = new Random(42);
+        byte[] ledMatrix = new byte[WIDTH * HEIGHT];
+        for (int i = 0; i < frames; i++) {
+            ledMatrix[random.nextInt(ledMatrix.length)] = (byte) random.nextInt(3);
+            int length = encoder.encode(ledMatrix);
+            if (length > 0) {
+                transport.write(encoder.getFrame(), 0, length);
+            }
+        }
+        return ledMatrix;
+    }
+
+    @Test
+    public void loopback_negotiatesAndDecodesFrames() throws Exception {
+        LoopbackDisplayTransport transport = new LoopbackDisplayTransport(WIDTH, HEIGHT, DisplayProtocol.VERSION_2,
+                DisplayProtocol.FRAME_MODE_DELTA | DisplayProtocol.FRAME_MODE_RLE | DisplayProtocol.FRAME_MODE_LZ, 25);
+        transport.connect();
+        DisplayHandshake handshake = createHandshake(DisplayProtocol.VERSION_2);
+
+        assertTrue(transport.handshake(handshake));
+        assertEquals(25, handshake.getMaxFramesPerSecond());
+        assertEquals(FRAME_MODES, handshake.getAcceptedFrameModes());
+
+        byte[] ledMatrix = sendFrames(transport, handshake, 100);
+        assertArrayEquals(ledMatrix, transport.getLedMatrix());
+        assertTrue(transport.getReceivedFrames() > 0);
+    }
+
+    @Test
+    public void loopback_rejectsUnsupportedVersionAndLosesLink() throws Exception {
+        LoopbackDisplayTransport transport = new LoopbackDisplayTransport(WIDTH, HEIGHT, DisplayProtocol.VERSION_1,
+                0, 10);
+        transport.connect();
+        assertFalse(transport.handshake(createHandshake(DisplayProtocol.VERSION_2)));
+
+        transport.close();
+        transport.connect();
+        DisplayHandshake handshake = createHandshake(DisplayProtocol.VERSION_1);
+        assertTrue(transport.handshake(handshake));
+        assertEquals(0, handshake.getAcceptedFrameModes());
+        sendFrames(transport, handshake, 3);
+        assertEquals(3, transport.getReceivedFrames());
+
+        transport.disconnect();
+        try {
+            sendFrames(transport, handshake, 1);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals(2, transport.getConnections());
+    }
+
+    @Test
+    public void tcp_sendsHandshakeAndFrames() throws Exception {
+        final ServerSocket serverSocket = new ServerSocket(0);
+        final byte[][] received = new byte[1][];
+        Thread display = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Socket socket = serverSocket.accept();
+                    InputStream inputStream = socket.getInputStream();
+                    DisplayHandshake request = DisplayHandshake.readRequest(inputStream);
+                    DisplayHandshake.writeResponse(socket.getOutputStream(), DisplayProtocol.HANDSHAKE_STATUS_OKAY,
+                            30, request.getProtocolVersion(), request.getFrameModes());
+                    FrameDecoder decoder = new FrameDecoder(WIDTH, HEIGHT, request.getProtocolVersion(),
+                            request.getFrameModes());
+                    try {
+                        while (true) {
+                            decoder.readFrame(inputStream);
+                        }
+                    } catch (IOException e) {
+                        // the app closed the connection
+                    }
+                    received[0] = decoder.getLedMatrix();
+                    socket.close();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        display.start();
+
+        TcpDisplayTransport transport = new TcpDisplayTransport("127.0.0.1", serverSocket.getLocalPort(), 1000);
+        transport.connect();
+        assertTrue(transport.isConnected());
+        DisplayHandshake handshake = createHandshake(DisplayProtocol.VERSION_2);
+        assertTrue(transport.handshake(handshake));
+        assertEquals(30, handshake.getMaxFramesPerSecond());
+
+        byte[] ledMatrix = sendFrames(transport, handshake, 200);
+        transport.close();
+        assertFalse(transport.isConnected());
+        display.join(5000);
+        serverSocket.close();
+
+        assertArrayEquals(ledMatrix, received[0]);
+    }
+}
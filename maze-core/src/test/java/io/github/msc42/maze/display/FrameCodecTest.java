@@ -0,0 +1,139 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import io.github.msc42.maze.Game;
+import io.github.msc42.maze.GameConstants;
+import io.github.msc42.maze.TestLevels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FrameCodecTest {
+
+    private static final int WIDTH = GameConstants.WIDTH;
+    private static final int HEIGHT = GameConstants.HEIGHT;
+
+    private static final FrameCodec[] CODECS = {new RunLengthCodec(), new LzCodec()};
+
+    private static void assertRoundTrip(FrameCodec codec, byte[] data) throws InvalidFrameException {
+        byte[] compressed = new byte[2 * data.length + 16];
+        int compressedLength = codec.compress(data, data.length, compressed, 5, compressed.length - 5);
+        assertTrue(compressedLength >= 0);
+
+        byte[] decompressed = new byte[data.length];
+        assertEquals(data.length, codec.decompress(compressed, 5, compressedLength, decompressed));
+        assertArrayEquals(data, decompressed);
+    }
+
+    @Test
+    public void randomData_roundTrip() throws InvalidFrameException {
+        Random random = new Random(7);
+        for (FrameCodec codec : CODECS) {
+            for (int i = 0; i < 500; i++) {
+                byte[] data = new byte[random.nextInt(2000)];
+                // few different values, so that there are runs and matches
+                int values = 1 + random.nextInt(i % 2 == 0 ? 3 : 256);
+                for (int j = 0; j < data.length; j++) {
+                    data[j] = (byte) random.nextInt(values);
+                }
+                assertRoundTrip(codec, data);
+            }
+        }
+    }
+
+    @Test
+    public void incompressibleData_exceedsMaxLength() {
+        Random random = new Random(3);
+        byte[] data = new byte[WIDTH * HEIGHT];
+        random.nextBytes(data);
+        for (FrameCodec codec : CODECS) {
+            assertEquals(-1, codec.compress(data, data.length, new byte[data.length], 0, data.length - 1));
+        }
+    }
+
+    @Test
+    public void corruptedData_isRejected() {
+        byte[] data = new byte[WIDTH * HEIGHT];
+        for (FrameCodec codec : CODECS) {
+            byte[] compressed = new byte[data.length];
+            int compressedLength = codec.compress(data, data.length, compressed, 0, compressed.length);
+            try {
+                codec.decompress(compressed, 0, compressedLength, new byte[data.length - 1]);
+                fail();
+            } catch (InvalidFrameException e) {
+                // expected, the output is too short
+            }
+        }
+    }
+
+    @Test
+    public void gameFrames_areCompressed() throws Exception {
+        Game game = new Game(TestLevels.bundled(), 3);
+        byte[] ledMatrix = game.doStep(Game.NO_MOVE);
+        for (FrameCodec codec : CODECS) {
+            byte[] compressed = new byte[ledMatrix.length];
+            int compressedLength = codec.compress(ledMatrix, ledMatrix.length, compressed, 0, compressed.length);
+            assertTrue(compressedLength > 0 && compressedLength < ledMatrix.length / 2);
+            assertRoundTrip(codec, ledMatrix);
+        }
+    }
+
+    @Test
+    public void allFrameModes_areDecodedExactly() throws Exception {
+        int[] frameModesList = {0, DisplayProtocol.FRAME_MODE_DELTA, DisplayProtocol.FRAME_MODE_RLE,
+                DisplayProtocol.FRAME_MODE_LZ, DisplayProtocol.FRAME_MODE_DELTA | DisplayProtocol.FRAME_MODE_RLE,
+                DisplayProtocol.FRAME_MODE_DELTA | DisplayProtocol.FRAME_MODE_LZ,
+                DisplayProtocol.FRAME_MODE_PACKED_2BPP, DisplayProtocol.FRAME_MODE_PACKED_1BPP,
+                DisplayProtocol.FRAME_MODE_DELTA | DisplayProtocol.FRAME_MODE_PACKED_2BPP,
+                DisplayProtocol.FRAME_MODE_DELTA | DisplayProtocol.FRAME_MODE_PACKED_1BPP
+                        | DisplayProtocol.FRAME_MODE_LZ};
+        int[] moves = {Game.RIGHT, Game.DOWN, Game.LEFT, Game.UP, Game.NO_MOVE};
+
+        for (int frameModes : frameModesList) {
+            PixelFormat pixelFormat = DisplayProtocol.pixelFormatOf(frameModes);
+            byte[] expected = new byte[WIDTH * HEIGHT];
+            FrameEncoder encoder = FrameEncoders.create(DisplayProtocol.VERSION_2, frameModes, WIDTH, HEIGHT, 30);
+            FrameDecoder decoder = new FrameDecoder(WIDTH, HEIGHT, DisplayProtocol.VERSION_2, frameModes);
+            Game game = new Game(TestLevels.bundled(), 0);
+
+            for (int i = 0; i < 2000; i++) {
+                byte[] ledMatrix = game.doStep(moves[(i / 3) % moves.length]);
+                int length = encoder.encode(ledMatrix);
+                if (length > 0) {
+                    ByteArrayInputStream inputStream = new ByteArrayInputStream(
+                            Arrays.copyOf(encoder.getFrame(), length));
+                    decoder.readFrame(inputStream);
+                    assertEquals(0, inputStream.available());
+                }
+                for (int j = 0; j < expected.length; j++) {
+                    expected[j] = pixelFormat.quantize(ledMatrix[j]);
+                }
+                assertArrayEquals(expected, decoder.getLedMatrix());
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import io.github.msc42.maze.GameConstants;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PixelFormatTest {
+
+    private static final byte[] LED_VALUES = {GameConstants.LED_OUT, GameConstants.LED_QUARTER,
+            GameConstants.LED_HALF, GameConstants.LED_THREE_QUARTER, GameConstants.LED_MAX};
+
+    @Test
+    public void quantize_keepsPixelsOn() {
+        assertEquals(GameConstants.LED_OUT, PixelFormat.PACKED_1BPP.quantize(GameConstants.LED_OUT));
+        assertEquals(GameConstants.LED_MAX, PixelFormat.PACKED_1BPP.quantize(GameConstants.LED_QUARTER));
+        assertEquals(GameConstants.LED_MAX, PixelFormat.PACKED_1BPP.quantize((byte) 1));
+
+        assertEquals(GameConstants.LED_HALF, PixelFormat.PACKED_2BPP.quantize(GameConstants.LED_QUARTER));
+        assertEquals(GameConstants.LED_HALF, PixelFormat.PACKED_2BPP.quantize((byte) 1));
+        assertEquals(GameConstants.LED_THREE_QUARTER,
+                PixelFormat.PACKED_2BPP.quantize(GameConstants.LED_THREE_QUARTER));
+        for (byte value : LED_VALUES) {
+            assertEquals(value, PixelFormat.BYTE.quantize(value));
+        }
+    }
+
+    @Test
+    public void pack_reducesTheFrame() {
+        int pixels = GameConstants.WIDTH * GameConstants.HEIGHT;
+        assertEquals(pixels, PixelFormat.BYTE.packedLength(pixels));
+        assertEquals(pixels / 4, PixelFormat.PACKED_2BPP.packedLength(pixels));
+        assertEquals(pixels / 8, PixelFormat.PACKED_1BPP.packedLength(pixels));
+        assertEquals(1, PixelFormat.PACKED_1BPP.packedLength(1));
+        assertEquals(2, PixelFormat.PACKED_2BPP.packedLength(5));
+    }
+
+    @Test
+    public void pack_roundTrip() {
+        Random random = new Random(11);
+        PixelFormat[] pixelFormats = {PixelFormat.BYTE, PixelFormat.PACKED_2BPP, PixelFormat.PACKED_1BPP};
+        for (PixelFormat pixelFormat : pixelFormats) {
+            for (int count = 0; count < 40; count++) {
+                byte[] pixels = new byte[count + 3];
+                byte[] expected = new byte[count + 3];
+                for (int i = 0; i < pixels.length; i++) {
+                    pixels[i] = LED_VALUES[random.nextInt(LED_VALUES.length)];
+                    expected[i] = i < 3 ? 0 : pixelFormat.quantize(pixels[i]);
+                }
+
+                byte[] packed = new byte[pixelFormat.packedLength(count) + 2];
+                assertEquals(pixelFormat.packedLength(count), pixelFormat.pack(pixels, 3, count, packed, 2));
+                byte[] unpacked = new byte[count + 3];
+                pixelFormat.unpack(packed, 2, unpacked, 3, count);
+                assertArrayEquals(expected, unpacked);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.display;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TripleFrameBufferTest {
+
+    private static final int FRAME_LENGTH = 576;
+
+    private static byte[] frame(int value) {
+        byte[] frame = new byte[FRAME_LENGTH];
+        Arrays.fill(frame, (byte) value);
+        return frame;
+    }
+
+    @Test
+    public void take_returnsNewestFrame() {
+        TripleFrameBuffer frameBuffer = new TripleFrameBuffer(FRAME_LENGTH);
+        frameBuffer.publish(frame(1));
+        frameBuffer.publish(frame(2));
+        frameBuffer.publish(frame(3));
+
+        assertArrayEquals(frame(3), frameBuffer.take());
+        assertEquals(3, frameBuffer.getPublishedFrames());
+        assertEquals(2, frameBuffer.getDroppedFrames());
+    }
+
+    @Test
+    public void droppedFrame_passesOnItsInputTimestamp() {
+        TripleFrameBuffer frameBuffer = new TripleFrameBuffer(FRAME_LENGTH);
+        frameBuffer.publish(frame(1), 100);
+        frameBuffer.publish(frame(2), 0);
+        frameBuffer.publish(frame(3), 200);
+        frameBuffer.take();
+        assertEquals(100, frameBuffer.getTakenInputTimestamp());
+
+        frameBuffer.publish(frame(4));
+        frameBuffer.take();
+        assertEquals(0, frameBuffer.getTakenInputTimestamp());
+    }
+
+    @Test
+    public void publish_copiesTheFrame() {
+        TripleFrameBuffer frameBuffer = new TripleFrameBuffer(FRAME_LENGTH);
+        byte[] frame = frame(1);
+        frameBuffer.publish(frame);
+        frame[0] = 2;
+
+        byte[] taken = frameBuffer.take();
+        frameBuffer.publish(frame(3));
+        assertArrayEquals(frame(1), taken);
+    }
+
+    @Test
+    public void close_wakesUpTheConsumer() throws InterruptedException {
+        final TripleFrameBuffer frameBuffer = new TripleFrameBuffer(FRAME_LENGTH);
+        final AtomicReference<byte[]> taken = new AtomicReference<>(new byte[0]);
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                taken.set(frameBuffer.take());
+            }
+        };
+        consumer.start();
+        Thread.sleep(50);
+        frameBuffer.close();
+        consumer.join(5000);
+
+        assertNull(taken.get());
+        frameBuffer.publish(frame(1));
+        assertNull(frameBuffer.take());
+    }
+
+    @Test
+    public void concurrentUse_neverTearsAFrame() throws InterruptedException {
+        final TripleFrameBuffer frameBuffer = new TripleFrameBuffer(FRAME_LENGTH);
+        final int frames = 60000; // the value of a frame has 2 bytes
+        final AtomicReference<String> error = new AtomicReference<>();
+
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                int previous = -1;
+                byte[] frame;
+                while ((frame = frameBuffer.take()) != null) {
+                    int value = ((frame[0] & 0xFF) << 8) | (frame[1] & 0xFF);
+                    for (int i = 2; i < frame.length; i++) {
+                        if (frame[i] != frame[i & 1]) {
+                            error.set("torn frame " + value);
+                            return;
+                        }
+                    }
+                    if (value <= previous) {
+                        error.set("old frame " + value + " after " + previous);
+                        return;
+                    }
+                    previous = value;
+                }
+            }
+        };
+        consumer.start();
+
+        byte[] frame = new byte[FRAME_LENGTH];
+        for (int value = 0; value < frames; value++) {
+            for (int i = 0; i < frame.length; i += 2) {
+                frame[i] = (byte) (value >>> 8);
+                frame[i + 1] = (byte) value;
+            }
+            frameBuffer.publish(frame);
+        }
+        frameBuffer.close();
+        consumer.join(10000);
+
+        assertNull(error.get());
+        assertEquals(frames, frameBuffer.getPublishedFrames());
+        assertTrue(frameBuffer.getDroppedFrames() < frames);
+    }
+}
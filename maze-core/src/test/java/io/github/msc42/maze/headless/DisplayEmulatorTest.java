@@ -0,0 +1,218 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.headless;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+
+import io.github.msc42.maze.GameConstants;
+import io.github.msc42.maze.display.DisplayHandshake;
+import io.github.msc42.maze.display.DisplayProtocol;
+import io.github.msc42.maze.display.FrameEncoder;
+import io.github.msc42.maze.display.FrameEncoders;
+import io.github.msc42.maze.display.TcpDisplayTransport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DisplayEmulatorTest {
+
+    private static final int WIDTH = GameConstants.WIDTH;
+    private static final int HEIGHT = GameConstants.HEIGHT;
+    private static final int FRAME_MODES = DisplayProtocol.FRAME_MODE_DELTA | DisplayProtocol.FRAME_MODE_LZ;
+
+    private DisplayEmulator mEmulator;
+    private int mSentFrames;
+
+
+    private TcpDisplayTransport connect(DisplayHandshake handshake) throws IOException {
+        TcpDisplayTransport transport = new TcpDisplayTransport("127.0.0.1", mEmulator.getPort(), 1000);
+        transport.connect();
+        assertTrue(transport.handshake(handshake));
+        return transport;
+    }
+
+    private byte[] sendFrames(TcpDisplayTransport transport, DisplayHandshake handshake, int frames)
+            throws IOException {
+        FrameEncoder encoder = FrameEncoders.create(handshake.getProtocolVersion(), handshake.getAcceptedFrameModes(),
+                WIDTH, HEIGHT, 10);
+        Random random = new Random(42);
+        byte[] ledMatrix = new byte[WIDTH * HEIGHT];
+        for (int i = 0; i < frames; i++) {
+            ledMatrix[random.nextInt(ledMatrix.length)] = (byte) (random.nextInt(3) + 1);
+            int length = encoder.encode(ledMatrix);
+            if (length > 0) {
+                transport.write(encoder.getFrame(), 0, length);
+                mSentFrames++;
+            }
+        }
+        return ledMatrix;
+    }
+
+    private void waitForFrames(long frames) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mEmulator.getFrames() < frames && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(frames, mEmulator.getFrames());
+    }
+
+    @After
+    public void tearDown() {
+        if (mEmulator != null) {
+            mEmulator.stop();
+        }
+    }
+
+    @Test
+    public void emulator_negotiatesAndRecordsFrames() throws Exception {
+        mEmulator = new DisplayEmulator(DisplayProtocol.VERSION_2, DisplayEmulator.ALL_FRAME_MODES, 30);
+        mEmulator.start(0);
+        DisplayHandshake handshake = new DisplayHandshake(DisplayProtocol.VERSION_2, WIDTH, HEIGHT, (byte) 0, "test",
+                FRAME_MODES);
+        TcpDisplayTransport transport = connect(handshake);
+        assertEquals(30, handshake.getMaxFramesPerSecond());
+        assertEquals(FRAME_MODES, handshake.getAcceptedFrameModes());
+
+        byte[] ledMatrix = sendFrames(transport, handshake, 200);
+        waitForFrames(mSentFrames);
+        transport.close();
+
+        assertArrayEquals(ledMatrix, mEmulator.getLedMatrix());
+        long[] arrivals = mEmulator.getArrivals();
+        assertEquals(mSentFrames, arrivals.length);
+        for (int i = 1; i < arrivals.length; i++) {
+            assertTrue(arrivals[i] >= arrivals[i - 1]);
+        }
+        assertEquals(1, mEmulator.getConnections());
+        assertEquals(0, mEmulator.getInvalidFrames());
+    }
+
+    @Test
+    public void emulator_rejectsNewerVersion() throws Exception {
+        mEmulator = new DisplayEmulator(DisplayProtocol.VERSION_1, 0, 60);
+        mEmulator.start(0);
+        TcpDisplayTransport transport = new TcpDisplayTransport("127.0.0.1", mEmulator.getPort(), 1000);
+        transport.connect();
+
+        assertFalse(transport.handshake(new DisplayHandshake(DisplayProtocol.VERSION_2, WIDTH, HEIGHT, (byte) 0,
+                "test", FRAME_MODES)));
+        transport.close();
+    }
+
+    @Test
+    public void emulator_disconnectsAfterFramesAndAcceptsReconnect() throws Exception {
+        mEmulator = new DisplayEmulator(DisplayProtocol.VERSION_1, 0, 60);
+        mEmulator.setDisconnectAfterFrames(10);
+        mEmulator.start(0);
+        DisplayHandshake handshake = new DisplayHandshake(DisplayProtocol.VERSION_1, WIDTH, HEIGHT, (byte) 0, "test",
+                0);
+        TcpDisplayTransport transport = connect(handshake);
+
+        try {
+            // the socket buffers take some frames after the disconnect, the write fails after the reset
+            sendFrames(transport, handshake, 100000);
+            fail("the emulator did not disconnect");
+        } catch (IOException e) {
+            // expected
+        }
+        transport.close();
+        assertEquals(10, mEmulator.getFrames());
+
+        mEmulator.setDisconnectAfterFrames(0);
+        transport = connect(handshake);
+        sendFrames(transport, handshake, 5);
+        waitForFrames(15);
+        transport.close();
+        assertEquals(2, mEmulator.getConnections());
+    }
+
+    @Test
+    public void emulator_limitsBandwidth() throws Exception {
+        mEmulator = new DisplayEmulator(DisplayProtocol.VERSION_1, 0, 60);
+        // a frame of version 1 has WIDTH * HEIGHT bytes, 20 frames per second
+        int frameLength = WIDTH * HEIGHT;
+        mEmulator.setBandwidth(20 * frameLength);
+        mEmulator.start(0);
+        DisplayHandshake handshake = new DisplayHandshake(DisplayProtocol.VERSION_1, WIDTH, HEIGHT, (byte) 0, "test",
+                0);
+        TcpDisplayTransport transport = connect(handshake);
+
+        sendFrames(transport, handshake, 11);
+        waitForFrames(11);
+        transport.close();
+
+        long[] arrivals = mEmulator.getArrivals();
+        long millis = (arrivals[10] - arrivals[0]) / 1000000;
+        assertTrue("10 frames in " + millis + " ms", millis >= 450);
+        assertEquals(11L * frameLength, mEmulator.getBytes());
+    }
+
+    @Test
+    public void responseTimeout_detectsSlowDisplay() throws Exception {
+        mEmulator = new DisplayEmulator(DisplayProtocol.VERSION_1, 0, 60);
+        mEmulator.setLatency(300);
+        mEmulator.start(0);
+        DisplayHandshake handshake = new DisplayHandshake(DisplayProtocol.VERSION_1, WIDTH, HEIGHT, (byte) 0, "test",
+                0);
+        TcpDisplayTransport transport = new TcpDisplayTransport("127.0.0.1", mEmulator.getPort(), 1000);
+        transport.setResponseTimeout(50);
+        transport.connect();
+
+        try {
+            transport.handshake(handshake);
+            fail("the handshake did not time out");
+        } catch (SocketTimeoutException e) {
+            // expected
+        }
+        transport.close();
+
+        transport.setResponseTimeout(2000);
+        transport.connect();
+        assertTrue(transport.handshake(handshake));
+        transport.close();
+    }
+
+    @Test
+    public void responseTimeout_defersInterruptOfCaller() throws Exception {
+        mEmulator = new DisplayEmulator(DisplayProtocol.VERSION_1, 0, 60);
+        mEmulator.setLatency(50);
+        mEmulator.start(0);
+        DisplayHandshake handshake = new DisplayHandshake(DisplayProtocol.VERSION_1, WIDTH, HEIGHT, (byte) 0, "test",
+                0);
+        TcpDisplayTransport transport = new TcpDisplayTransport("127.0.0.1", mEmulator.getPort(), 1000);
+        transport.setResponseTimeout(2000);
+        transport.connect();
+
+        // like the game thread, which is interrupted by restart() while it establishes the connection
+        Thread.currentThread().interrupt();
+        try {
+            assertTrue(transport.handshake(handshake));
+        } finally {
+            assertTrue(Thread.interrupted());
+            transport.close();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.input;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MoveRingBufferTest {
+
+    @Test
+    public void poll_returnsMovesInOrder() {
+        MoveRingBuffer moveRingBuffer = new MoveRingBuffer(5, MoveRingBuffer.OverflowPolicy.DROP_NEWEST);
+        assertEquals(MoveRingBuffer.EMPTY, moveRingBuffer.poll());
+
+        for (int round = 0; round < 10; round++) {
+            for (int move = 0; move < 3; move++) {
+                assertTrue(moveRingBuffer.offer(move, 100 + move));
+            }
+            for (int move = 0; move < 3; move++) {
+                assertEquals(move, moveRingBuffer.poll());
+                assertEquals(100 + move, moveRingBuffer.getLastPolledTimestamp());
+            }
+            assertEquals(MoveRingBuffer.EMPTY, moveRingBuffer.poll());
+        }
+    }
+
+    @Test
+    public void dropNewest_discardsTheOfferedMove() {
+        MoveRingBuffer moveRingBuffer = new MoveRingBuffer(5, MoveRingBuffer.OverflowPolicy.DROP_NEWEST);
+        for (int move = 1; move <= 5; move++) {
+            assertTrue(moveRingBuffer.offer(move));
+        }
+        assertFalse(moveRingBuffer.offer(6));
+        assertEquals(5, moveRingBuffer.size());
+        assertEquals(1, moveRingBuffer.getDroppedMoves());
+
+        for (int move = 1; move <= 5; move++) {
+            assertEquals(move, moveRingBuffer.poll());
+        }
+        assertEquals(MoveRingBuffer.EMPTY, moveRingBuffer.poll());
+    }
+
+    @Test
+    public void dropOldest_discardsTheOldestMove() {
+        MoveRingBuffer moveRingBuffer = new MoveRingBuffer(5, MoveRingBuffer.OverflowPolicy.DROP_OLDEST);
+        for (int move = 1; move <= 7; move++) {
+            assertTrue(moveRingBuffer.offer(move));
+        }
+        assertEquals(2, moveRingBuffer.getDroppedMoves());
+
+        for (int move = 3; move <= 7; move++) {
+            assertEquals(move, moveRingBuffer.poll());
+        }
+        assertEquals(MoveRingBuffer.EMPTY, moveRingBuffer.poll());
+    }
+
+    @Test
+    public void clear_removesAllMoves() {
+        MoveRingBuffer moveRingBuffer = new MoveRingBuffer(5, MoveRingBuffer.OverflowPolicy.DROP_NEWEST);
+        moveRingBuffer.offer(1);
+        moveRingBuffer.offer(2);
+        moveRingBuffer.clear();
+        assertEquals(0, moveRingBuffer.size());
+        assertEquals(MoveRingBuffer.EMPTY, moveRingBuffer.poll());
+    }
+
+    @Test
+    public void concurrentUse_keepsTheOrder() throws InterruptedException {
+        for (final MoveRingBuffer.OverflowPolicy overflowPolicy : MoveRingBuffer.OverflowPolicy.values()) {
+            final MoveRingBuffer moveRingBuffer = new MoveRingBuffer(5, overflowPolicy);
+            final int moves = 100000;
+            final AtomicReference<String> error = new AtomicReference<>();
+
+            Thread producer = new Thread() {
+                @Override
+                public void run() {
+                    for (int move = 0; move < moves; move++) {
+                        // the timestamp identifies the move
+                        while (!moveRingBuffer.offer(move, move)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+            producer.start();
+
+            int previous = -1;
+            int polled = 0;
+            while (producer.isAlive() || moveRingBuffer.size() > 0) {
+                int move = moveRingBuffer.poll();
+                if (move == MoveRingBuffer.EMPTY) {
+                    Thread.yield();
+                    continue;
+                }
+                if (move <= previous || moveRingBuffer.getLastPolledTimestamp() != move) {
+                    error.set("move " + move + " after " + previous);
+                    break;
+                }
+                previous = move;
+                polled++;
+            }
+            producer.join();
+
+            assertNull(error.get());
+            assertEquals(moves - 1, previous);
+            if (overflowPolicy == MoveRingBuffer.OverflowPolicy.DROP_NEWEST) {
+                // the producer offers a discarded move again
+                assertEquals(moves, polled);
+            } else {
+                assertEquals(moves, polled + moveRingBuffer.getDroppedMoves());
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.input;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays sensor traces (resources of this package) through the TiltClassifier and measures
+ * the flap rate (direction changes, which the trace does not have) and the decision latency
+ * (time from a direction change in the trace until the classifier reports it).
+ */
+public class TiltClassifierReplayTest {
+
+    private static final float SENSITIVITY = 3;
+
+    private static TiltClassifier filteredClassifier() {
+        return new TiltClassifier(SENSITIVITY, 0.67f * SENSITIVITY, 0.5f, 0.5f);
+    }
+
+    // the classification before the filter: one threshold, no filter, no dead zone
+    private static TiltClassifier rawClassifier() {
+        return new TiltClassifier(SENSITIVITY, SENSITIVITY, 0, 1);
+    }
+
+    private static final class Sample {
+        long mTime;
+        float mX;
+        float mY;
+        int mExpectedDirection;
+    }
+
+    private static final class Result {
+        int mFlaps;
+        long mMaxLatency;
+    }
+
+    private static List<Sample> readTrace(String name) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                TiltClassifierReplayTest.class.getResourceAsStream(name), "UTF-8"));
+        List<Sample> samples = new ArrayList<>();
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    continue;
+                }
+                String[] values = line.split(",");
+                Sample sample = new Sample();
+                sample.mTime = Long.parseLong(values[0]);
+                sample.mX = Float.parseFloat(values[1]);
+                sample.mY = Float.parseFloat(values[2]);
+                sample.mExpectedDirection = Integer.parseInt(values[3]);
+                samples.add(sample);
+            }
+        } finally {
+            reader.close();
+        }
+        return samples;
+    }
+
+    private static Result replay(List<Sample> samples, TiltClassifier tiltClassifier) {
+        Result result = new Result();
+        int direction = TiltClassifier.NONE;
+        int expectedDirection = TiltClassifier.NONE;
+        int expectedChanges = 0;
+        int changes = 0;
+        long expectedChangeTime = 0;
+        boolean waitingForDecision = false;
+
+        for (Sample sample : samples) {
+            if (sample.mExpectedDirection != expectedDirection) {
+                expectedDirection = sample.mExpectedDirection;
+                expectedChanges++;
+                expectedChangeTime = sample.mTime;
+                waitingForDecision = true;
+            }
+
+            int newDirection = tiltClassifier.classify(sample.mX, sample.mY);
+            if (newDirection != direction) {
+                direction = newDirection;
+                changes++;
+            }
+
+            if (waitingForDecision && direction == expectedDirection) {
+                result.mMaxLatency = Math.max(result.mMaxLatency, sample.mTime - expectedChangeTime);
+                waitingForDecision = false;
+            }
+        }
+
+        assertTrue("direction never reached", !waitingForDecision);
+        result.mFlaps = Math.max(0, changes - expectedChanges);
+        return result;
+    }
+
+    @Test
+    public void hoverNearThreshold_doesNotFlap() throws IOException {
+        List<Sample> samples = readTrace("hover.csv");
+
+        Result raw = replay(samples, rawClassifier());
+        Result filtered = replay(samples, filteredClassifier());
+
+        // the trace shows the problem: without filter the direction flaps all the time
+        assertTrue("raw flaps: " + raw.mFlaps, raw.mFlaps > 50);
+        assertEquals(0, filtered.mFlaps);
+    }
+
+    @Test
+    public void flatDevice_doesNotMove() throws IOException {
+        assertEquals(0, replay(readTrace("flat.csv"), filteredClassifier()).mFlaps);
+    }
+
+    @Test
+    public void tilts_areDetectedQuickly() throws IOException {
+        List<Sample> samples = readTrace("tilts.csv");
+
+        Result raw = replay(samples, rawClassifier());
+        Result filtered = replay(samples, filteredClassifier());
+
+        assertEquals(0, filtered.mFlaps);
+        // the filter delays the decision at most by one sample (20 ms)
+        assertTrue("latency: " + filtered.mMaxLatency, filtered.mMaxLatency <= raw.mMaxLatency + 20);
+        assertTrue("latency: " + filtered.mMaxLatency, filtered.mMaxLatency <= 100);
+    }
+
+    @Test
+    public void classifier_keepsTheDirectionBetweenTheThresholds() {
+        TiltClassifier tiltClassifier = new TiltClassifier(SENSITIVITY, 2, 0.5f, 1);
+        assertEquals(TiltClassifier.NONE, tiltClassifier.classify(2.5f, 0));
+        assertEquals(0, tiltClassifier.classify(3.5f, 0));
+        assertEquals(0, tiltClassifier.classify(2.5f, 0));
+        assertEquals(0, tiltClassifier.classify(2.5f, 2.4f));
+        assertEquals(3, tiltClassifier.classify(2.5f, 3.5f));
+        assertEquals(TiltClassifier.NONE, tiltClassifier.classify(0.4f, 1.5f));
+        assertEquals(1, tiltClassifier.classify(0, -4));
+        assertEquals(4, tiltClassifier.getTilt(), 0.001f);
+    }
+}
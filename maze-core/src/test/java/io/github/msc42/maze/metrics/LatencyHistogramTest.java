@@ -0,0 +1,94 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.metrics;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets_coverAllValues() {
+        for (long nanos = 0; nanos < 100000; nanos++) {
+            int bucket = LatencyHistogram.bucketOf(nanos);
+            assertTrue(LatencyHistogram.lowerBoundOf(bucket) <= nanos);
+            assertTrue(nanos < LatencyHistogram.lowerBoundOf(bucket + 1));
+        }
+        int bucket = LatencyHistogram.bucketOf(Long.MAX_VALUE);
+        assertTrue(LatencyHistogram.lowerBoundOf(bucket) <= Long.MAX_VALUE);
+    }
+
+    @Test
+    public void percentiles_haveASmallRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(millis * 1000000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50500000L, histogram.getMean());
+        assertEquals(100000000L, histogram.getMax());
+        double maxError = 1.0 / LatencyHistogram.SUB_BUCKETS;
+        assertEquals(50e6, histogram.getPercentile(50), 50e6 * maxError);
+        assertEquals(90e6, histogram.getPercentile(90), 90e6 * maxError);
+        assertEquals(99e6, histogram.getPercentile(99), 99e6 * maxError);
+        assertEquals(100e6, histogram.getPercentile(100), 100e6 * maxError);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void concurrentRecording_losesNothing() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 100000; j++) {
+                        histogram.record(j);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(400000, histogram.getCount());
+        assertEquals(99999, histogram.getMax());
+    }
+
+    @Test
+    public void dump_listsAllStages() throws IOException {
+        InputLatencyMetrics inputLatencyMetrics = new InputLatencyMetrics();
+        inputLatencyMetrics.record(InputLatencyMetrics.STAGE_WRITE, 2000000);
+
+        String dump = inputLatencyMetrics.toString();
+        assertEquals(1 + inputLatencyMetrics.getStages(), dump.split("\n").length);
+        assertTrue(dump, dump.contains("write"));
+        assertTrue(dump, dump.contains("2.00"));
+    }
+}
@@ -0,0 +1,74 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.metrics;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void csvSnapshots_haveOneColumnPerValue() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("reconnect.count").add(2);
+        registry.gauge("frames.dropped", new Gauge() {
+            @Override
+            public long getValue() {
+                return 7;
+            }
+        });
+        registry.durationHistogram("tick.duration").record(1500000);
+
+        StringWriter writer = new StringWriter();
+        MetricsCsvWriter csvWriter = new MetricsCsvWriter(registry, writer);
+        csvWriter.writeSnapshot(1000);
+        csvWriter.writeSnapshot(2000);
+
+        String[] lines = writer.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("time,reconnect.count,frames.dropped,tick.duration.count,tick.duration.mean,"
+                + "tick.duration.p50,tick.duration.p90,tick.duration.p99,tick.duration.max", lines[0]);
+        assertEquals(registry.getCsvColumns() + 1, lines[1].split(",").length);
+        assertTrue(lines[1].startsWith("1000,2,7,1,1.500,"));
+        assertTrue(lines[2].startsWith("2000,"));
+
+        // a metric registered later starts a new header
+        registry.counter("reconnect.attempts");
+        csvWriter.writeSnapshot(3000);
+        lines = writer.toString().split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[3].endsWith(",reconnect.attempts"));
+
+        StringBuilder dump = new StringBuilder();
+        registry.dump(dump);
+        assertEquals(4, dump.toString().split("\n").length);
+        assertTrue(dump.toString().contains("tick.duration"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateName_isRejected() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("frames.dropped");
+        registry.histogram("frames.dropped");
+    }
+}
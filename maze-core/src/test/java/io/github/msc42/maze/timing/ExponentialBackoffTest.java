@@ -0,0 +1,62 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.timing;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExponentialBackoffTest {
+
+    @Test
+    public void delays_doubleUpToMaximum() {
+        ExponentialBackoff backoff = new ExponentialBackoff(250, 3000, 0, new Random(42));
+
+        assertEquals(250, backoff.nextDelayMillis());
+        assertEquals(500, backoff.nextDelayMillis());
+        assertEquals(1000, backoff.nextDelayMillis());
+        assertEquals(2000, backoff.nextDelayMillis());
+        assertEquals(3000, backoff.nextDelayMillis());
+        assertEquals(3000, backoff.nextDelayMillis());
+        assertEquals(6, backoff.getAttempts());
+
+        backoff.reset();
+        assertEquals(0, backoff.getAttempts());
+        assertEquals(250, backoff.nextDelayMillis());
+    }
+
+    @Test
+    public void jitter_staysInRangeAndSpreadsDelays() {
+        ExponentialBackoff backoff = new ExponentialBackoff(1000, 1000, 0.5, new Random(42));
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long delay = backoff.nextDelayMillis();
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+
+        assertTrue(min >= 500);
+        assertTrue(max <= 1000);
+        assertTrue(max - min > 400);
+    }
+}
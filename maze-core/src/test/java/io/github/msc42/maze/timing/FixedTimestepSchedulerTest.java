@@ -0,0 +1,155 @@
+// Copyright (C) 2016 Stefan Constantin
+//
+// This file is part of Master the maze.
+//
+// Master the maze is free software: you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation, either version 3 of the License, or
+// (at your option) any later version.
+//
+// Master the maze is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with Master the maze. If not, see <http://www.gnu.org/licenses/>.
+
+package io.github.msc42.maze.timing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FixedTimestepSchedulerTest {
+
+    private static final long PERIOD = 83333333L;
+
+    /**
+     * A clock, whose time only advances by sleeping and by work, which the test simulates.
+     * Every sleep is longer than requested, like Thread.sleep.
+     */
+    private static final class FakeClock implements Clock {
+
+        private long mNow = 1000;
+        private long mOversleep;
+
+        FakeClock(long oversleep) {
+            this.mOversleep = oversleep;
+        }
+
+        @Override
+        public long nanoTime() {
+            return mNow;
+        }
+
+        @Override
+        public void sleep(long nanos) {
+            mNow += nanos + mOversleep;
+        }
+
+        void work(long nanos) {
+            mNow += nanos;
+        }
+    }
+
+    @Test
+    public void ticks_doNotDrift() {
+        FakeClock clock = new FakeClock(900000);
+        FixedTimestepScheduler scheduler = new FixedTimestepScheduler(PERIOD, 3, clock);
+        long start = clock.nanoTime();
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(1, scheduler.awaitTicks());
+            // the tick starts after its deadline, but never a period later
+            long lateness = clock.nanoTime() - (start + i * PERIOD);
+            assertTrue(lateness >= 0 && lateness < PERIOD);
+            clock.work(PERIOD / 2 + (i % 7) * 1000000);
+        }
+
+        assertEquals(0, scheduler.getMissedDeadlines());
+        assertEquals(1000, scheduler.getTicks());
+    }
+
+    @Test
+    public void lateTicks_areCaughtUp() {
+        FakeClock clock = new FakeClock(0);
+        FixedTimestepScheduler scheduler = new FixedTimestepScheduler(PERIOD, 3, clock);
+        assertEquals(1, scheduler.awaitTicks());
+
+        // the ticks of the deadlines 1 and 2 are due
+        clock.work(2 * PERIOD + PERIOD / 2);
+        assertEquals(2, scheduler.awaitTicks());
+        assertEquals(1, scheduler.getMissedDeadlines());
+
+        // the deadlines stay on the grid
+        assertEquals(1, scheduler.awaitTicks());
+        assertEquals(1000 + 3 * PERIOD, clock.nanoTime());
+        assertEquals(0, scheduler.getSkippedTicks());
+    }
+
+    @Test
+    public void tooLateTicks_areSkipped() {
+        FakeClock clock = new FakeClock(0);
+        FixedTimestepScheduler scheduler = new FixedTimestepScheduler(PERIOD, 3, clock);
+        assertEquals(1, scheduler.awaitTicks());
+
+        // the ticks of the deadlines 1 to 10 are due
+        clock.work(10 * PERIOD);
+        assertEquals(3, scheduler.awaitTicks());
+        assertEquals(9, scheduler.getMissedDeadlines());
+        assertEquals(7, scheduler.getSkippedTicks());
+        assertEquals(4, scheduler.getTicks());
+
+        assertEquals(1, scheduler.awaitTicks());
+        assertEquals(1000 + 11 * PERIOD, clock.nanoTime());
+    }
+
+    @Test
+    public void reset_forgetsThePause() {
+        FakeClock clock = new FakeClock(0);
+        FixedTimestepScheduler scheduler = new FixedTimestepScheduler(PERIOD, 3, clock);
+        assertEquals(1, scheduler.awaitTicks());
+
+        clock.work(100 * PERIOD);
+        scheduler.reset();
+        assertEquals(1, scheduler.awaitTicks());
+        assertEquals(0, scheduler.getMissedDeadlines());
+    }
+
+    @Test
+    public void interruptedSleep_returnsNoTick() {
+        Clock clock = new Clock() {
+            @Override
+            public long nanoTime() {
+                return 0;
+            }
+
+            @Override
+            public void sleep(long nanos) throws InterruptedException {
+                throw new InterruptedException();
+            }
+        };
+        FixedTimestepScheduler scheduler = new FixedTimestepScheduler(PERIOD, 3, clock);
+        assertEquals(1, scheduler.awaitTicks());
+        assertEquals(0, scheduler.awaitTicks());
+    }
+
+    @Test
+    public void changedPeriod_paceTheNextTicks() {
+        FakeClock clock = new FakeClock(0);
+        FixedTimestepScheduler scheduler = new FixedTimestepScheduler(PERIOD, 3, clock);
+        long start = clock.nanoTime();
+        assertEquals(1, scheduler.awaitTicks());
+
+        scheduler.setPeriodNanos(2 * PERIOD);
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(1, scheduler.awaitTicks());
+            assertEquals(start + i * 2 * PERIOD, clock.nanoTime());
+        }
+
+        assertEquals(2 * PERIOD, scheduler.getPeriodNanos());
+        assertEquals(0, scheduler.getMissedDeadlines());
+    }
+}